@@ -0,0 +1,2 @@
+# HEIF output uses androidx.heifwriter when the app adds it, the library only compiles against it
+-dontwarn androidx.heifwriter.**
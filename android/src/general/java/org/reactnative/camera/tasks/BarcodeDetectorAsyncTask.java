@@ -1,5 +1,6 @@
 package org.reactnative.camera.tasks;
 
+import android.graphics.Point;
 import android.graphics.Rect;
 
 import com.facebook.react.bridge.Arguments;
@@ -11,6 +12,7 @@ import com.google.mlkit.vision.common.InputImage;
 
 import org.reactnative.barcodedetector.BarcodeFormatUtils;
 import org.reactnative.camera.utils.ImageDimensions;
+import org.reactnative.camera.utils.RegionOfInterest;
 import org.reactnative.barcodedetector.RNBarcodeDetector;
 
 import java.util.List;
@@ -18,6 +20,7 @@ import java.util.List;
 public class BarcodeDetectorAsyncTask extends android.os.AsyncTask<Void, Void, Void> {
 
   private byte[] mImageData;
+  private byte[] mInvertedImageData;
   private int mWidth;
   private int mHeight;
   private int mRotation;
@@ -28,11 +31,16 @@ public class BarcodeDetectorAsyncTask extends android.os.AsyncTask<Void, Void, V
   private ImageDimensions mImageDimensions;
   private int mPaddingLeft;
   private int mPaddingTop;
+  private int mSourceWidth;
+  private int mSourceHeight;
+  private int mOffsetX;
+  private int mOffsetY;
 
   public BarcodeDetectorAsyncTask(
           BarcodeDetectorAsyncTaskDelegate delegate,
           RNBarcodeDetector barcodeDetector,
           byte[] imageData,
+          byte[] invertedImageData,
           int width,
           int height,
           int rotation,
@@ -42,13 +50,47 @@ public class BarcodeDetectorAsyncTask extends android.os.AsyncTask<Void, Void, V
           int viewHeight,
           int viewPaddingLeft,
           int viewPaddingTop) {
+    this(delegate, barcodeDetector, imageData, invertedImageData, width, height, rotation, density, facing,
+            viewWidth, viewHeight, viewPaddingLeft, viewPaddingTop, null, width, height);
+  }
+
+  /**
+   * @param region where the image data was cropped from, null if it holds the full frame
+   * @param sourceWidth width of the full frame
+   * @param sourceHeight height of the full frame
+   */
+  public BarcodeDetectorAsyncTask(
+          BarcodeDetectorAsyncTaskDelegate delegate,
+          RNBarcodeDetector barcodeDetector,
+          byte[] imageData,
+          byte[] invertedImageData,
+          int width,
+          int height,
+          int rotation,
+          float density,
+          int facing,
+          int viewWidth,
+          int viewHeight,
+          int viewPaddingLeft,
+          int viewPaddingTop,
+          Rect region,
+          int sourceWidth,
+          int sourceHeight) {
     mImageData = imageData;
+    mInvertedImageData = invertedImageData;
     mWidth = width;
     mHeight = height;
     mRotation = rotation;
     mDelegate = delegate;
     mBarcodeDetector = barcodeDetector;
-    mImageDimensions = new ImageDimensions(width, height, rotation, facing);
+    mSourceWidth = sourceWidth;
+    mSourceHeight = sourceHeight;
+    if (region != null) {
+      Point offset = RegionOfInterest.getRotatedOffset(region, sourceWidth, sourceHeight, rotation);
+      mOffsetX = offset.x;
+      mOffsetY = offset.y;
+    }
+    mImageDimensions = new ImageDimensions(sourceWidth, sourceHeight, rotation, facing);
     mScaleX = (double) (viewWidth) / (mImageDimensions.getWidth() * density);
     mScaleY = (double) (viewHeight) / (mImageDimensions.getHeight() * density);
     mPaddingLeft = viewPaddingLeft;
@@ -60,7 +102,14 @@ public class BarcodeDetectorAsyncTask extends android.os.AsyncTask<Void, Void, V
     if (isCancelled() || mDelegate == null || mBarcodeDetector == null) {
       return null;
     }
-    InputImage image = InputImage.fromByteArray(mImageData, mWidth, mHeight, BarcodeFormatUtils.getFirebaseRotation(mRotation), InputImage.IMAGE_FORMAT_YV12);
+    if (mInvertedImageData != null) {
+      // the frame is shared with the other detectors, so invert into a buffer of our own
+      for (int y = 0; y < mImageData.length; y++) {
+        mInvertedImageData[y] = (byte) ~mImageData[y];
+      }
+      mImageData = mInvertedImageData;
+    }
+    InputImage image = InputImage.fromByteArray(mImageData, mWidth, mHeight, BarcodeFormatUtils.getFirebaseRotation(mRotation), InputImage.IMAGE_FORMAT_NV21);
     BarcodeScanner barcode = mBarcodeDetector.getDetector();
     barcode.process(image).addOnSuccessListener(barcodes -> {
       WritableArray serializedBarcodes = serializeEventData(barcodes);
@@ -68,6 +117,7 @@ public class BarcodeDetectorAsyncTask extends android.os.AsyncTask<Void, Void, V
       mDelegate.onBarcodeDetectingTaskCompleted();
     }).addOnFailureListener(e -> {
       mDelegate.onBarcodeDetectionError(mBarcodeDetector);
+      mDelegate.onBarcodeDetectingTaskCompleted();
     });
     return null;
   }
@@ -91,18 +141,18 @@ public class BarcodeDetectorAsyncTask extends android.os.AsyncTask<Void, Void, V
 
   private WritableMap processBounds(Rect frame) {
     WritableMap origin = Arguments.createMap();
-    int x = frame.left;
-    int y = frame.top;
+    int x = frame.left + mOffsetX;
+    int y = frame.top + mOffsetY;
 
-    if (frame.left < mWidth / 2) {
+    if (x < mSourceWidth / 2) {
       x = x + mPaddingLeft / 2;
-    } else if (frame.left > mWidth /2) {
+    } else if (x > mSourceWidth / 2) {
       x = x - mPaddingLeft / 2;
     }
 
-    if (frame.top < mHeight / 2) {
+    if (y < mSourceHeight / 2) {
       y = y + mPaddingTop / 2;
-    } else if (frame.top > mHeight / 2) {
+    } else if (y > mSourceHeight / 2) {
       y = y - mPaddingTop / 2;
     }
 
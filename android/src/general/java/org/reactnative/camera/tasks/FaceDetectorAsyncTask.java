@@ -1,6 +1,8 @@
 
 package org.reactnative.camera.tasks;
 
+import android.graphics.Point;
+import android.graphics.Rect;
 import android.util.Log;
 
 import com.facebook.react.bridge.Arguments;
@@ -14,6 +16,7 @@ import com.google.mlkit.vision.face.Face;
 import com.google.mlkit.vision.face.FaceDetector;
 
 import org.reactnative.camera.utils.ImageDimensions;
+import org.reactnative.camera.utils.RegionOfInterest;
 import org.reactnative.facedetector.FaceDetectorUtils;
 import org.reactnative.facedetector.RNFaceDetector;
 
@@ -31,6 +34,10 @@ public class FaceDetectorAsyncTask extends android.os.AsyncTask<Void, Void, Void
   private ImageDimensions mImageDimensions;
   private int mPaddingLeft;
   private int mPaddingTop;
+  private int mSourceWidth;
+  private int mSourceHeight;
+  private int mOffsetX;
+  private int mOffsetY;
   private String TAG = "RNCamera";
 
   public FaceDetectorAsyncTask(
@@ -46,6 +53,32 @@ public class FaceDetectorAsyncTask extends android.os.AsyncTask<Void, Void, Void
           int viewHeight,
           int viewPaddingLeft,
           int viewPaddingTop
+  ) {
+    this(delegate, faceDetector, imageData, width, height, rotation, density, facing, viewWidth, viewHeight,
+            viewPaddingLeft, viewPaddingTop, null, width, height);
+  }
+
+  /**
+   * @param region where the image data was cropped from, null if it holds the full frame
+   * @param sourceWidth width of the full frame
+   * @param sourceHeight height of the full frame
+   */
+  public FaceDetectorAsyncTask(
+          FaceDetectorAsyncTaskDelegate delegate,
+          RNFaceDetector faceDetector,
+          byte[] imageData,
+          int width,
+          int height,
+          int rotation,
+          float density,
+          int facing,
+          int viewWidth,
+          int viewHeight,
+          int viewPaddingLeft,
+          int viewPaddingTop,
+          Rect region,
+          int sourceWidth,
+          int sourceHeight
   ) {
     mImageData = imageData;
     mWidth = width;
@@ -53,7 +86,14 @@ public class FaceDetectorAsyncTask extends android.os.AsyncTask<Void, Void, Void
     mRotation = rotation;
     mDelegate = delegate;
     mFaceDetector = faceDetector;
-    mImageDimensions = new ImageDimensions(width, height, rotation, facing);
+    mSourceWidth = sourceWidth;
+    mSourceHeight = sourceHeight;
+    if (region != null) {
+      Point offset = RegionOfInterest.getRotatedOffset(region, sourceWidth, sourceHeight, rotation);
+      mOffsetX = offset.x;
+      mOffsetY = offset.y;
+    }
+    mImageDimensions = new ImageDimensions(sourceWidth, sourceHeight, rotation, facing);
     mScaleX = (double) (viewWidth) / (mImageDimensions.getWidth() * density);
     mScaleY = (double) (viewHeight) / (mImageDimensions.getHeight() * density);
     mPaddingLeft = viewPaddingLeft;
@@ -65,7 +105,7 @@ public class FaceDetectorAsyncTask extends android.os.AsyncTask<Void, Void, Void
     if (isCancelled() || mDelegate == null || mFaceDetector == null) {
       return null;
     }
-    InputImage image = InputImage.fromByteArray(mImageData, mWidth, mHeight, getFirebaseRotation(), InputImage.IMAGE_FORMAT_YV12);
+    InputImage image = InputImage.fromByteArray(mImageData, mWidth, mHeight, getFirebaseRotation(), InputImage.IMAGE_FORMAT_NV21);
 
     FaceDetector detector = mFaceDetector.getDetector();
     detector.process(image)
@@ -116,7 +156,7 @@ public class FaceDetectorAsyncTask extends android.os.AsyncTask<Void, Void, Void
     WritableArray facesList = Arguments.createArray();
 
     for (Face face : faces) {
-      WritableMap serializedFace = FaceDetectorUtils.serializeFace(face, mScaleX, mScaleY, mWidth, mHeight, mPaddingLeft, mPaddingTop);
+      WritableMap serializedFace = FaceDetectorUtils.serializeFace(face, mScaleX, mScaleY, mSourceWidth, mSourceHeight, mPaddingLeft, mPaddingTop, mOffsetX, mOffsetY);
       if (mImageDimensions.getFacing() == CameraView.FACING_FRONT) {
         serializedFace = FaceDetectorUtils.rotateFaceX(serializedFace, mImageDimensions.getWidth(), mScaleX);
       } else {
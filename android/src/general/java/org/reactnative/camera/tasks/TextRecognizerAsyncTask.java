@@ -1,5 +1,6 @@
 package org.reactnative.camera.tasks;
 
+import android.graphics.Point;
 import android.graphics.Rect;
 
 import com.facebook.react.bridge.Arguments;
@@ -12,11 +13,11 @@ import com.google.mlkit.vision.common.InputImage;
 import com.google.mlkit.vision.text.Text;
 import com.google.mlkit.vision.text.Text.TextBlock;
 import com.google.mlkit.vision.text.TextRecognizer;
-import com.google.mlkit.vision.text.TextRecognition;
-import com.google.mlkit.vision.text.latin.TextRecognizerOptions;
 
 import org.reactnative.barcodedetector.BarcodeFormatUtils;
 import org.reactnative.camera.utils.ImageDimensions;
+import org.reactnative.camera.utils.RegionOfInterest;
+import org.reactnative.textrecognizer.RNTextRecognizer;
 
 import java.util.List;
 
@@ -24,6 +25,7 @@ import java.util.List;
 public class TextRecognizerAsyncTask extends android.os.AsyncTask<Void, Void, Void> {
 
     private TextRecognizerAsyncTaskDelegate mDelegate;
+    private RNTextRecognizer mTextRecognizer;
     private byte[] mImageData;
     private int mWidth;
     private int mHeight;
@@ -33,9 +35,14 @@ public class TextRecognizerAsyncTask extends android.os.AsyncTask<Void, Void, Vo
     private double mScaleY;
     private int mPaddingLeft;
     private int mPaddingTop;
+    private int mSourceWidth;
+    private int mSourceHeight;
+    private int mOffsetX;
+    private int mOffsetY;
 
     public TextRecognizerAsyncTask(
             TextRecognizerAsyncTaskDelegate delegate,
+            RNTextRecognizer textRecognizer,
             byte[] imageData,
             int width,
             int height,
@@ -46,13 +53,47 @@ public class TextRecognizerAsyncTask extends android.os.AsyncTask<Void, Void, Vo
             int viewHeight,
             int viewPaddingLeft,
             int viewPaddingTop
+    ) {
+        this(delegate, textRecognizer, imageData, width, height, rotation, density, facing, viewWidth, viewHeight,
+                viewPaddingLeft, viewPaddingTop, null, width, height);
+    }
+
+    /**
+     * @param region where the image data was cropped from, null if it holds the full frame
+     * @param sourceWidth width of the full frame
+     * @param sourceHeight height of the full frame
+     */
+    public TextRecognizerAsyncTask(
+            TextRecognizerAsyncTaskDelegate delegate,
+            RNTextRecognizer textRecognizer,
+            byte[] imageData,
+            int width,
+            int height,
+            int rotation,
+            float density,
+            int facing,
+            int viewWidth,
+            int viewHeight,
+            int viewPaddingLeft,
+            int viewPaddingTop,
+            Rect region,
+            int sourceWidth,
+            int sourceHeight
     ) {
         mDelegate = delegate;
+        mTextRecognizer = textRecognizer;
         mImageData = imageData;
         mWidth = width;
         mHeight = height;
         mRotation = rotation;
-        mImageDimensions = new ImageDimensions(width, height, rotation, facing);
+        mSourceWidth = sourceWidth;
+        mSourceHeight = sourceHeight;
+        if (region != null) {
+            Point offset = RegionOfInterest.getRotatedOffset(region, sourceWidth, sourceHeight, rotation);
+            mOffsetX = offset.x;
+            mOffsetY = offset.y;
+        }
+        mImageDimensions = new ImageDimensions(sourceWidth, sourceHeight, rotation, facing);
         mScaleX = (double) (viewWidth) / (mImageDimensions.getWidth() * density);
         mScaleY = (double) (viewHeight) / (mImageDimensions.getHeight() * density);
         mPaddingLeft = viewPaddingLeft;
@@ -61,11 +102,11 @@ public class TextRecognizerAsyncTask extends android.os.AsyncTask<Void, Void, Vo
 
     @Override
     protected Void doInBackground(Void... ignored) {
-        if (isCancelled() || mDelegate == null) {
+        if (isCancelled() || mDelegate == null || mTextRecognizer == null) {
             return null;
         }
-        TextRecognizer detector = TextRecognition.getClient(TextRecognizerOptions.DEFAULT_OPTIONS);
-        InputImage image = InputImage.fromByteArray(mImageData, mWidth, mHeight, BarcodeFormatUtils.getFirebaseRotation(mRotation), InputImage.IMAGE_FORMAT_YV12);
+        TextRecognizer detector = mTextRecognizer.getDetector();
+        InputImage image = InputImage.fromByteArray(mImageData, mWidth, mHeight, BarcodeFormatUtils.getFirebaseRotation(mRotation), InputImage.IMAGE_FORMAT_NV21);
         detector.process(image).addOnSuccessListener(mlText -> {
             List<TextBlock> textBlocks = mlText.getTextBlocks();
             WritableArray serializedData = serializeEventData(textBlocks);
@@ -139,18 +180,18 @@ public class TextRecognizerAsyncTask extends android.os.AsyncTask<Void, Void, Vo
 
     private WritableMap processBounds(Rect frame) {
         WritableMap origin = Arguments.createMap();
-        int x = frame.left;
-        int y = frame.top;
+        int x = frame.left + mOffsetX;
+        int y = frame.top + mOffsetY;
 
-        if (frame.left < mWidth / 2) {
+        if (x < mSourceWidth / 2) {
             x = x + mPaddingLeft / 2;
-        } else if (frame.left > mWidth / 2) {
+        } else if (x > mSourceWidth / 2) {
             x = x - mPaddingLeft / 2;
         }
 
-        if (frame.top < mHeight / 2) {
+        if (y < mSourceHeight / 2) {
             y = y + mPaddingTop / 2;
-        } else if (frame.top > mHeight / 2) {
+        } else if (y > mSourceHeight / 2) {
             y = y - mPaddingTop / 2;
         }
 
@@ -1,5 +1,6 @@
 package org.reactnative.facedetector;
 
+import org.reactnative.camera.tasks.TaskExecutors;
 import org.reactnative.facedetector.tasks.FileFaceDetectionAsyncTask;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
@@ -69,6 +70,6 @@ private static ReactApplicationContext mScopedContext;
 
   @ReactMethod
   public void detectFaces(ReadableMap options, final Promise promise) {
-    new FileFaceDetectionAsyncTask(mScopedContext, options, promise).execute();
+    new FileFaceDetectionAsyncTask(mScopedContext, options, promise).executeOnExecutor(TaskExecutors.io());
   }
 }
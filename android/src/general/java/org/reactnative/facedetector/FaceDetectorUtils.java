@@ -23,6 +23,14 @@ public class FaceDetectorUtils {
   }
 
   public static WritableMap serializeFace(Face face, double scaleX, double scaleY, int width, int height, int paddingLeft, int paddingTop) {
+    return serializeFace(face, scaleX, scaleY, width, height, paddingLeft, paddingTop, 0, 0);
+  }
+
+  /**
+   * @param offsetX added to every position, used when the face was detected on a crop of the frame
+   * @param offsetY added to every position, used when the face was detected on a crop of the frame
+   */
+  public static WritableMap serializeFace(Face face, double scaleX, double scaleY, int width, int height, int paddingLeft, int paddingTop, int offsetX, int offsetY) {
     WritableMap encodedFace = Arguments.createMap();
 
     encodedFace.putInt("faceID", face.getTrackingId());
@@ -40,13 +48,13 @@ public class FaceDetectorUtils {
     }
 
     for(FaceLandmark landmark : face.getAllLandmarks()) {
-      encodedFace.putMap(landmarkNames[landmark.getLandmarkType()], mapFromPoint(landmark.getPosition(), scaleX, scaleY, width, height, paddingLeft, paddingTop));
+      encodedFace.putMap(landmarkNames[landmark.getLandmarkType()], mapFromPoint(landmark.getPosition(), scaleX, scaleY, width, height, paddingLeft, paddingTop, offsetX, offsetY));
     }
 
     WritableMap origin = Arguments.createMap();
     Rect boundingBox = face.getBoundingBox();
-    int x = boundingBox.left;
-    int y = boundingBox.top;
+    int x = boundingBox.left + offsetX;
+    int y = boundingBox.top + offsetY;
     if (x < width / 2) {
       x = x + paddingLeft / 2;
     } else if (x > width / 2) {
@@ -107,22 +115,28 @@ public class FaceDetectorUtils {
   }
 
   public static WritableMap mapFromPoint(PointF point, double scaleX, double scaleY, int width, int height, int paddingLeft, int paddingTop) {
+    return mapFromPoint(point, scaleX, scaleY, width, height, paddingLeft, paddingTop, 0, 0);
+  }
+
+  public static WritableMap mapFromPoint(PointF point, double scaleX, double scaleY, int width, int height, int paddingLeft, int paddingTop, int offsetX, int offsetY) {
     WritableMap map = Arguments.createMap();
-    Float x = point.x;
-    Float y = point.y;
-    if (point.x < width / 2) {
+    float pointX = point.x + offsetX;
+    float pointY = point.y + offsetY;
+    Float x = pointX;
+    Float y = pointY;
+    if (pointX < width / 2) {
       x = (x + paddingLeft / 2);
-    } else if (point.x > width / 2) {
+    } else if (pointX > width / 2) {
       x = (x - paddingLeft / 2);
     }
 
-    if (point.y < height / 2) {
+    if (pointY < height / 2) {
       y = (y + paddingTop / 2);
-    } else if (point.y > height / 2) {
+    } else if (pointY > height / 2) {
       y = (y - paddingTop / 2);
     }
-    map.putDouble("x", point.x * scaleX);
-    map.putDouble("y", point.y * scaleY);
+    map.putDouble("x", pointX * scaleX);
+    map.putDouble("y", pointY * scaleY);
     return map;
   }
 
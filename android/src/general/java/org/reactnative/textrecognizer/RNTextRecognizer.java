@@ -0,0 +1,48 @@
+package org.reactnative.textrecognizer;
+
+import android.util.Log;
+
+import com.google.mlkit.vision.text.TextRecognition;
+import com.google.mlkit.vision.text.TextRecognizer;
+import com.google.mlkit.vision.text.TextRecognizerOptionsInterface;
+import com.google.mlkit.vision.text.latin.TextRecognizerOptions;
+
+
+public class RNTextRecognizer {
+
+  private TextRecognizer mTextRecognizer = null;
+  private TextRecognizerOptionsInterface mOptions = TextRecognizerOptions.DEFAULT_OPTIONS;
+
+  public synchronized TextRecognizer getDetector() {
+    if (mTextRecognizer == null) {
+      createTextRecognizer();
+    }
+    return mTextRecognizer;
+  }
+
+  /**
+   * Changes the options of the recognizer, e.g. the script it reads. The current client is
+   * closed and the next {@link #getDetector()} builds one with the new options.
+   */
+  public synchronized void setOptions(TextRecognizerOptionsInterface options) {
+    if (options != mOptions) {
+      release();
+      mOptions = options;
+    }
+  }
+
+  public synchronized void release() {
+    if (mTextRecognizer != null) {
+      try {
+        mTextRecognizer.close();
+      } catch (Exception e) {
+        Log.e("RNCamera", "Attempt to close TextRecognizer failed");
+      }
+      mTextRecognizer = null;
+    }
+  }
+
+  private void createTextRecognizer() {
+    mTextRecognizer = TextRecognition.getClient(mOptions);
+  }
+}
@@ -17,6 +17,7 @@
 package com.google.android.cameraview;
 
 import android.annotation.SuppressLint;
+import android.graphics.ImageFormat;
 import android.graphics.Rect;
 import android.graphics.SurfaceTexture;
 import android.hardware.Camera;
@@ -25,6 +26,7 @@ import android.media.MediaRecorder;
 import android.media.MediaActionSound;
 import android.os.Build;
 import android.os.Handler;
+import android.os.SystemClock;
 import androidx.collection.SparseArrayCompat;
 import android.util.Log;
 import android.view.SurfaceHolder;
@@ -40,6 +42,7 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.reactnative.camera.utils.FrameBufferPool;
 import org.reactnative.camera.utils.ObjectUtils;
 
 
@@ -73,6 +76,8 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
     private static final int FOCUS_AREA_SIZE_DEFAULT = 300;
     private static final int FOCUS_METERING_AREA_WEIGHT_DEFAULT = 1000;
     private static final int DELAY_MILLIS_BEFORE_RESETTING_FOCUS = 3000;
+    private static final int PREVIEW_BUFFER_COUNT = 3;
+    private static final int BURST_BACKLOG_RETRY_MS = 20;
 
     private Handler mHandler = new Handler();
 
@@ -81,6 +86,10 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
 
     private final AtomicBoolean isPictureCaptureInProgress = new AtomicBoolean(false);
 
+    private final AtomicBoolean mIsBurstInProgress = new AtomicBoolean(false);
+
+    private int mBurstTaken;
+
     Camera mCamera;
 
     // do not instantiate this every time since it allocates unnecessary resources
@@ -105,6 +114,8 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
 
     private Size mPictureSize;
 
+    private Size mAnalysisSize;
+
     private AspectRatio mAspectRatio;
 
     private boolean mAutoFocus;
@@ -127,6 +138,12 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
 
     private boolean mIsScanning;
 
+    private boolean mVideoReady;
+
+    private int mPreRollDuration;
+
+    private final FrameBufferPool mPreviewBuffers = new FrameBufferPool(PREVIEW_BUFFER_COUNT);
+
     private Boolean mPlaySoundOnCapture = false;
 
     private Boolean mPlaySoundOnRecord = false;
@@ -338,7 +355,7 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
                 mIsPreviewActive = true;
                 mCamera.startPreview();
                 if (mIsScanning) {
-                    mCamera.setPreviewCallback(this);
+                    startPreviewCallback();
                 }
             }
             catch(Exception e){
@@ -522,6 +539,17 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
         return mPictureSize;
     }
 
+    @Override
+    void setAnalysisSize(Size size) {
+        // preview callbacks always come at preview size, the consumer has to scale them down
+        mAnalysisSize = size;
+    }
+
+    @Override
+    Size getAnalysisSize() {
+        return mAnalysisSize;
+    }
+
     @Override
     boolean setAspectRatio(final AspectRatio ratio) {
         if (mAspectRatio == null || !isCameraOpened()) {
@@ -698,6 +726,56 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
         return mIsScanning;
     }
 
+    @Override
+    void setVideoReady(boolean videoReady) {
+        // the camera stays configured for recording anyway, nothing to prepare
+        mVideoReady = videoReady;
+    }
+
+    @Override
+    boolean getVideoReady() {
+        return mVideoReady;
+    }
+
+    @Override
+    void setPreRollDuration(int duration) {
+        // Camera1 can't keep an encoder running next to the preview, only kept for Camera2
+        mPreRollDuration = duration;
+    }
+
+    @Override
+    int getPreRollDuration() {
+        return mPreRollDuration;
+    }
+
+    @Override
+    void setRecordingEngine(int engine) {
+        // Camera1 can't render into an encoder surface, it always records with MediaRecorder
+    }
+
+    @Override
+    int getRecordingEngine() {
+        return Constants.RECORDING_ENGINE_MEDIA_RECORDER;
+    }
+
+    @Override
+    void setVideoCodec(String mimeType) {
+    }
+
+    @Override
+    void setVideoSegments(int segmentDuration, int segmentFileSize) {
+    }
+
+    @Override
+    boolean setVideoBitrate(int bitrate) {
+        return false;
+    }
+
+    @Override
+    boolean requestKeyFrame() {
+        return false;
+    }
+
     @Override
     void takePicture(final ReadableMap options) {
         if (!isCameraOpened()) {
@@ -751,29 +829,7 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
         if (!mIsRecording.get() && isPictureCaptureInProgress.compareAndSet(false, true)) {
 
             try{
-                if (options.hasKey("orientation") && options.getInt("orientation") != Constants.ORIENTATION_AUTO) {
-                    mOrientation = options.getInt("orientation");
-                    int rotation = orientationEnumToRotation(mOrientation);
-                    mCameraParameters.setRotation(calcCameraRotation(rotation));
-                    try{
-                        mCamera.setParameters(mCameraParameters);
-                    }
-                    catch(RuntimeException e ) {
-                        Log.e("CAMERA_1::", "setParameters rotation failed", e);
-                    }
-                }
-
-                // set quality on capture since we might not process the image bitmap if not needed now.
-                // This also achieves a much faster JPEG compression speed since it's done on the hardware
-                if(options.hasKey("quality")){
-                    mCameraParameters.setJpegQuality((int) (options.getDouble("quality") * 100));
-                    try{
-                        mCamera.setParameters(mCameraParameters);
-                    }
-                    catch(RuntimeException e ) {
-                        Log.e("CAMERA_1::", "setParameters quality failed", e);
-                    }
-                }
+                applyCaptureOptions(options);
 
                 mCamera.takePicture(null, null, null, new Camera.PictureCallback() {
                     @Override
@@ -796,7 +852,7 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
                                         mCamera.startPreview();
                                         mIsPreviewActive = true;
                                         if (mIsScanning) {
-                                            mCamera.setPreviewCallback(Camera1.this);
+                                            startPreviewCallback();
                                         }
                                     }
                                     catch(Exception e){
@@ -838,6 +894,138 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
         }
     }
 
+    private void applyCaptureOptions(ReadableMap options) {
+        if (options.hasKey("orientation") && options.getInt("orientation") != Constants.ORIENTATION_AUTO) {
+            mOrientation = options.getInt("orientation");
+            int rotation = orientationEnumToRotation(mOrientation);
+            mCameraParameters.setRotation(calcCameraRotation(rotation));
+            try{
+                mCamera.setParameters(mCameraParameters);
+            }
+            catch(RuntimeException e ) {
+                Log.e("CAMERA_1::", "setParameters rotation failed", e);
+            }
+        }
+
+        // set quality on capture since we might not process the image bitmap if not needed now.
+        // This also achieves a much faster JPEG compression speed since it's done on the hardware
+        if(options.hasKey("quality")){
+            mCameraParameters.setJpegQuality((int) (options.getDouble("quality") * 100));
+            try{
+                mCamera.setParameters(mCameraParameters);
+            }
+            catch(RuntimeException e ) {
+                Log.e("CAMERA_1::", "setParameters quality failed", e);
+            }
+        }
+    }
+
+    @Override
+    void takeBurst(final ReadableMap options, final int count, final int intervalMs) {
+        if (!isCameraOpened()) {
+            throw new IllegalStateException(
+                    "Camera is not ready. Call start() before takeBurst().");
+        }
+        if (!mIsPreviewActive) {
+            throw new IllegalStateException("Preview is paused - resume it before taking a picture.");
+        }
+        if (mIsRecording.get() || !isPictureCaptureInProgress.compareAndSet(false, true)) {
+            throw new IllegalStateException("Camera capture failed. Camera is already capturing.");
+        }
+        try {
+            applyCaptureOptions(options);
+            mBurstTaken = 0;
+            mIsBurstInProgress.set(true);
+            takeBurstPicture(0, count, intervalMs);
+        } catch (RuntimeException e) {
+            mIsBurstInProgress.set(false);
+            isPictureCaptureInProgress.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Camera1 stops the preview for every still, so the preview is restarted right in the
+     * callback and the next shot is taken as soon as the interval allows.
+     */
+    private void takeBurstPicture(final int index, final int count, final int intervalMs) {
+        final long startedAt = SystemClock.elapsedRealtime();
+        mCamera.takePicture(null, null, null, new Camera.PictureCallback() {
+            @Override
+            public void onPictureTaken(byte[] data, Camera camera) {
+                if(mPlaySoundOnCapture){
+                    sound.play(MediaActionSound.SHUTTER_CLICK);
+                }
+
+                boolean previewRestarted = false;
+                synchronized(Camera1.this){
+                    if(mCamera != null){
+                        try{
+                            mCamera.startPreview();
+                            mIsPreviewActive = true;
+                            previewRestarted = true;
+                            if (mIsScanning) {
+                                startPreviewCallback();
+                            }
+                        }
+                        catch(Exception e){
+                            mIsPreviewActive = false;
+                            Log.e("CAMERA_1::", "camera startPreview failed", e);
+                        }
+                    }
+                }
+
+                mBurstTaken = index + 1;
+                mCallback.onBurstPictureTaken(data, displayOrientationToOrientationEnum(mDeviceOrientation), index);
+
+                if (!previewRestarted || index + 1 >= count) {
+                    finishBurst();
+                    return;
+                }
+                long delay = Math.max(0, intervalMs - (SystemClock.elapsedRealtime() - startedAt));
+                mBgHandler.postDelayed(new Runnable() {
+                    @Override
+                    public void run() {
+                        synchronized(Camera1.this){
+                            if (!mIsBurstInProgress.get()) {
+                                return;
+                            }
+                            if (mCamera == null || !mIsPreviewActive) {
+                                finishBurst();
+                                return;
+                            }
+                            if (!mCallback.wantsBurstPicture()) {
+                                // earlier pictures are still being saved
+                                mBgHandler.postDelayed(this, BURST_BACKLOG_RETRY_MS);
+                                return;
+                            }
+                            try {
+                                takeBurstPicture(index + 1, count, intervalMs);
+                            } catch (RuntimeException e) {
+                                Log.e("CAMERA_1::", "burst takePicture failed", e);
+                                finishBurst();
+                            }
+                        }
+                    }
+                }, delay);
+            }
+        });
+    }
+
+    private void finishBurst() {
+        // the camera may be released while a shot is pending, only report the end once
+        if (!mIsBurstInProgress.compareAndSet(true, false)) {
+            return;
+        }
+        isPictureCaptureInProgress.set(false);
+        mOrientation = Constants.ORIENTATION_AUTO;
+        mCallback.onBurstEnd(mBurstTaken);
+
+        if(mustUpdateSurface){
+            updateSurface();
+        }
+    }
+
     @Override
     boolean record(String path, int maxDuration, int maxFileSize, boolean recordAudio, CamcorderProfile profile, int orientation, int fps) {
 
@@ -1211,6 +1399,7 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
             mCallback.onCameraClosed();
 
             // reset these flags
+            finishBurst();
             isPictureCaptureInProgress.set(false);
             mIsRecording.set(false);
         }
@@ -1525,13 +1714,52 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
         mIsScanning = isScanning;
         if (isCameraOpened()) {
             if (mIsScanning) {
-                mCamera.setPreviewCallback(this);
+                startPreviewCallback();
             } else {
                 mCamera.setPreviewCallback(null);
             }
         }
     }
 
+    /**
+     * Installs the preview callback on a small ring of reusable buffers instead of
+     * letting the camera allocate a new array for every frame. Consumers hand the
+     * buffers back through {@link #releasePreviewBuffer(byte[])}.
+     */
+    private void startPreviewCallback() {
+        // removing the callback also drops any buffer still queued by the driver
+        mCamera.setPreviewCallbackWithBuffer(null);
+        Camera.Size size = mCameraParameters.getPreviewSize();
+        int bitsPerPixel = ImageFormat.getBitsPerPixel(mCameraParameters.getPreviewFormat());
+        mPreviewBuffers.reset(size.width * size.height * bitsPerPixel / 8);
+        queuePreviewBuffers(mCamera);
+        mCamera.setPreviewCallbackWithBuffer(this);
+    }
+
+    private void queuePreviewBuffers(Camera camera) {
+        byte[] buffer;
+        while ((buffer = mPreviewBuffers.acquire()) != null) {
+            camera.addCallbackBuffer(buffer);
+        }
+    }
+
+    @Override
+    void releasePreviewBuffer(byte[] data) {
+        // buffers from before a preview size change are not ours anymore
+        if (!mPreviewBuffers.release(data)) {
+            return;
+        }
+        Camera camera = mCamera;
+        if (camera != null && mIsScanning) {
+            try {
+                queuePreviewBuffers(camera);
+            } catch (RuntimeException e) {
+                // camera got released in the meantime
+                Log.e("CAMERA_1::", "releasePreviewBuffer failed", e);
+            }
+        }
+    }
+
     private void setPlaySoundInternal(boolean playSoundOnCapture){
         mPlaySoundOnCapture = playSoundOnCapture;
         if(mCamera != null){
@@ -1580,6 +1808,10 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
 
     @Override
     public void onPreviewFrame(byte[] data, Camera camera) {
+        if (!mCallback.wantsFramePreview()) {
+            releasePreviewBuffer(data);
+            return;
+        }
         Camera.Size previewSize = mCameraParameters.getPreviewSize();
         mCallback.onFramePreview(data, previewSize.width, previewSize.height, mDeviceOrientation);
     }
@@ -45,6 +45,7 @@ import android.view.Surface;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.Build;
+import android.os.SystemClock;
 
 import com.facebook.react.bridge.ReadableMap;
 
@@ -58,7 +59,9 @@ import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.reactnative.camera.utils.FrameBufferPool;
 import org.reactnative.camera.utils.ObjectUtils;
 
 
@@ -69,6 +72,30 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
 
     private static final String TAG = "Camera2";
 
+    private static final int SCAN_BUFFER_COUNT = 3;
+
+    /**
+     * Burst shots requested ahead of the one being delivered, so the sensor never idles
+     * while a JPEG is handed out.
+     */
+    private static final int BURST_IN_FLIGHT = 2;
+
+    /**
+     * How soon a burst shot held back by {@link Callback#wantsBurstPicture()} is asked for again.
+     */
+    private static final int BURST_BACKLOG_RETRY_MS = 20;
+
+    /**
+     * Longest side of the frames handed to the detectors while recording, the scan stream
+     * shares the sensor's bandwidth with the encoder then.
+     */
+    private static final int RECORDING_SCAN_MAX_SIDE = 640;
+
+    /**
+     * Minimum time between two frames handed to the detectors while recording.
+     */
+    private static final long RECORDING_SCAN_INTERVAL_MS = 200;
+
     private static final SparseIntArray INTERNAL_FACINGS = new SparseIntArray();
 
     static {
@@ -130,11 +157,7 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
             }
             mCaptureSession = session;
             mInitialCropRegion = mPreviewRequestBuilder.get(CaptureRequest.SCALER_CROP_REGION);
-            updateAutoFocus();
-            updateFlash();
-            updateFocusDepth();
-            updateWhiteBalance();
-            updateZoom();
+            updatePreviewRequest();
             try {
                 mCaptureSession.setRepeatingRequest(mPreviewRequestBuilder.build(),
                         mCaptureCallback, null);
@@ -143,11 +166,45 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
             } catch (IllegalStateException e) {
                 Log.e(TAG, "Failed to start camera preview.", e);
             }
+            startPreRoll();
+            if (mPendingPictureOptions != null) {
+                ReadableMap options = mPendingPictureOptions;
+                mPendingPictureOptions = null;
+                startPictureCapture(options);
+            }
         }
 
         @Override
         public void onConfigureFailed(@NonNull CameraCaptureSession session) {
             Log.e(TAG, "Failed to configure capture session.");
+            if (mSessionHasRecordingScanSurface) {
+                // the device can't stream the analysis frames next to the recording, keep
+                // recording without them
+                Log.e(TAG, "Analysis stream not supported while recording, detectors pause until it stops.");
+                mRecordingScanFailed = true;
+                try {
+                    startRecordingSession();
+                } catch (CameraAccessException | IllegalStateException e) {
+                    Log.e(TAG, "Failed to restart the recording session.", e);
+                }
+            } else if (mSessionHasRecorderSurface) {
+                // the device can't stream to the recorder next to the other outputs, go back to
+                // a regular preview session
+                Log.e(TAG, "Video-ready session not supported, recording will rebuild the session.");
+                mRecorderSurfaceFailed = true;
+                releaseRecorderSurface();
+                startCaptureSession();
+            } else if (mPendingPictureOptions != null) {
+                if (mStillCaptureSize != null && !mStillCaptureSize.equals(mPictureSize)) {
+                    // the device can't capture at the smaller size, take the picture at the
+                    // regular one and let it be scaled after
+                    Log.e(TAG, "Picture size " + mStillCaptureSize + " not supported, capturing at " + mPictureSize);
+                    prepareStillImageReader();
+                    startCaptureSession();
+                } else {
+                    mPendingPictureOptions = null;
+                }
+            }
         }
 
         @Override
@@ -188,18 +245,44 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
         @Override
         public void onImageAvailable(ImageReader reader) {
             try (Image image = reader.acquireNextImage()) {
-                Image.Plane[] planes = image.getPlanes();
-                if (planes.length > 0) {
-                    ByteBuffer buffer = planes[0].getBuffer();
-                    byte[] data = new byte[buffer.remaining()];
+                if (image == null) {
+                    return;
+                }
+                if (image.getFormat() == ImageFormat.JPEG) {
+                    ByteBuffer buffer = image.getPlanes()[0].getBuffer();
+                    final byte[] data = new byte[buffer.remaining()];
                     buffer.get(data);
-                    if (image.getFormat() == ImageFormat.JPEG) {
+                    if (mBurstOutstanding.get() > 0) {
+                        // burst state lives on the background thread
+                        mBgHandler.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                onBurstPictureAvailable(data);
+                            }
+                        });
+                    } else {
                         // @TODO: implement deviceOrientation
                         mCallback.onPictureTaken(data, 0);
-                    } else {
-                        mCallback.onFramePreview(data, image.getWidth(), image.getHeight(), mDisplayOrientation);
                     }
-                    image.close();
+                } else {
+                    if (!mCallback.wantsFramePreview()) {
+                        return;
+                    }
+                    if (mIsRecording) {
+                        // leave the encoder the headroom, detectors don't need every frame
+                        long now = SystemClock.elapsedRealtime();
+                        if (now - mLastRecordingScanAt < RECORDING_SCAN_INTERVAL_MS) {
+                            return;
+                        }
+                        mLastRecordingScanAt = now;
+                    }
+                    byte[] data = mScanBuffers.acquire();
+                    if (data == null) {
+                        // every buffer is still held by the detectors, drop this frame
+                        return;
+                    }
+                    mYuvFrameAssembler.assemble(image, data);
+                    mCallback.onFramePreview(data, image.getWidth(), image.getHeight(), mDisplayOrientation);
                 }
             }
         }
@@ -224,22 +307,154 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
 
     private ImageReader mStillImageReader;
 
+    private CaptureRequest mBurstRequest;
+
+    // Burst captures submitted whose image or failure hasn't come back yet, they can outlive
+    // the burst. Only counted across threads, the other burst state stays on mBgHandler.
+    private final AtomicInteger mBurstOutstanding = new AtomicInteger();
+
+    private int mBurstCount;
+
+    private int mBurstRequested;
+
+    private int mBurstDelivered;
+
+    private int mBurstFailed;
+
+    private int mBurstInterval;
+
+    private long mBurstLastRequestAt;
+
+    private final Runnable mRequestBurstPicturesRunnable = new Runnable() {
+        @Override
+        public void run() {
+            requestBurstPictures();
+        }
+    };
+
+    private final CameraCaptureSession.CaptureCallback mBurstCaptureCallback = new CameraCaptureSession.CaptureCallback() {
+        @Override
+        public void onCaptureFailed(@NonNull CameraCaptureSession session, @NonNull CaptureRequest request,
+                                    @NonNull CaptureFailure failure) {
+            onBurstCaptureReturned();
+            if (mBurstCount == 0) {
+                return;
+            }
+            Log.e(TAG, "Burst capture failed: " + failure.getReason());
+            mBurstFailed++;
+            onBurstShotDone();
+        }
+    };
+
     private ImageReader mScanImageReader;
 
+    private final FrameBufferPool mScanBuffers = new FrameBufferPool(SCAN_BUFFER_COUNT);
+
+    private final YuvFrameAssembler mYuvFrameAssembler = new YuvFrameAssembler(ImageFormat.NV21);
+
     private int mImageFormat;
 
     private MediaRecorder mMediaRecorder;
 
+    // Used instead of mMediaRecorder with the MediaCodec recording engine
+    private CodecRecorder mCodecRecorder;
+
+    // Recorders still finishing their file, one of them may hold mRecorderSurface until then
+    private final AtomicInteger mStoppingRecorders = new AtomicInteger();
+
+    private int mRecordingEngine = Constants.RECORDING_ENGINE_MEDIA_RECORDER;
+
+    private String mVideoMimeType;
+
+    private final CodecRecorder.Listener mCodecRecorderListener = new CodecRecorder.Listener() {
+        @Override
+        public void onRecorderLimitReached() {
+            stopRecording();
+        }
+
+        @Override
+        public void onRecorderError(Exception e) {
+            if (mIsRecording) {
+                stopRecording();
+            } else {
+                stopPreRoll();
+            }
+        }
+
+        @Override
+        public void onRecorderSegmentFinished(String path, int index) {
+            mCallback.onRecordingSegment(path, index);
+        }
+    };
+
+    // Segment limits of the next recordings, in ms and bytes, 0 when they are not split
+    private int mSegmentDuration;
+
+    private int mSegmentFileSize;
+
     private String mVideoPath;
 
     private boolean mIsRecording;
 
+    // Video-ready mode keeps a persistent encoder input surface in the preview session, so
+    // starting and stopping a recording only swaps the repeating request
+    private boolean mVideoReady;
+
+    private boolean mRecorderSurfaceFailed;
+
+    private Surface mRecorderSurface;
+
+    private Size mRecorderSurfaceSize;
+
+    // Whether the last session was created with mRecorderSurface
+    private boolean mSessionHasRecorderSurface;
+
+    // Whether the running recording goes through mRecorderSurface
+    private boolean mRecordingInSession;
+
+    private Size mRecordingSize;
+
+    // Pre-roll kept by mCodecRecorder while not recording, in ms, 0 when off
+    private int mPreRollDuration;
+
+    // Surface the camera streams to in sessions rebuilt for a recording
+    private Surface mRecordingTarget;
+
+    // Whether the last recording session was created with the scan surface
+    private boolean mSessionHasRecordingScanSurface;
+
+    // Set once a device refused the scan surface next to a recording, until the camera changes
+    private boolean mRecordingScanFailed;
+
+    // Whether mScanImageReader was shrunk for the running recording
+    private boolean mRecordingScanReader;
+
+    // Whether the last session was created with the scan surface
+    private boolean mSessionHasScanSurface;
+
+    // Set when scanning or the analysis size changed during a recording that couldn't pick it
+    // up, the session and scan reader are rebuilt once the recording stops
+    private boolean mScanChangePending;
+
+    private long mLastRecordingScanAt;
+
     private final SizeMap mPreviewSizes = new SizeMap();
 
     private final SizeMap mPictureSizes = new SizeMap();
 
+    private final SizeMap mAnalysisSizes = new SizeMap();
+
     private Size mPictureSize;
 
+    // Size the still image reader currently captures at, smaller than mPictureSize when a
+    // picture asked for a smaller width
+    private Size mStillCaptureSize;
+
+    // Options of a picture waiting for the session to be reconfigured to its capture size
+    private ReadableMap mPendingPictureOptions;
+
+    private Size mAnalysisSize;
+
     private int mFacing;
 
     private AspectRatio mAspectRatio = Constants.DEFAULT_ASPECT_RATIO;
@@ -312,6 +527,8 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
             return false;
         }
         collectCameraInfo();
+        mRecordingScanFailed = false;
+        mScanChangePending = false;
         setAspectRatio(mInitialRatio);
         mInitialRatio = null;
         prepareStillImageReader();
@@ -322,10 +539,20 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
 
     @Override
     void stop() {
+        mPendingPictureOptions = null;
+        stopPreRoll();
         if (mCaptureSession != null) {
             mCaptureSession.close();
             mCaptureSession = null;
         }
+        mBgHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (mBurstCount > 0) {
+                    finishBurst();
+                }
+            }
+        });
         if (mCamera != null) {
             mCamera.close();
             mCamera = null;
@@ -334,26 +561,39 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
             mStillImageReader.close();
             mStillImageReader = null;
         }
+        // the closed reader won't deliver the pending shots
+        mBurstOutstanding.set(0);
 
         if (mScanImageReader != null) {
             mScanImageReader.close();
             mScanImageReader = null;
         }
+        mRecordingScanReader = false;
+        mRecordingTarget = null;
 
-        if (mMediaRecorder != null) {
-            mMediaRecorder.stop();
-            mMediaRecorder.reset();
-            mMediaRecorder.release();
-            mMediaRecorder = null;
-
-            if (mIsRecording) {
-                mCallback.onRecordingEnd();
+        if (mMediaRecorder != null || mCodecRecorder != null) {
+            if (mMediaRecorder != null) {
+                mMediaRecorder.stop();
+                mMediaRecorder.reset();
+                mMediaRecorder.release();
+                mMediaRecorder = null;
+                if (mIsRecording) {
+                    mCallback.onRecordingEnd();
 
-                // @TODO: implement videoOrientation and deviceOrientation calculation
-                mCallback.onVideoRecorded(mVideoPath, 0, 0);
-                mIsRecording = false;
+                    // @TODO: implement videoOrientation and deviceOrientation calculation
+                    mCallback.onVideoRecorded(mVideoPath, 0, 0);
+                }
+            } else {
+                if (mIsRecording) {
+                    mCallback.onRecordingEnd();
+                }
+                // reports the file once it is finished
+                stopCodecRecorder(mIsRecording, true);
             }
+            mIsRecording = false;
         }
+        mRecordingInSession = false;
+        releaseRecorderSurface();
     }
 
     @Override
@@ -473,6 +713,34 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
         return mPictureSize;
     }
 
+    @Override
+    void setAnalysisSize(Size size) {
+        if (size == null ? mAnalysisSize == null : size.equals(mAnalysisSize)) {
+            return;
+        }
+        mAnalysisSize = size;
+        if (mScanImageReader == null) {
+            // picked up once the camera starts
+            return;
+        }
+        if (mIsRecording) {
+            // rebuilding the session would interrupt the recording
+            mScanChangePending = true;
+            return;
+        }
+        prepareScanImageReader();
+        if (mCaptureSession != null) {
+            mCaptureSession.close();
+            mCaptureSession = null;
+            startCaptureSession();
+        }
+    }
+
+    @Override
+    Size getAnalysisSize() {
+        return mAnalysisSize;
+    }
+
     @Override
     boolean setAspectRatio(AspectRatio ratio) {
         if (ratio != null && mPreviewSizes.isEmpty()) {
@@ -562,6 +830,30 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
 
     @Override
     void takePicture(ReadableMap options) {
+        if (mBurstCount > 0 || mBurstOutstanding.get() > 0 || mPendingPictureOptions != null) {
+            throw new IllegalStateException("Camera capture failed. Camera is already capturing.");
+        }
+        Size captureSize = chooseStillCaptureSize(options);
+        // reconfiguring would close the recording session, keep the current size then
+        if (mCaptureSession != null && !mIsRecording && !captureSize.equals(mStillCaptureSize)) {
+            // the session has to be reconfigured for the new JPEG size, the picture is taken
+            // as soon as it is
+            mPendingPictureOptions = options;
+            try {
+                mCaptureSession.stopRepeating();
+            } catch (CameraAccessException e) {
+                e.printStackTrace();
+            }
+            mCaptureSession.close();
+            mCaptureSession = null;
+            prepareStillImageReader(captureSize);
+            startCaptureSession();
+            return;
+        }
+        startPictureCapture(options);
+    }
+
+    private void startPictureCapture(ReadableMap options) {
         mCaptureCallback.setOptions(options);
 
         if (mAutoFocus) {
@@ -571,29 +863,166 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
         }
     }
 
+    @Override
+    void takeBurst(ReadableMap options, int count, int intervalMs) {
+        if (mCaptureSession == null || mIsRecording || mBurstCount > 0 || mBurstOutstanding.get() > 0) {
+            throw new IllegalStateException("Camera capture failed. Camera is already capturing.");
+        }
+        try {
+            // the preview stays a target, so the repeating request keeps running between shots
+            CaptureRequest.Builder builder = mCamera.createCaptureRequest(CameraDevice.TEMPLATE_STILL_CAPTURE);
+            builder.addTarget(getPreviewSurface());
+            builder.addTarget(mStillImageReader.getSurface());
+            builder.set(CaptureRequest.CONTROL_AF_MODE,
+                    mPreviewRequestBuilder.get(CaptureRequest.CONTROL_AF_MODE));
+            builder.set(CaptureRequest.CONTROL_AE_MODE,
+                    mPreviewRequestBuilder.get(CaptureRequest.CONTROL_AE_MODE));
+            builder.set(CaptureRequest.FLASH_MODE,
+                    mPreviewRequestBuilder.get(CaptureRequest.FLASH_MODE));
+            builder.set(CaptureRequest.JPEG_ORIENTATION, getOutputRotation());
+            if (options.hasKey("quality")) {
+                builder.set(CaptureRequest.JPEG_QUALITY, (byte) (options.getDouble("quality") * 100));
+            }
+            builder.set(CaptureRequest.SCALER_CROP_REGION, mPreviewRequestBuilder.get(CaptureRequest.SCALER_CROP_REGION));
+            mBurstRequest = builder.build();
+        } catch (CameraAccessException e) {
+            throw new IllegalStateException("Cannot capture a burst.", e);
+        }
+        mBurstCount = count;
+        mBurstRequested = 0;
+        mBurstDelivered = 0;
+        mBurstFailed = 0;
+        mBurstInterval = intervalMs;
+        mBurstLastRequestAt = 0;
+        requestBurstPictures();
+    }
+
+    /**
+     * Keeps up to {@link #BURST_IN_FLIGHT} shots queued in the session, spaced by the burst interval.
+     * Like the rest of the burst state, only called on {@link #mBgHandler}.
+     */
+    private void requestBurstPictures() {
+        mBgHandler.removeCallbacks(mRequestBurstPicturesRunnable);
+        while (mBurstCount > 0 && mBurstRequested < mBurstCount
+                && mBurstRequested - mBurstDelivered < BURST_IN_FLIGHT) {
+            long now = SystemClock.elapsedRealtime();
+            if (mBurstLastRequestAt != 0 && now - mBurstLastRequestAt < mBurstInterval) {
+                mBgHandler.postDelayed(mRequestBurstPicturesRunnable, mBurstInterval - (now - mBurstLastRequestAt));
+                return;
+            }
+            if (!mCallback.wantsBurstPicture()) {
+                // earlier pictures are still being saved
+                mBgHandler.postDelayed(mRequestBurstPicturesRunnable, BURST_BACKLOG_RETRY_MS);
+                return;
+            }
+            mBurstOutstanding.incrementAndGet();
+            try {
+                mCaptureSession.capture(mBurstRequest, mBurstCaptureCallback, mBgHandler);
+            } catch (CameraAccessException | IllegalStateException e) {
+                onBurstCaptureReturned();
+                Log.e(TAG, "Cannot capture a burst picture.", e);
+                finishBurst();
+                return;
+            }
+            mBurstRequested++;
+            mBurstLastRequestAt = now;
+            if (mPlaySoundOnCapture) {
+                sound.play(MediaActionSound.SHUTTER_CLICK);
+            }
+        }
+    }
+
+    private void onBurstPictureAvailable(byte[] data) {
+        onBurstCaptureReturned();
+        if (mBurstCount == 0) {
+            // requested ahead by a burst that already ended
+            return;
+        }
+        int index = mBurstDelivered - mBurstFailed;
+        // @TODO: implement deviceOrientation
+        mCallback.onBurstPictureTaken(data, 0, index);
+        onBurstShotDone();
+    }
+
+    /**
+     * Counts a burst capture as back, unless {@link #stop()} already gave up on it.
+     */
+    private void onBurstCaptureReturned() {
+        int outstanding;
+        do {
+            outstanding = mBurstOutstanding.get();
+        } while (outstanding > 0 && !mBurstOutstanding.compareAndSet(outstanding, outstanding - 1));
+    }
+
+    private void onBurstShotDone() {
+        mBurstDelivered++;
+        if (mBurstDelivered >= mBurstCount) {
+            finishBurst();
+        } else {
+            requestBurstPictures();
+        }
+    }
+
+    private void finishBurst() {
+        mBgHandler.removeCallbacks(mRequestBurstPicturesRunnable);
+        int taken = mBurstDelivered - mBurstFailed;
+        mBurstCount = 0;
+        mBurstRequest = null;
+        mCallback.onBurstEnd(taken);
+    }
+
     @Override
     boolean record(String path, int maxDuration, int maxFileSize, boolean recordAudio, CamcorderProfile profile, int orientation, int fps) {
         if (!mIsRecording) {
-            setUpMediaRecorder(path, maxDuration, maxFileSize, recordAudio, profile);
             try {
-                mMediaRecorder.prepare();
-
-                if (mCaptureSession != null) {
-                    mCaptureSession.close();
-                    mCaptureSession = null;
+                boolean inSession;
+                boolean preRolled = mCodecRecorder != null
+                        && recordPreRoll(path, maxDuration, maxFileSize, recordAudio, profile);
+                if (!preRolled) {
+                    stopPreRoll();
+                }
+                Surface codecSurface = null;
+                if (preRolled) {
+                    // the encoder is already running on the recorder's surface
+                    inSession = true;
+                } else if (mRecordingEngine == Constants.RECORDING_ENGINE_MEDIA_CODEC
+                        // only the MediaCodec engine can switch files on a keyframe
+                        || mSegmentDuration > 0 || mSegmentFileSize > 0) {
+                    setUpCodecRecorder(path, maxDuration, maxFileSize, recordAudio, profile);
+                    inSession = canRecordInSession();
+                    codecSurface = mCodecRecorder.createInputSurface(inSession ? mRecorderSurface : null);
+                } else {
+                    setUpMediaRecorder(path, maxDuration, maxFileSize, recordAudio, profile);
+                    inSession = canRecordInSession();
+                    if (inSession) {
+                        attachRecorderSurface(mMediaRecorder, mRecorderSurface);
+                    }
+                    mMediaRecorder.prepare();
                 }
 
-                Size size = chooseOptimalSize();
-                mPreview.setBufferSize(size.getWidth(), size.getHeight());
-                Surface surface = getPreviewSurface();
-                Surface mMediaRecorderSurface = mMediaRecorder.getSurface();
-
-                mPreviewRequestBuilder = mCamera.createCaptureRequest(CameraDevice.TEMPLATE_RECORD);
-                mPreviewRequestBuilder.addTarget(surface);
-                mPreviewRequestBuilder.addTarget(mMediaRecorderSurface);
-                mCamera.createCaptureSession(Arrays.asList(surface, mMediaRecorderSurface),
-                    mSessionCallback, null);
-                mMediaRecorder.start();
+                if (inSession) {
+                    if (!preRolled) {
+                        // the session already has the recorder's surface, only the request changes
+                        startRecorder();
+                        setRecordingRequest(true);
+                    }
+                } else {
+                    if (mCaptureSession != null) {
+                        mCaptureSession.close();
+                        mCaptureSession = null;
+                    }
+
+                    Size size = chooseOptimalSize();
+                    mPreview.setBufferSize(size.getWidth(), size.getHeight());
+                    mRecordingTarget = codecSurface != null ? codecSurface : mMediaRecorder.getSurface();
+                    if (mIsScanning && !mRecordingScanFailed) {
+                        prepareScanImageReader(chooseRecordingAnalysisSize());
+                        mRecordingScanReader = true;
+                    }
+                    startRecordingSession();
+                    startRecorder();
+                }
+                mRecordingInSession = inSession;
                 mIsRecording = true;
 
                 // @TODO: implement videoOrientation and deviceOrientation calculation
@@ -604,27 +1033,341 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
                     sound.play(MediaActionSound.START_VIDEO_RECORDING);
                 }
                 return true;
-            } catch (CameraAccessException | IOException e) {
+            } catch (CameraAccessException | IOException | IllegalStateException e) {
                 e.printStackTrace();
+                if (mCodecRecorder != null) {
+                    mCodecRecorder.release();
+                    mCodecRecorder = null;
+                }
+                if (mMediaRecorder != null) {
+                    // it may already be started, reset() stops it and frees the microphone
+                    mMediaRecorder.reset();
+                    mMediaRecorder.release();
+                    mMediaRecorder = null;
+                }
+                mRecordingTarget = null;
+                restoreScanImageReader();
                 return false;
             }
         }
         return false;
     }
 
+    /**
+     * Hands the running pre-roll over to a recording, if the recording has the pre-roll's size.
+     *
+     * @return whether the recording started
+     */
+    private boolean recordPreRoll(String path, int maxDuration, int maxFileSize, boolean recordAudio, CamcorderProfile profile) {
+        CamcorderProfile camProfile = getRecordingProfile(profile);
+        camProfile.videoBitRate = profile.videoBitRate;
+        mRecordingSize = new Size(camProfile.videoFrameWidth, camProfile.videoFrameHeight);
+        if (!canRecordInSession()) {
+            return false;
+        }
+        try {
+            mCodecRecorder.setSegments(mSegmentDuration, mSegmentFileSize);
+            mCodecRecorder.record(path, camProfile, getOutputRotation(), recordAudio, maxDuration, maxFileSize);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to record the pre-roll.", e);
+            return false;
+        }
+        mCodecRecorder.setVideoBitrate(camProfile.videoBitRate);
+        mVideoPath = path;
+        return true;
+    }
+
+    /**
+     * Starts encoding into the pre-roll once a session streaming to the recorder's surface is
+     * configured, or points the new session at the running one.
+     */
+    private void startPreRoll() {
+        if (mPreRollDuration <= 0 || mIsRecording || mCaptureSession == null || !mSessionHasRecorderSurface
+                // started again once the surface is free
+                || mStoppingRecorders.get() > 0) {
+            return;
+        }
+        try {
+            if (mCodecRecorder == null) {
+                CamcorderProfile profile = getHighQualityProfile();
+                CodecRecorder recorder = createCodecRecorder();
+                recorder.startPreRoll(profile, CodecRecorder.chooseVideoMimeType(mVideoMimeType),
+                        mPreRollDuration, mRecorderSurface);
+                mCodecRecorder = recorder;
+            }
+            setRecordingRequest(true);
+        } catch (CameraAccessException | IOException | IllegalStateException e) {
+            Log.e(TAG, "Failed to start the pre-roll.", e);
+            stopPreRoll(false);
+        }
+    }
+
+    private void stopPreRoll() {
+        stopPreRoll(true);
+    }
+
+    /**
+     * @param restart whether to start a new pre-roll once the stopped one frees the surface
+     */
+    private void stopPreRoll(boolean restart) {
+        if (mCodecRecorder == null || mIsRecording) {
+            return;
+        }
+        if (mCaptureSession != null && mSessionHasRecorderSurface) {
+            try {
+                setRecordingRequest(false);
+            } catch (CameraAccessException | IllegalStateException e) {
+                Log.e(TAG, "Failed to restore the preview request.", e);
+            }
+        }
+        stopCodecRecorder(false, restart);
+    }
+
+    /**
+     * Creates the session of a recording that couldn't go through a video-ready session. The
+     * scan surface stays in it while scanning, so detectors keep running, unless the device
+     * already refused that stream combination.
+     */
+    private void startRecordingSession() throws CameraAccessException {
+        Surface surface = getPreviewSurface();
+        mPreviewRequestBuilder = mCamera.createCaptureRequest(CameraDevice.TEMPLATE_RECORD);
+        mPreviewRequestBuilder.addTarget(surface);
+        mPreviewRequestBuilder.addTarget(mRecordingTarget);
+        List<Surface> outputs = new ArrayList<>(Arrays.asList(surface, mRecordingTarget));
+        mSessionHasRecorderSurface = false;
+        mSessionHasRecordingScanSurface = mIsScanning && !mRecordingScanFailed;
+        mSessionHasScanSurface = mSessionHasRecordingScanSurface;
+        if (mSessionHasRecordingScanSurface) {
+            mPreviewRequestBuilder.addTarget(mScanImageReader.getSurface());
+            outputs.add(mScanImageReader.getSurface());
+        }
+        mCamera.createCaptureSession(outputs, mSessionCallback, null);
+    }
+
+    private void startRecorder() {
+        if (mCodecRecorder != null) {
+            mCodecRecorder.start();
+        } else {
+            mMediaRecorder.start();
+        }
+    }
+
+    @Override
+    void setRecordingEngine(int engine) {
+        mRecordingEngine = engine;
+    }
+
+    @Override
+    int getRecordingEngine() {
+        return mRecordingEngine;
+    }
+
+    @Override
+    void setVideoCodec(String mimeType) {
+        mVideoMimeType = mimeType;
+    }
+
+    @Override
+    void setVideoSegments(int segmentDuration, int segmentFileSize) {
+        mSegmentDuration = Math.max(segmentDuration, 0);
+        mSegmentFileSize = Math.max(segmentFileSize, 0);
+    }
+
+    @Override
+    boolean setVideoBitrate(int bitrate) {
+        if (mCodecRecorder == null || !mIsRecording) {
+            return false;
+        }
+        mCodecRecorder.setVideoBitrate(bitrate);
+        return true;
+    }
+
+    @Override
+    boolean requestKeyFrame() {
+        if (mCodecRecorder == null || !mIsRecording) {
+            return false;
+        }
+        mCodecRecorder.requestKeyFrame();
+        return true;
+    }
+
     @Override
     void stopRecording() {
         if (mIsRecording) {
-            stopMediaRecorder();
+            if (mRecordingInSession) {
+                mRecordingInSession = false;
+                try {
+                    setRecordingRequest(false);
+                } catch (CameraAccessException | IllegalStateException e) {
+                    Log.e(TAG, "Failed to restore the preview request.", e);
+                }
+                stopMediaRecorder(false);
+                if (wantsRecorderSurface() && !mScanChangePending) {
+                    startPreRoll();
+                    return;
+                }
+            } else {
+                stopMediaRecorder(true);
+            }
+            mRecordingTarget = null;
+            mSessionHasRecordingScanSurface = false;
+            if (mScanChangePending) {
+                mScanChangePending = false;
+                mRecordingScanReader = false;
+                if (mScanImageReader != null) {
+                    prepareScanImageReader();
+                }
+            } else {
+                restoreScanImageReader();
+            }
 
             if (mCaptureSession != null) {
                 mCaptureSession.close();
                 mCaptureSession = null;
             }
+            if (!wantsRecorderSurface()) {
+                // video-ready may have been turned off while recording
+                releaseRecorderSurface();
+            }
             startCaptureSession();
         }
     }
 
+    @Override
+    void setVideoReady(boolean videoReady) {
+        if (mVideoReady == videoReady) {
+            return;
+        }
+        mVideoReady = videoReady;
+        mRecorderSurfaceFailed = false;
+        if (mIsRecording) {
+            // picked up by the next session
+            return;
+        }
+        if (mCaptureSession != null) {
+            mCaptureSession.close();
+            mCaptureSession = null;
+        }
+        if (!wantsRecorderSurface()) {
+            releaseRecorderSurface();
+        }
+        startCaptureSession();
+    }
+
+    @Override
+    boolean getVideoReady() {
+        return mVideoReady;
+    }
+
+    @Override
+    void setPreRollDuration(int duration) {
+        duration = Math.max(duration, 0);
+        if (mPreRollDuration == duration) {
+            return;
+        }
+        boolean hadRecorderSurface = wantsRecorderSurface();
+        mPreRollDuration = duration;
+        if (mIsRecording) {
+            // picked up once the recording stops
+            return;
+        }
+        stopPreRoll();
+        if (hadRecorderSurface == wantsRecorderSurface()) {
+            startPreRoll();
+            return;
+        }
+        mRecorderSurfaceFailed = false;
+        if (mCaptureSession != null) {
+            mCaptureSession.close();
+            mCaptureSession = null;
+        }
+        if (!wantsRecorderSurface()) {
+            releaseRecorderSurface();
+        }
+        startCaptureSession();
+    }
+
+    @Override
+    int getPreRollDuration() {
+        return mPreRollDuration;
+    }
+
+    /**
+     * @return whether sessions should stream to a persistent recorder surface, for video-ready
+     * or for the pre-roll
+     */
+    private boolean wantsRecorderSurface() {
+        return mVideoReady || mPreRollDuration > 0;
+    }
+
+    private boolean canRecordInSession() {
+        return mCaptureSession != null && mSessionHasRecorderSurface && mRecorderSurface != null
+                && mRecorderSurfaceSize.equals(mRecordingSize) && mStoppingRecorders.get() == 0;
+    }
+
+    /**
+     * Points the repeating request of a video-ready session at the recorder's surface, or back
+     * at the preview outputs only.
+     */
+    private void setRecordingRequest(boolean recording) throws CameraAccessException {
+        mPreviewRequestBuilder = mCamera.createCaptureRequest(
+                recording ? CameraDevice.TEMPLATE_RECORD : CameraDevice.TEMPLATE_PREVIEW);
+        mPreviewRequestBuilder.addTarget(getPreviewSurface());
+        if (mIsScanning && mSessionHasScanSurface) {
+            mPreviewRequestBuilder.addTarget(mScanImageReader.getSurface());
+        }
+        if (recording) {
+            mPreviewRequestBuilder.addTarget(mRecorderSurface);
+        }
+        updatePreviewRequest();
+        mCaptureSession.setRepeatingRequest(mPreviewRequestBuilder.build(), mCaptureCallback, null);
+    }
+
+    /**
+     * @return the surface video-ready and pre-roll sessions stream to, creating it on first use,
+     * or null when both are off or it is unsupported
+     */
+    private Surface getRecorderSurface() {
+        if (!wantsRecorderSurface() || mRecorderSurfaceFailed) {
+            return null;
+        }
+        if (mRecorderSurface == null) {
+            CamcorderProfile profile = getHighQualityProfile();
+            mRecorderSurface = createRecorderSurface(profile);
+            if (mRecorderSurface == null) {
+                mRecorderSurfaceFailed = true;
+                return null;
+            }
+            mRecorderSurfaceSize = new Size(profile.videoFrameWidth, profile.videoFrameHeight);
+        }
+        return mRecorderSurface;
+    }
+
+    private void releaseRecorderSurface() {
+        if (mRecorderSurface != null) {
+            mRecorderSurface.release();
+            mRecorderSurface = null;
+            mRecorderSurfaceSize = null;
+        }
+    }
+
+    /**
+     * Creates an encoder input surface that outlives recorders, sized for {@code profile}.
+     * Persistent input surfaces need API 23, see {@link Camera2Api23}.
+     *
+     * @return the surface, or null if it isn't supported
+     */
+    protected Surface createRecorderSurface(CamcorderProfile profile) {
+        return null;
+    }
+
+    /**
+     * Makes {@code recorder} encode from the surface returned by {@link #createRecorderSurface}.
+     */
+    protected void attachRecorderSurface(MediaRecorder recorder, Surface surface) {
+        throw new IllegalStateException("Persistent recorder surfaces are not supported");
+    }
+
     @Override
     void pauseRecording() {
         pauseMediaRecorder();
@@ -735,6 +1478,10 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
         } else {
             mImageFormat = ImageFormat.YUV_420_888;
         }
+        if (mIsRecording) {
+            updateRecordingScanning();
+            return;
+        }
         if (mCaptureSession != null) {
             mCaptureSession.close();
             mCaptureSession = null;
@@ -742,11 +1489,50 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
         startCaptureSession();
     }
 
+    /**
+     * Adds or removes the scan stream of a running recording without losing its target. A
+     * video-ready session only changes its request, or waits for the recording to stop when it
+     * has no scan surface; a rebuilt recording session is rebuilt with the recording's target.
+     */
+    private void updateRecordingScanning() {
+        if (mCaptureSession == null) {
+            return;
+        }
+        if (mRecordingInSession) {
+            if (mIsScanning && !mSessionHasScanSurface) {
+                mScanChangePending = true;
+                return;
+            }
+            try {
+                setRecordingRequest(true);
+            } catch (CameraAccessException | IllegalStateException e) {
+                Log.e(TAG, "Failed to update the recording request.", e);
+            }
+            return;
+        }
+        mCaptureSession.close();
+        mCaptureSession = null;
+        if (mIsScanning && !mRecordingScanFailed && !mRecordingScanReader) {
+            prepareScanImageReader(chooseRecordingAnalysisSize());
+            mRecordingScanReader = true;
+        }
+        try {
+            startRecordingSession();
+        } catch (CameraAccessException | IllegalStateException e) {
+            Log.e(TAG, "Failed to restart the recording session.", e);
+        }
+    }
+
     @Override
     boolean getScanning() {
         return mIsScanning;
     }
 
+    @Override
+    void releasePreviewBuffer(byte[] data) {
+        mScanBuffers.release(data);
+    }
+
     @Override
     int getCameraOrientation() {
         return mCameraOrientation;
@@ -895,6 +1681,10 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
         }
         mPictureSizes.clear();
         collectPictureSizes(mPictureSizes, map);
+        mAnalysisSizes.clear();
+        for (android.util.Size size : map.getOutputSizes(ImageFormat.YUV_420_888)) {
+            mAnalysisSizes.add(new Size(size.getWidth(), size.getHeight()));
+        }
         if (mPictureSize == null) {
             mPictureSize = mPictureSizes.sizes(mAspectRatio).last();
         }
@@ -918,24 +1708,124 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
     }
 
     private void prepareStillImageReader() {
+        prepareStillImageReader(mPictureSize);
+    }
+
+    private void prepareStillImageReader(Size size) {
         if (mStillImageReader != null) {
             mStillImageReader.close();
         }
-        mStillImageReader = ImageReader.newInstance(mPictureSize.getWidth(), mPictureSize.getHeight(),
-                ImageFormat.JPEG, 1);
+        mStillImageReader = ImageReader.newInstance(size.getWidth(), size.getHeight(),
+                ImageFormat.JPEG, BURST_IN_FLIGHT);
         mStillImageReader.setOnImageAvailableListener(mOnImageAvailableListener, null);
+        mStillCaptureSize = size;
+    }
+
+    /**
+     * Lets the JPEG encoder scale pictures down when options.width asks for a smaller picture.
+     * The width may end up along either side of the picture depending on its orientation, so
+     * both sides have to cover it.
+     *
+     * @return The smallest JPEG size of the picture size's aspect ratio with both sides at
+     * least options.width, or {@link #mPictureSize} if there is no width or no such size.
+     */
+    private Size chooseStillCaptureSize(ReadableMap options) {
+        if (!options.hasKey("width")) {
+            return mPictureSize;
+        }
+        int width = options.getInt("width");
+        AspectRatio ratio = AspectRatio.of(mPictureSize.getWidth(), mPictureSize.getHeight());
+        SortedSet<Size> sizes = mPictureSizes.sizes(ratio);
+        if (sizes == null) {
+            return mPictureSize;
+        }
+        for (Size size : sizes) {
+            if (size.getWidth() > mPictureSize.getWidth() || size.getHeight() > mPictureSize.getHeight()) {
+                break;
+            }
+            if (Math.min(size.getWidth(), size.getHeight()) >= width) {
+                return size;
+            }
+        }
+        return mPictureSize;
     }
 
     private void prepareScanImageReader() {
+        prepareScanImageReader(chooseAnalysisSize());
+    }
+
+    private void prepareScanImageReader(Size size) {
         if (mScanImageReader != null) {
             mScanImageReader.close();
         }
-        Size largest = mPreviewSizes.sizes(mAspectRatio).last();
-        mScanImageReader = ImageReader.newInstance(largest.getWidth(), largest.getHeight(),
+        mScanImageReader = ImageReader.newInstance(size.getWidth(), size.getHeight(),
                 ImageFormat.YUV_420_888, 1);
+        mScanBuffers.reset(YuvFrameAssembler.getBufferSize(size.getWidth(), size.getHeight()));
         mScanImageReader.setOnImageAvailableListener(mOnImageAvailableListener, null);
     }
 
+    /**
+     * Chooses the size of the frames handed to the detectors. The scan surface is a separate
+     * output, so it doesn't have to match the preview.
+     *
+     * @return The smallest YUV size of the current aspect ratio covering {@link #mAnalysisSize},
+     * or the largest preview size if no analysis size is set or none fits.
+     */
+    private Size chooseAnalysisSize() {
+        Size largest = mPreviewSizes.sizes(mAspectRatio).last();
+        if (mAnalysisSize == null || !mAnalysisSizes.ratios().contains(mAspectRatio)) {
+            return largest;
+        }
+        int targetLonger = Math.max(mAnalysisSize.getWidth(), mAnalysisSize.getHeight());
+        int targetShorter = Math.min(mAnalysisSize.getWidth(), mAnalysisSize.getHeight());
+        for (Size size : mAnalysisSizes.sizes(mAspectRatio)) {
+            if (size.getWidth() > largest.getWidth() || size.getHeight() > largest.getHeight()) {
+                break;
+            }
+            if (Math.max(size.getWidth(), size.getHeight()) >= targetLonger
+                    && Math.min(size.getWidth(), size.getHeight()) >= targetShorter) {
+                return size;
+            }
+        }
+        return largest;
+    }
+
+    /**
+     * Chooses the size of the frames handed to the detectors while recording, small enough
+     * for devices to stream it next to the encoder.
+     *
+     * @return The analysis size if it fits in {@link #RECORDING_SCAN_MAX_SIDE}, else the largest
+     * YUV size of the current aspect ratio that does, or the smallest one if none does.
+     */
+    private Size chooseRecordingAnalysisSize() {
+        Size analysisSize = chooseAnalysisSize();
+        if (Math.max(analysisSize.getWidth(), analysisSize.getHeight()) <= RECORDING_SCAN_MAX_SIDE) {
+            return analysisSize;
+        }
+        SizeMap sizes = mAnalysisSizes.ratios().contains(mAspectRatio) ? mAnalysisSizes : mPreviewSizes;
+        SortedSet<Size> candidates = sizes.sizes(mAspectRatio);
+        Size chosen = candidates.first();
+        for (Size size : candidates) {
+            if (Math.max(size.getWidth(), size.getHeight()) > RECORDING_SCAN_MAX_SIDE) {
+                break;
+            }
+            chosen = size;
+        }
+        return chosen;
+    }
+
+    /**
+     * Brings back the full-size scan reader after a recording shrunk it.
+     */
+    private void restoreScanImageReader() {
+        if (mRecordingScanReader) {
+            mRecordingScanReader = false;
+            if (mScanImageReader != null) {
+                prepareScanImageReader();
+            }
+        }
+    }
+
     /**
      * <p>Starts opening a camera device.</p>
      * <p>The result will be processed in {@link #mCameraDeviceCallback}.</p>
@@ -960,6 +1850,7 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
         Size previewSize = chooseOptimalSize();
         mPreview.setBufferSize(previewSize.getWidth(), previewSize.getHeight());
         Surface surface = getPreviewSurface();
+        Surface recorderSurface = getRecorderSurface();
         try {
             mPreviewRequestBuilder = mCamera.createCaptureRequest(CameraDevice.TEMPLATE_PREVIEW);
             mPreviewRequestBuilder.addTarget(surface);
@@ -967,8 +1858,20 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
             if (mIsScanning) {
                 mPreviewRequestBuilder.addTarget(mScanImageReader.getSurface());
             }
-            mCamera.createCaptureSession(Arrays.asList(surface, mStillImageReader.getSurface(),
-                    mScanImageReader.getSurface()), mSessionCallback, null);
+            List<Surface> outputs = new ArrayList<>(Arrays.asList(surface, mStillImageReader.getSurface()));
+            if (recorderSurface != null) {
+                // keep to the stream combinations devices guarantee, setScanning rebuilds the
+                // session anyway
+                if (mIsScanning) {
+                    outputs.add(mScanImageReader.getSurface());
+                }
+                outputs.add(recorderSurface);
+            } else {
+                outputs.add(mScanImageReader.getSurface());
+            }
+            mSessionHasRecorderSurface = recorderSurface != null;
+            mSessionHasScanSurface = recorderSurface == null || mIsScanning;
+            mCamera.createCaptureSession(outputs, mSessionCallback, null);
         } catch (CameraAccessException e) {
             Log.e(TAG, "Failed to start capture session", e);
             mCallback.onMountError();
@@ -1052,6 +1955,18 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
         return candidates.last();
     }
 
+    /**
+     * Applies the current focus, flash, white balance and zoom settings to
+     * {@link #mPreviewRequestBuilder}.
+     */
+    private void updatePreviewRequest() {
+        updateAutoFocus();
+        updateFlash();
+        updateFocusDepth();
+        updateWhiteBalance();
+        updateZoom();
+    }
+
     /**
      * Updates the internal state of auto-focus to {@link #mAutoFocus}.
      */
@@ -1384,6 +2299,58 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
                 orientationDegrees == Constants.LANDSCAPE_270);
     }
 
+    private void setUpCodecRecorder(String path, int maxDuration, int maxFileSize, boolean recordAudio, CamcorderProfile profile) throws IOException {
+        CamcorderProfile camProfile = getRecordingProfile(profile);
+        camProfile.videoBitRate = profile.videoBitRate;
+        mRecordingSize = new Size(camProfile.videoFrameWidth, camProfile.videoFrameHeight);
+        mVideoPath = path;
+
+        mCodecRecorder = createCodecRecorder();
+        mCodecRecorder.prepare(path, camProfile, CodecRecorder.chooseVideoMimeType(mVideoMimeType),
+                getOutputRotation(), recordAudio, maxDuration, maxFileSize);
+        mCodecRecorder.setSegments(mSegmentDuration, mSegmentFileSize);
+    }
+
+    private CodecRecorder createCodecRecorder() {
+        // audio has to be stamped with the clock the camera stamps frames with
+        Integer timestampSource = mCameraCharacteristics.get(CameraCharacteristics.SENSOR_INFO_TIMESTAMP_SOURCE);
+        boolean realtime = timestampSource != null
+                && timestampSource == CameraMetadata.SENSOR_INFO_TIMESTAMP_SOURCE_REALTIME;
+        // its events stop the recording, same as the MediaRecorder ones on the main looper
+        return new CodecRecorder(realtime, new Handler(Looper.getMainLooper()), mCodecRecorderListener);
+    }
+
+    /**
+     * Stops {@link #mCodecRecorder} without waiting for it to finish the file. A recording's
+     * last file is reported through {@link Callback#onVideoRecorded} once it is written, and as
+     * a segment when the recording was split.
+     *
+     * @param recording whether the recorder was recording, rather than keeping a pre-roll
+     * @param restartPreRoll whether to start the pre-roll again once the surface is free
+     */
+    private void stopCodecRecorder(final boolean recording, final boolean restartPreRoll) {
+        final CodecRecorder recorder = mCodecRecorder;
+        mCodecRecorder = null;
+        mStoppingRecorders.incrementAndGet();
+        recorder.stop(new CodecRecorder.StopCallback() {
+            @Override
+            public void onStopped(boolean written) {
+                mStoppingRecorders.decrementAndGet();
+                if (recording) {
+                    String path = recorder.getPath();
+                    if (written && recorder.isSegmented()) {
+                        mCallback.onRecordingSegment(path, recorder.getSegmentIndex());
+                    }
+                    // @TODO: implement videoOrientation and deviceOrientation calculation
+                    mCallback.onVideoRecorded(written && new File(path).exists() ? path : null, 0, 0);
+                }
+                if (restartPreRoll) {
+                    startPreRoll();
+                }
+            }
+        });
+    }
+
     private void setUpMediaRecorder(String path, int maxDuration, int maxFileSize, boolean recordAudio, CamcorderProfile profile) {
         mMediaRecorder = new MediaRecorder();
 
@@ -1395,11 +2362,9 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
         mMediaRecorder.setOutputFile(path);
         mVideoPath = path;
 
-        CamcorderProfile camProfile = profile;
-        if (!CamcorderProfile.hasProfile(Integer.parseInt(mCameraId), profile.quality)) {
-            camProfile = CamcorderProfile.get(CamcorderProfile.QUALITY_HIGH);
-        }
+        CamcorderProfile camProfile = getRecordingProfile(profile);
         camProfile.videoBitRate = profile.videoBitRate;
+        mRecordingSize = new Size(camProfile.videoFrameWidth, camProfile.videoFrameHeight);
         setCamcorderProfile(camProfile, recordAudio);
 
         mMediaRecorder.setOrientationHint(getOutputRotation());
@@ -1415,6 +2380,21 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
         mMediaRecorder.setOnErrorListener(this);
     }
 
+    private CamcorderProfile getRecordingProfile(CamcorderProfile profile) {
+        if (!CamcorderProfile.hasProfile(Integer.parseInt(mCameraId), profile.quality)) {
+            return getHighQualityProfile();
+        }
+        return profile;
+    }
+
+    /**
+     * @return the highest quality profile of the current camera, the one-argument
+     * {@link CamcorderProfile#get(int)} only describes the first back camera
+     */
+    private CamcorderProfile getHighQualityProfile() {
+        return CamcorderProfile.get(Integer.parseInt(mCameraId), CamcorderProfile.QUALITY_HIGH);
+    }
+
     private void setCamcorderProfile(CamcorderProfile profile, boolean recordAudio) {
         mMediaRecorder.setOutputFormat(profile.fileFormat);
         mMediaRecorder.setVideoFrameRate(profile.videoFrameRate);
@@ -1429,24 +2409,40 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
         }
     }
 
-    private void stopMediaRecorder() {
+    /**
+     * @param stopCaptures whether to stop the session feeding the recorder first, a video-ready
+     * session has already been pointed away from it and keeps the preview running
+     */
+    private void stopMediaRecorder(boolean stopCaptures) {
         mIsRecording = false;
         try {
-            mCaptureSession.stopRepeating();
-            mCaptureSession.abortCaptures();
-            mMediaRecorder.stop();
+            if (stopCaptures) {
+                mCaptureSession.stopRepeating();
+                mCaptureSession.abortCaptures();
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
-        mMediaRecorder.reset();
-        mMediaRecorder.release();
-        mMediaRecorder = null;
 
         mCallback.onRecordingEnd();
         if (mPlaySoundOnRecord) {
             sound.play(MediaActionSound.STOP_VIDEO_RECORDING);
         }
 
+        if (mCodecRecorder != null) {
+            // the encoders drain on their own thread, the file is reported once it is written
+            stopCodecRecorder(true, true);
+            return;
+        }
+        try {
+            mMediaRecorder.stop();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        mMediaRecorder.reset();
+        mMediaRecorder.release();
+        mMediaRecorder = null;
+
         if (mVideoPath == null || !new File(mVideoPath).exists()) {
             // @TODO: implement videoOrientation and deviceOrientation calculation
             mCallback.onVideoRecorded(null, 0 , 0);
@@ -1458,13 +2454,17 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
     }
 
     private void pauseMediaRecorder() {
-        if (Build.VERSION.SDK_INT >= 24) {
+        if (mCodecRecorder != null) {
+            mCodecRecorder.pause();
+        } else if (Build.VERSION.SDK_INT >= 24) {
             mMediaRecorder.pause();
         }
     }
 
     private void resumeMediaRecorder() {
-        if (Build.VERSION.SDK_INT >= 24) {
+        if (mCodecRecorder != null) {
+            mCodecRecorder.resume();
+        } else if (Build.VERSION.SDK_INT >= 24) {
             mMediaRecorder.resume();
         }
     }
@@ -20,14 +20,27 @@ import android.annotation.TargetApi;
 import android.content.Context;
 import android.graphics.ImageFormat;
 import android.hardware.camera2.params.StreamConfigurationMap;
+import android.media.CamcorderProfile;
+import android.media.MediaCodec;
+import android.media.MediaRecorder;
 import android.os.Handler;
+import android.util.Log;
+import android.view.Surface;
+
+import java.io.File;
+import java.io.IOException;
 
 
 @TargetApi(23)
 class Camera2Api23 extends Camera2 {
 
+    private static final String TAG = "Camera2Api23";
+
+    private final File mCacheDir;
+
     Camera2Api23(Callback callback, PreviewImpl preview, Context context, Handler bgHandler) {
         super(callback, preview, context, bgHandler);
+        mCacheDir = context.getCacheDir();
     }
 
     @Override
@@ -44,4 +57,40 @@ class Camera2Api23 extends Camera2 {
         }
     }
 
+    @Override
+    protected Surface createRecorderSurface(CamcorderProfile profile) {
+        Surface surface = MediaCodec.createPersistentInputSurface();
+        // A persistent surface only gets its buffer size from the first encoder configured on
+        // it, so a throwaway recorder is prepared on it before the camera session sees it.
+        MediaRecorder recorder = new MediaRecorder();
+        File file = null;
+        try {
+            file = File.createTempFile("video-ready", ".mp4", mCacheDir);
+            recorder.setVideoSource(MediaRecorder.VideoSource.SURFACE);
+            recorder.setOutputFormat(profile.fileFormat);
+            recorder.setVideoFrameRate(profile.videoFrameRate);
+            recorder.setVideoSize(profile.videoFrameWidth, profile.videoFrameHeight);
+            recorder.setVideoEncodingBitRate(profile.videoBitRate);
+            recorder.setVideoEncoder(profile.videoCodec);
+            recorder.setInputSurface(surface);
+            recorder.setOutputFile(file.getAbsolutePath());
+            recorder.prepare();
+            return surface;
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Failed to set up the persistent recorder surface", e);
+            surface.release();
+            return null;
+        } finally {
+            recorder.release();
+            if (file != null) {
+                file.delete();
+            }
+        }
+    }
+
+    @Override
+    protected void attachRecorderSurface(MediaRecorder recorder, Surface surface) {
+        recorder.setInputSurface(surface);
+    }
+
 }
@@ -259,7 +259,11 @@ public class CameraView extends FrameLayout {
         state.playSoundOnCapture = getPlaySoundOnCapture();
         state.playSoundOnRecord = getPlaySoundOnRecord();
         state.scanning = getScanning();
+        state.videoReady = getVideoReady();
+        state.preRollDuration = getPreRollDuration();
+        state.recordingEngine = getRecordingEngine();
         state.pictureSize = getPictureSize();
+        state.analysisSize = getAnalysisSize();
         return state;
     }
 
@@ -283,7 +287,11 @@ public class CameraView extends FrameLayout {
         setPlaySoundOnCapture(ss.playSoundOnCapture);
         setPlaySoundOnRecord(ss.playSoundOnRecord);
         setScanning(ss.scanning);
+        setVideoReady(ss.videoReady);
+        setPreRollDuration(ss.preRollDuration);
+        setRecordingEngine(ss.recordingEngine);
         setPictureSize(ss.pictureSize);
+        setAnalysisSize(ss.analysisSize);
     }
 
     public void setUsingCamera2Api(boolean useCamera2) {
@@ -503,6 +511,25 @@ public class CameraView extends FrameLayout {
         return mImpl.getPictureSize();
     }
 
+    /**
+     * Sets the size of the frames delivered to {@link Callback#onFramePreview} while scanning.
+     * The camera picks the closest supported size that is at least as large; cameras that
+     * can't stream a separate size keep delivering frames at preview size.
+     *
+     * @param size The requested analysis size, or {@code null} to use the preview size.
+     */
+    public void setAnalysisSize(@Nullable Size size) {
+        mImpl.setAnalysisSize(size);
+    }
+
+    /**
+     * @return The requested analysis size, or {@code null} if frames come at preview size.
+     */
+    @Nullable
+    public Size getAnalysisSize() {
+        return mImpl.getAnalysisSize();
+    }
+
     /**
      * Enables or disables the continuous auto-focus mode. When the current camera doesn't support
      * auto-focus, calling this method will be ignored.
@@ -566,6 +593,24 @@ public class CameraView extends FrameLayout {
         return mImpl.getCameraOrientation();
     }
 
+    /**
+     * Gets the orientation the device is held in, for pictures that don't come from a capture.
+     *
+     * @return One of the {@code Constants.ORIENTATION_} values, up if it isn't known yet.
+     */
+    public int getDeviceOrientation() {
+        switch (mDisplayOrientationDetector.getLastKnownDeviceOrientation()) {
+            case 90:
+                return Constants.ORIENTATION_RIGHT;
+            case 180:
+                return Constants.ORIENTATION_DOWN;
+            case 270:
+                return Constants.ORIENTATION_LEFT;
+            default:
+                return Constants.ORIENTATION_UP;
+        }
+    }
+
     /**
      * Sets the auto focus point.
      *
@@ -618,6 +663,79 @@ public class CameraView extends FrameLayout {
 
     public boolean getScanning() { return mImpl.getScanning(); }
 
+    /**
+     * Keeps the recording pipeline set up next to the preview (Camera2 on API 23+), so
+     * {@link #record} and {@link #stopRecording()} don't rebuild the capture session. Recordings
+     * only take the fast path at the highest quality profile, the one the pipeline is sized for.
+     */
+    public void setVideoReady(boolean videoReady) {
+        mImpl.setVideoReady(videoReady);
+    }
+
+    public boolean getVideoReady() {
+        return mImpl.getVideoReady();
+    }
+
+    /**
+     * Keeps the last {@code duration} ms of video encoded in memory while the preview runs, so
+     * a recording starts with what happened before {@link #record} was called. Camera2 on API
+     * 23+ only, recordings only start with the pre-roll at the highest quality profile.
+     *
+     * The encoder runs at that profile for as long as the preview is up, recording or not, which
+     * costs power and heat like a recording does. Long pre-rolls at high bitrates are encoded at
+     * a lower bitrate so they fit in memory, the recording itself gets the profile's back.
+     *
+     * @param duration in ms, 0 to turn the pre-roll off
+     */
+    public void setPreRollDuration(int duration) {
+        mImpl.setPreRollDuration(duration);
+    }
+
+    public int getPreRollDuration() {
+        return mImpl.getPreRollDuration();
+    }
+
+    /**
+     * Selects what records video: {@link Constants#RECORDING_ENGINE_MEDIA_RECORDER} or, on
+     * Camera2, {@link Constants#RECORDING_ENGINE_MEDIA_CODEC}, which allows changing the bitrate
+     * and requesting keyframes while recording and can encode HEVC.
+     */
+    public void setRecordingEngine(int engine) {
+        mImpl.setRecordingEngine(engine);
+    }
+
+    public int getRecordingEngine() {
+        return mImpl.getRecordingEngine();
+    }
+
+    public void setVideoCodec(String mimeType) {
+        mImpl.setVideoCodec(mimeType);
+    }
+
+    /**
+     * Makes the next recordings roll over to a new file every {@code segmentDuration} ms or
+     * {@code segmentFileSize} bytes, each closed file is reported through
+     * {@link Callback#onRecordingSegment(CameraView, String, int)}. Camera2 only, it records
+     * segmented videos with the MediaCodec engine.
+     */
+    public void setVideoSegments(int segmentDuration, int segmentFileSize) {
+        mImpl.setVideoSegments(segmentDuration, segmentFileSize);
+    }
+
+    public boolean setVideoBitrate(int bitrate) {
+        return mImpl.setVideoBitrate(bitrate);
+    }
+
+    public boolean requestKeyFrame() {
+        return mImpl.requestKeyFrame();
+    }
+
+    /**
+     * Hands a buffer received through {@link Callback#onFramePreview} back to the camera
+     * so it can be reused for a later frame.
+     */
+    public void releasePreviewBuffer(byte[] data) { mImpl.releasePreviewBuffer(data); }
+
     /**
      * Take a picture. The result will be returned to
      * {@link Callback#onPictureTaken(CameraView, byte[], int)}.
@@ -626,6 +744,18 @@ public class CameraView extends FrameLayout {
         mImpl.takePicture(options);
     }
 
+    /**
+     * Take a burst of pictures. Every picture will be returned to
+     * {@link Callback#onBurstPictureTaken(CameraView, byte[], int, int)}, the end of the burst to
+     * {@link Callback#onBurstEnd(CameraView, int)}.
+     *
+     * @param count      Number of pictures to take.
+     * @param intervalMs Minimum time between two pictures, 0 to go as fast as the camera can.
+     */
+    public void takeBurst(ReadableMap options, int count, int intervalMs) {
+        mImpl.takeBurst(options, count, intervalMs);
+    }
+
     /**
      * Record a video and save it to file. The result will be returned to
      * {@link Callback#onVideoRecorded(CameraView, String, int, int)}.
@@ -711,6 +841,30 @@ public class CameraView extends FrameLayout {
             }
         }
 
+        @Override
+        public void onBurstPictureTaken(byte[] data, int deviceOrientation, int index) {
+            for (Callback callback : mCallbacks) {
+                callback.onBurstPictureTaken(CameraView.this, data, deviceOrientation, index);
+            }
+        }
+
+        @Override
+        public boolean wantsBurstPicture() {
+            for (Callback callback : mCallbacks) {
+                if (!callback.wantsBurstPicture(CameraView.this)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void onBurstEnd(int count) {
+            for (Callback callback : mCallbacks) {
+                callback.onBurstEnd(CameraView.this, count);
+            }
+        }
+
         @Override
         public void onRecordingStart(String path, int videoOrientation, int deviceOrientation) {
             for (Callback callback : mCallbacks) {
@@ -725,6 +879,13 @@ public class CameraView extends FrameLayout {
             }
         }
 
+        @Override
+        public void onRecordingSegment(String path, int index) {
+            for (Callback callback : mCallbacks) {
+                callback.onRecordingSegment(CameraView.this, path, index);
+            }
+        }
+
         @Override
         public void onVideoRecorded(String path, int videoOrientation, int deviceOrientation) {
             for (Callback callback : mCallbacks) {
@@ -732,6 +893,16 @@ public class CameraView extends FrameLayout {
             }
         }
 
+        @Override
+        public boolean wantsFramePreview() {
+            for (Callback callback : mCallbacks) {
+                if (callback.wantsFramePreview(CameraView.this)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
         @Override
         public void onFramePreview(byte[] data, int width, int height, int orientation) {
             for (Callback callback : mCallbacks) {
@@ -779,8 +950,16 @@ public class CameraView extends FrameLayout {
 
         boolean scanning;
 
+        boolean videoReady;
+
+        int preRollDuration;
+
+        int recordingEngine;
+
         Size pictureSize;
 
+        Size analysisSize;
+
         @SuppressWarnings("WrongConstant")
         public SavedState(Parcel source, ClassLoader loader) {
             super(source);
@@ -796,7 +975,11 @@ public class CameraView extends FrameLayout {
             playSoundOnCapture = source.readByte() != 0;
             playSoundOnRecord = source.readByte() != 0;
             scanning = source.readByte() != 0;
+            videoReady = source.readByte() != 0;
+            preRollDuration = source.readInt();
+            recordingEngine = source.readInt();
             pictureSize = source.readParcelable(loader);
+            analysisSize = source.readParcelable(loader);
         }
 
         public SavedState(Parcelable superState) {
@@ -818,7 +1001,11 @@ public class CameraView extends FrameLayout {
             out.writeByte((byte) (playSoundOnCapture ? 1 : 0));
             out.writeByte((byte) (playSoundOnRecord ? 1 : 0));
             out.writeByte((byte) (scanning ? 1 : 0));
+            out.writeByte((byte) (videoReady ? 1 : 0));
+            out.writeInt(preRollDuration);
+            out.writeInt(recordingEngine);
             out.writeParcelable(pictureSize, flags);
+            out.writeParcelable(analysisSize, flags);
         }
 
         public static final Creator<SavedState> CREATOR
@@ -866,6 +1053,33 @@ public class CameraView extends FrameLayout {
          */
         public void onPictureTaken(CameraView cameraView, byte[] data, int deviceOrientation) {}
 
+        /**
+         * Called for every picture of a burst.
+         *
+         * @param cameraView The associated {@link CameraView}.
+         * @param data       JPEG data.
+         * @param index      Position of the picture in the burst, starting at 0.
+         */
+        public void onBurstPictureTaken(CameraView cameraView, byte[] data, int deviceOrientation, int index) {}
+
+        /**
+         * Called before every shot of a burst. Returning {@code false} from any callback delays
+         * the shot until they all return {@code true}, e.g. while earlier pictures are saved.
+         *
+         * @param cameraView The associated {@link CameraView}.
+         */
+        public boolean wantsBurstPicture(CameraView cameraView) {
+            return true;
+        }
+
+        /**
+         * Called once a burst is over.
+         *
+         * @param cameraView The associated {@link CameraView}.
+         * @param count      Number of pictures actually taken.
+         */
+        public void onBurstEnd(CameraView cameraView, int count) {}
+
         /**
          * Called when a video recording starts
          *
@@ -882,6 +1096,15 @@ public class CameraView extends FrameLayout {
          */
         public void onRecordingEnd(CameraView cameraView){}
 
+        /**
+         * Called when a segment of a segmented recording is closed, including the last one.
+         *
+         * @param cameraView The associated {@link CameraView}.
+         * @param path       Path to the finished segment.
+         * @param index      Index of the segment, starting at 0.
+         */
+        public void onRecordingSegment(CameraView cameraView, String path, int index) {}
+
         /**
          * Called when a video is recorded.
          *
@@ -890,6 +1113,23 @@ public class CameraView extends FrameLayout {
          */
         public void onVideoRecorded(CameraView cameraView, String path, int videoOrientation, int deviceOrientation) {}
 
+        /**
+         * Called before every preview frame while scanning. Returning {@code false} from every
+         * callback drops the frame before it is copied, {@link #onFramePreview} is not called.
+         *
+         * @param cameraView The associated {@link CameraView}.
+         */
+        public boolean wantsFramePreview(CameraView cameraView) {
+            return true;
+        }
+
+        /**
+         * Called for every preview frame while scanning.
+         *
+         * @param cameraView The associated {@link CameraView}.
+         * @param data       Frame data, pass it to {@link CameraView#releasePreviewBuffer(byte[])}
+         *                   once done with it.
+         */
         public void onFramePreview(CameraView cameraView, byte[] data, int width, int height, int orientation) {}
 
         public void onMountError(CameraView cameraView) {}
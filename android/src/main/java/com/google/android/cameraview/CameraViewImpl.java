@@ -79,6 +79,14 @@ abstract class CameraViewImpl {
 
     abstract Size getPictureSize();
 
+    /**
+     * Sets the size frames handed to {@link Callback#onFramePreview} should be close to,
+     * independently of the preview and picture sizes. {@code null} uses the preview size.
+     */
+    abstract void setAnalysisSize(Size size);
+
+    abstract Size getAnalysisSize();
+
     /**
      * @return {@code true} if the aspect ratio was changed.
      */
@@ -100,6 +108,15 @@ abstract class CameraViewImpl {
 
     abstract void takePicture(ReadableMap options);
 
+    /**
+     * Takes {@code count} pictures in a row without pausing the preview in between. Every
+     * picture goes to {@link Callback#onBurstPictureTaken}, followed by a single
+     * {@link Callback#onBurstEnd} once the burst is over, also when it stopped early.
+     *
+     * @param intervalMs Minimum time between two shots, 0 to go as fast as the camera can.
+     */
+    abstract void takeBurst(ReadableMap options, int count, int intervalMs);
+
     abstract boolean record(String path, int maxDuration, int maxFileSize,
                             boolean recordAudio, CamcorderProfile profile, int orientation, int fps);
 
@@ -143,6 +160,62 @@ abstract class CameraViewImpl {
 
     abstract boolean getScanning();
 
+    /**
+     * Keeps the camera ready to record, so starting and stopping a recording doesn't have to
+     * reconfigure it. Only has an effect where the implementation supports it.
+     */
+    abstract void setVideoReady(boolean videoReady);
+
+    abstract boolean getVideoReady();
+
+    /**
+     * Keeps encoding the preview and holds on to the last {@code duration} ms, which recordings
+     * then start with. Only has an effect where the implementation supports it.
+     *
+     * @param duration in ms, 0 to turn the pre-roll off
+     */
+    abstract void setPreRollDuration(int duration);
+
+    abstract int getPreRollDuration();
+
+    /**
+     * @param engine one of the RECORDING_ENGINE_ {@link Constants}, implementations that only
+     * support MediaRecorder ignore it
+     */
+    abstract void setRecordingEngine(int engine);
+
+    abstract int getRecordingEngine();
+
+    /**
+     * @param mimeType video encoding the MediaCodec engine should use if it is available, null
+     * for H.264
+     */
+    abstract void setVideoCodec(String mimeType);
+
+    /**
+     * Splits the next recordings into several files, MediaCodec engine only.
+     *
+     * @param segmentDuration in ms, 0 or less for no limit
+     * @param segmentFileSize in bytes, 0 or less for no limit
+     */
+    abstract void setVideoSegments(int segmentDuration, int segmentFileSize);
+
+    /**
+     * Changes the bitrate of the running recording, MediaCodec engine only.
+     *
+     * @return whether the bitrate could be changed
+     */
+    abstract boolean setVideoBitrate(int bitrate);
+
+    /**
+     * Makes the next frame of the running recording a keyframe, MediaCodec engine only.
+     *
+     * @return whether a keyframe could be requested
+     */
+    abstract boolean requestKeyFrame();
+
+    abstract void releasePreviewBuffer(byte[] data);
+
     abstract public void resumePreview();
 
     abstract public void pausePreview();
@@ -159,12 +232,28 @@ abstract class CameraViewImpl {
 
         void onPictureTaken(byte[] data, int deviceOrientation);
 
+        void onBurstPictureTaken(byte[] data, int deviceOrientation, int index);
+
+        /**
+         * Asked before each shot of a burst, the shot is held back while this returns false.
+         */
+        boolean wantsBurstPicture();
+
+        void onBurstEnd(int count);
+
         void onVideoRecorded(String path, int videoOrientation, int deviceOrientation);
 
         void onRecordingStart(String path, int videoOrientation, int deviceOrientation);
 
         void onRecordingEnd();
 
+        void onRecordingSegment(String path, int index);
+
+        /**
+         * Asked before a frame is copied or handed out, so unwanted frames cost nothing.
+         */
+        boolean wantsFramePreview();
+
         void onFramePreview(byte[] data, int width, int height, int orientation);
 
         void onMountError();
@@ -0,0 +1,963 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.cameraview;
+
+import android.annotation.TargetApi;
+import android.media.AudioFormat;
+import android.media.AudioRecord;
+import android.media.CamcorderProfile;
+import android.media.MediaCodec;
+import android.media.MediaCodecInfo;
+import android.media.MediaCodecList;
+import android.media.MediaFormat;
+import android.media.MediaMuxer;
+import android.media.MediaRecorder;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.Surface;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records video from a surface with {@link MediaCodec} and {@link MediaMuxer}, as an
+ * alternative to {@link MediaRecorder} that exposes the encoder: the bitrate can change while
+ * recording, keyframes can be requested, HEVC is used when asked for and available, and stopping
+ * drops every frame captured after the stop call.
+ *
+ * The camera renders into the surface from {@link #createInputSurface(Surface)}. Video
+ * timestamps come from the camera, so audio is stamped with the same clock, see
+ * {@link #CodecRecorder(boolean, Handler, Listener)}.
+ *
+ * Long recordings can be split into segments, see {@link #setSegments(int, int)}: the muxer is
+ * switched to the next file on a keyframe, so no frame is lost between two segments and a crash
+ * only loses the segment being written.
+ *
+ * With a pre-roll, see {@link #startPreRoll}, the video encoder runs before anything is
+ * recorded and keeps its last samples in an {@link EncodedFrameRing}. {@link #record} writes
+ * them to the file ahead of the live ones.
+ */
+@TargetApi(21)
+class CodecRecorder {
+
+    interface Listener {
+        /**
+         * The maximum duration or file size was reached, the recording should be stopped.
+         */
+        void onRecorderLimitReached();
+
+        /**
+         * Encoding failed, the recording should be stopped.
+         */
+        void onRecorderError(Exception e);
+
+        /**
+         * A segment was closed and the recording continues in the next one.
+         *
+         * @param index of the segment, starting at 0
+         */
+        void onRecorderSegmentFinished(String path, int index);
+    }
+
+    interface StopCallback {
+        /**
+         * The encoders are drained and released, and the file is finished.
+         *
+         * @param written whether a playable file was written
+         */
+        void onStopped(boolean written);
+    }
+
+    private static final String TAG = "CodecRecorder";
+
+    private static final int I_FRAME_INTERVAL_S = 1;
+
+    private static final long DEQUEUE_TIMEOUT_US = 10000;
+
+    private static final long STOP_TIMEOUT_MS = 3000;
+
+    /**
+     * Upper bound of the memory a pre-roll ring takes, the pre-roll is encoded at a lower
+     * bitrate when its duration wouldn't fit at the profile's.
+     */
+    private static final int MAX_PRE_ROLL_BYTES = 32 * 1024 * 1024;
+
+    private final boolean mRealtimeClock;
+
+    private final Handler mListenerHandler;
+
+    private final Listener mListener;
+
+    private final Object mMuxerLock = new Object();
+
+    private MediaCodec mVideoCodec;
+
+    private MediaCodec mAudioCodec;
+
+    private AudioRecord mAudioRecord;
+
+    private int mAudioSampleRate;
+
+    private int mAudioChannels;
+
+    private Surface mInputSurface;
+
+    private boolean mOwnsInputSurface;
+
+    private MediaMuxer mMuxer;
+
+    private String mPath;
+
+    private int mOrientationHint;
+
+    private MediaFormat mVideoFormat;
+
+    private MediaFormat mAudioFormat;
+
+    private int mVideoTrack = -1;
+
+    private int mAudioTrack = -1;
+
+    private boolean mMuxerStarted;
+
+    private boolean mHasKeyFrame;
+
+    private long mFirstSampleUs = -1;
+
+    private long mLastVideoUs = -1;
+
+    private long mLastAudioUs = -1;
+
+    private long mBytesWritten;
+
+    private long mMaxDurationUs;
+
+    private long mMaxFileSize;
+
+    private boolean mLimitReported;
+
+    private long mSegmentDurationUs;
+
+    private long mSegmentFileSize;
+
+    private String mFirstSegmentPath;
+
+    private int mSegmentIndex;
+
+    private long mSegmentStartUs = -1;
+
+    private long mSegmentBytes;
+
+    private boolean mSegmentKeyFrameRequested;
+
+    // Encoded video kept until the muxer starts, null without a pre-roll or once written
+    private EncodedFrameRing mPreRoll;
+
+    private long mPreRollDurationUs;
+
+    // Bitrate the video encoder was configured with
+    private int mVideoBitrate;
+
+    private long mPauseStartUs = -1;
+
+    private long mPausedUs;
+
+    private volatile long mStopTimeUs = Long.MAX_VALUE;
+
+    private volatile boolean mStopping;
+
+    // Set by release(), the encoder threads then leave their loops
+    private volatile boolean mReleased;
+
+    private Thread mVideoThread;
+
+    private Thread mAudioThread;
+
+    private CountDownLatch mVideoFinished;
+
+    private CountDownLatch mAudioFinished;
+
+    /**
+     * @param realtimeClock whether the camera stamps frames with
+     * {@link SystemClock#elapsedRealtimeNanos()} rather than {@link System#nanoTime()}
+     * @param listenerHandler handler the listener is called on, never the encoding threads
+     */
+    CodecRecorder(boolean realtimeClock, Handler listenerHandler, Listener listener) {
+        mRealtimeClock = realtimeClock;
+        mListenerHandler = listenerHandler;
+        mListener = listener;
+    }
+
+    /**
+     * @return {@code mimeType} if the device has an encoder for it, H.264 otherwise
+     */
+    static String chooseVideoMimeType(String mimeType) {
+        if (mimeType == null || MediaFormat.MIMETYPE_VIDEO_AVC.equals(mimeType)) {
+            return MediaFormat.MIMETYPE_VIDEO_AVC;
+        }
+        for (MediaCodecInfo info : new MediaCodecList(MediaCodecList.REGULAR_CODECS).getCodecInfos()) {
+            if (!info.isEncoder()) {
+                continue;
+            }
+            for (String type : info.getSupportedTypes()) {
+                if (type.equalsIgnoreCase(mimeType)) {
+                    return mimeType;
+                }
+            }
+        }
+        return MediaFormat.MIMETYPE_VIDEO_AVC;
+    }
+
+    /**
+     * Configures the encoders and the muxer. {@link #createInputSurface(Surface)} has to be called
+     * next.
+     *
+     * @param mimeType video encoding, see {@link #chooseVideoMimeType(String)}
+     * @param maxDuration in ms, 0 or less for no limit
+     * @param maxFileSize in bytes, 0 or less for no limit
+     */
+    void prepare(String path, CamcorderProfile profile, String mimeType, int orientationHint,
+                 boolean recordAudio, int maxDuration, int maxFileSize) throws IOException {
+        try {
+            prepareVideo(profile, profile.videoBitRate, mimeType);
+            if (recordAudio) {
+                prepareAudio(profile);
+            }
+            openMuxer(path, orientationHint);
+        } catch (IOException | RuntimeException e) {
+            release();
+            throw e instanceof IOException ? (IOException) e : new IOException(e);
+        }
+        setLimits(maxDuration, maxFileSize);
+    }
+
+    /**
+     * Starts encoding from {@code persistentSurface} without writing anything, the last
+     * {@code duration} ms are kept and written first once {@link #record} is called.
+     *
+     * @param duration in ms, the ring may reach back up to a keyframe interval further
+     */
+    void startPreRoll(CamcorderProfile profile, String mimeType, int duration,
+                      Surface persistentSurface) throws IOException {
+        // room for the duration plus a keyframe interval at the bitrate, and some slack for
+        // bitrate peaks
+        long spanMs = duration + I_FRAME_INTERVAL_S * 1000L;
+        int bitrate = profile.videoBitRate;
+        long capacity = (long) bitrate / 8 * spanMs / 1000 * 3 / 2;
+        if (capacity > MAX_PRE_ROLL_BYTES) {
+            // record() brings the profile's bitrate back once recording starts
+            bitrate = (int) (MAX_PRE_ROLL_BYTES * 8L * 1000 / spanMs * 2 / 3);
+            capacity = MAX_PRE_ROLL_BYTES;
+            Log.w(TAG, "Pre-roll of " + duration + " ms encoded at " + bitrate + " bps instead of "
+                    + profile.videoBitRate + " to fit in " + MAX_PRE_ROLL_BYTES + " bytes");
+        }
+        try {
+            prepareVideo(profile, bitrate, mimeType);
+            createInputSurface(persistentSurface);
+        } catch (IOException | RuntimeException e) {
+            release();
+            throw e instanceof IOException ? (IOException) e : new IOException(e);
+        }
+        mPreRollDurationUs = duration * 1000L;
+        try {
+            mPreRoll = new EncodedFrameRing(mPreRollDurationUs, (int) capacity);
+        } catch (OutOfMemoryError e) {
+            release();
+            throw new IOException("Not enough memory for the pre-roll", e);
+        }
+        startVideo();
+    }
+
+    /**
+     * Starts writing a recorder started with {@link #startPreRoll} to {@code path}, the buffered
+     * video first. Audio only starts now. Failing leaves the pre-roll running.
+     *
+     * @param maxDuration in ms, counted from the first buffered frame, 0 or less for no limit
+     * @param maxFileSize in bytes, 0 or less for no limit
+     */
+    void record(String path, CamcorderProfile profile, int orientationHint, boolean recordAudio,
+                int maxDuration, int maxFileSize) throws IOException {
+        try {
+            if (recordAudio) {
+                prepareAudio(profile);
+            }
+            setLimits(maxDuration, maxFileSize);
+            synchronized (mMuxerLock) {
+                openMuxer(path, orientationHint);
+                if (mVideoFormat != null) {
+                    mVideoTrack = mMuxer.addTrack(mVideoFormat);
+                    startMuxerIfReady();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            releaseAudio();
+            synchronized (mMuxerLock) {
+                if (mMuxer != null) {
+                    mMuxer.release();
+                    mMuxer = null;
+                }
+                mVideoTrack = -1;
+            }
+            throw e instanceof IOException ? (IOException) e : new IOException(e);
+        }
+        if (profile.videoBitRate != mVideoBitrate) {
+            // the pre-roll may have been encoded at a lower bitrate to fit in memory
+            setVideoBitrate(profile.videoBitRate);
+        }
+        startAudio();
+    }
+
+    private void prepareVideo(CamcorderProfile profile, int bitrate, String mimeType) throws IOException {
+        MediaFormat videoFormat = MediaFormat.createVideoFormat(mimeType,
+                profile.videoFrameWidth, profile.videoFrameHeight);
+        videoFormat.setInteger(MediaFormat.KEY_COLOR_FORMAT,
+                MediaCodecInfo.CodecCapabilities.COLOR_FormatSurface);
+        videoFormat.setInteger(MediaFormat.KEY_BIT_RATE, bitrate);
+        videoFormat.setInteger(MediaFormat.KEY_FRAME_RATE, profile.videoFrameRate);
+        videoFormat.setInteger(MediaFormat.KEY_I_FRAME_INTERVAL, I_FRAME_INTERVAL_S);
+
+        mVideoCodec = MediaCodec.createEncoderByType(mimeType);
+        mVideoCodec.configure(videoFormat, null, null, MediaCodec.CONFIGURE_FLAG_ENCODE);
+        mVideoBitrate = bitrate;
+    }
+
+    private void openMuxer(String path, int orientationHint) throws IOException {
+        mMuxer = new MediaMuxer(path, MediaMuxer.OutputFormat.MUXER_OUTPUT_MPEG_4);
+        mMuxer.setOrientationHint(orientationHint);
+        mPath = path;
+        mFirstSegmentPath = path;
+        mOrientationHint = orientationHint;
+    }
+
+    private void setLimits(int maxDuration, int maxFileSize) {
+        mMaxDurationUs = maxDuration > 0 ? maxDuration * 1000L : 0;
+        mMaxFileSize = maxFileSize > 0 ? maxFileSize : 0;
+    }
+
+    /**
+     * Splits the recording into files of at most the given duration or size, the first one is
+     * the path given to {@link #prepare}, the next ones are named after it, see
+     * {@link #getSegmentPath(String, int)}. Has to be called before {@link #start()} or
+     * {@link #record}.
+     *
+     * @param segmentDuration in ms, 0 or less for no limit
+     * @param segmentFileSize in bytes, 0 or less for no limit
+     */
+    void setSegments(int segmentDuration, int segmentFileSize) {
+        mSegmentDurationUs = segmentDuration > 0 ? segmentDuration * 1000L : 0;
+        mSegmentFileSize = segmentFileSize > 0 ? segmentFileSize : 0;
+    }
+
+    boolean isSegmented() {
+        return mSegmentDurationUs > 0 || mSegmentFileSize > 0;
+    }
+
+    /**
+     * @return the file currently written, the last segment once stopped
+     */
+    String getPath() {
+        synchronized (mMuxerLock) {
+            return mPath;
+        }
+    }
+
+    /**
+     * @return index of the segment currently written, the last one once stopped
+     */
+    int getSegmentIndex() {
+        synchronized (mMuxerLock) {
+            return mSegmentIndex;
+        }
+    }
+
+    /**
+     * @return {@code path} for the first segment, {@code path} with {@code _<index>} before its
+     * extension for the next ones
+     */
+    static String getSegmentPath(String path, int index) {
+        if (index == 0) {
+            return path;
+        }
+        int dot = path.lastIndexOf('.');
+        if (dot <= path.lastIndexOf('/')) {
+            return path + "_" + index;
+        }
+        return path.substring(0, dot) + "_" + index + path.substring(dot);
+    }
+
+    /**
+     * @param persistentSurface persistent input surface to encode from (API 23+), null to create
+     * a surface for this recording only
+     * @return the surface the camera has to render into
+     */
+    Surface createInputSurface(Surface persistentSurface) {
+        if (persistentSurface != null) {
+            setInputSurface(persistentSurface);
+            mInputSurface = persistentSurface;
+        } else {
+            mInputSurface = mVideoCodec.createInputSurface();
+            mOwnsInputSurface = true;
+        }
+        return mInputSurface;
+    }
+
+    @TargetApi(23)
+    private void setInputSurface(Surface surface) {
+        mVideoCodec.setInputSurface(surface);
+    }
+
+    private void prepareAudio(CamcorderProfile profile) throws IOException {
+        mAudioSampleRate = profile.audioSampleRate;
+        mAudioChannels = profile.audioChannels;
+        int channelConfig = mAudioChannels == 1 ? AudioFormat.CHANNEL_IN_MONO : AudioFormat.CHANNEL_IN_STEREO;
+        int minBufferSize = AudioRecord.getMinBufferSize(mAudioSampleRate, channelConfig,
+                AudioFormat.ENCODING_PCM_16BIT);
+        if (minBufferSize <= 0) {
+            throw new IOException("Unsupported audio configuration");
+        }
+        mAudioRecord = new AudioRecord(MediaRecorder.AudioSource.CAMCORDER, mAudioSampleRate,
+                channelConfig, AudioFormat.ENCODING_PCM_16BIT, minBufferSize * 2);
+        if (mAudioRecord.getState() != AudioRecord.STATE_INITIALIZED) {
+            throw new IOException("Failed to initialize audio recording");
+        }
+
+        MediaFormat audioFormat = MediaFormat.createAudioFormat(MediaFormat.MIMETYPE_AUDIO_AAC,
+                mAudioSampleRate, mAudioChannels);
+        audioFormat.setInteger(MediaFormat.KEY_AAC_PROFILE, MediaCodecInfo.CodecProfileLevel.AACObjectLC);
+        audioFormat.setInteger(MediaFormat.KEY_BIT_RATE, profile.audioBitRate);
+        audioFormat.setInteger(MediaFormat.KEY_MAX_INPUT_SIZE, minBufferSize * 2);
+        mAudioCodec = MediaCodec.createEncoderByType(MediaFormat.MIMETYPE_AUDIO_AAC);
+        mAudioCodec.configure(audioFormat, null, null, MediaCodec.CONFIGURE_FLAG_ENCODE);
+    }
+
+    void start() {
+        startVideo();
+        startAudio();
+    }
+
+    private void startVideo() {
+        mVideoFinished = new CountDownLatch(1);
+        final MediaCodec codec = mVideoCodec;
+        codec.start();
+        mVideoThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drainVideo(codec);
+            }
+        }, "CodecRecorderVideo");
+        mVideoThread.start();
+    }
+
+    private void startAudio() {
+        if (mAudioCodec != null) {
+            mAudioFinished = new CountDownLatch(1);
+            final MediaCodec codec = mAudioCodec;
+            final AudioRecord audioRecord = mAudioRecord;
+            codec.start();
+            audioRecord.startRecording();
+            mAudioThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    encodeAudio(codec, audioRecord);
+                }
+            }, "CodecRecorderAudio");
+            mAudioThread.start();
+        }
+    }
+
+    /**
+     * Stops recording at the current time, frames captured later are not written even if the
+     * encoder still had them queued. Draining the encoders and finishing the file can take a
+     * while, it happens on a thread of its own and never blocks the caller.
+     *
+     * @param callback gets the result on the listener's handler, may be null
+     */
+    void stop(final StopCallback callback) {
+        mStopTimeUs = nowUs();
+        mStopping = true;
+        MediaCodec codec = mVideoCodec;
+        try {
+            if (codec != null) {
+                codec.signalEndOfInputStream();
+            }
+        } catch (IllegalStateException e) {
+            Log.e(TAG, "Failed to signal the end of the video stream", e);
+        }
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                final boolean written = finish();
+                if (callback != null) {
+                    mListenerHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            callback.onStopped(written);
+                        }
+                    });
+                }
+            }
+        }, "CodecRecorderStop").start();
+    }
+
+    /**
+     * Waits for the encoders to write their last samples, then releases everything.
+     *
+     * @return whether a playable file was written
+     */
+    private boolean finish() {
+        try {
+            if ((mVideoFinished != null && !mVideoFinished.await(STOP_TIMEOUT_MS, TimeUnit.MILLISECONDS))
+                    || (mAudioFinished != null && !mAudioFinished.await(STOP_TIMEOUT_MS, TimeUnit.MILLISECONDS))) {
+                Log.e(TAG, "Timed out waiting for the encoders to finish");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        joinQuietly(mVideoThread);
+        joinQuietly(mAudioThread);
+
+        boolean written;
+        synchronized (mMuxerLock) {
+            written = mMuxerStarted && mHasKeyFrame;
+        }
+        release();
+        return written;
+    }
+
+    /**
+     * Samples captured while paused are dropped, and the timeline continues where it stopped.
+     */
+    void pause() {
+        synchronized (mMuxerLock) {
+            if (mPauseStartUs < 0) {
+                mPauseStartUs = nowUs();
+            }
+        }
+    }
+
+    void resume() {
+        synchronized (mMuxerLock) {
+            if (mPauseStartUs >= 0) {
+                mPausedUs += nowUs() - mPauseStartUs;
+                mPauseStartUs = -1;
+            }
+        }
+        requestKeyFrame();
+    }
+
+    /**
+     * Changes the video bitrate of the running encoder.
+     */
+    void setVideoBitrate(int bitrate) {
+        mVideoBitrate = bitrate;
+        Bundle params = new Bundle();
+        params.putInt(MediaCodec.PARAMETER_KEY_VIDEO_BITRATE, bitrate);
+        setParameters(params);
+    }
+
+    /**
+     * Makes the next encoded frame a keyframe.
+     */
+    void requestKeyFrame() {
+        Bundle params = new Bundle();
+        params.putInt(MediaCodec.PARAMETER_KEY_REQUEST_SYNC_FRAME, 0);
+        setParameters(params);
+    }
+
+    private void setParameters(Bundle params) {
+        // release() may clear the field meanwhile
+        MediaCodec codec = mVideoCodec;
+        try {
+            if (codec != null) {
+                codec.setParameters(params);
+            }
+        } catch (IllegalStateException e) {
+            Log.e(TAG, "Failed to update the video encoder", e);
+        }
+    }
+
+    private long nowUs() {
+        long nanos = mRealtimeClock ? SystemClock.elapsedRealtimeNanos() : System.nanoTime();
+        return nanos / 1000;
+    }
+
+    /**
+     * Runs on {@link #mVideoThread}, which owns {@code codec} once started and frees it on exit,
+     * so {@link #release()} never frees it under a running loop.
+     */
+    private void drainVideo(MediaCodec codec) {
+        MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+        try {
+            while (!mReleased) {
+                int index = codec.dequeueOutputBuffer(info, DEQUEUE_TIMEOUT_US);
+                if (index == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+                    addTrack(true, codec.getOutputFormat());
+                } else if (index >= 0) {
+                    ByteBuffer buffer = codec.getOutputBuffer(index);
+                    boolean last = (info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0
+                            || (mStopping && info.presentationTimeUs > mStopTimeUs);
+                    writeSample(true, buffer, info);
+                    codec.releaseOutputBuffer(index, false);
+                    if (last) {
+                        break;
+                    }
+                }
+            }
+        } catch (IllegalStateException e) {
+            reportError(e);
+        } finally {
+            releaseCodec(codec);
+            mVideoFinished.countDown();
+        }
+    }
+
+    /**
+     * Runs on {@link #mAudioThread}, which owns {@code codec} and {@code audioRecord} once
+     * started, like {@link #drainVideo}.
+     */
+    private void encodeAudio(MediaCodec codec, AudioRecord audioRecord) {
+        int frameSize = 2 * mAudioChannels;
+        byte[] pcm = new byte[mAudioSampleRate * frameSize / 50];
+        MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+        boolean inputDone = false;
+        try {
+            while (!mReleased) {
+                if (!inputDone) {
+                    int inputIndex = codec.dequeueInputBuffer(DEQUEUE_TIMEOUT_US);
+                    if (inputIndex >= 0) {
+                        ByteBuffer input = codec.getInputBuffer(inputIndex);
+                        input.clear();
+                        int read = audioRecord.read(pcm, 0, Math.min(pcm.length, input.capacity()));
+                        // stamp the chunk with the time its first sample was captured
+                        long ptsUs = nowUs() - Math.max(read, 0) / frameSize * 1000000L / mAudioSampleRate;
+                        if (mStopping) {
+                            codec.queueInputBuffer(inputIndex, 0, 0, ptsUs,
+                                    MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+                            inputDone = true;
+                        } else if (read > 0) {
+                            input.put(pcm, 0, read);
+                            codec.queueInputBuffer(inputIndex, 0, read, ptsUs, 0);
+                        } else {
+                            codec.queueInputBuffer(inputIndex, 0, 0, ptsUs, 0);
+                        }
+                    }
+                }
+
+                int index = codec.dequeueOutputBuffer(info, inputDone ? DEQUEUE_TIMEOUT_US : 0);
+                if (index == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+                    addTrack(false, codec.getOutputFormat());
+                } else if (index >= 0) {
+                    ByteBuffer buffer = codec.getOutputBuffer(index);
+                    writeSample(false, buffer, info);
+                    codec.releaseOutputBuffer(index, false);
+                    if ((info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
+                        break;
+                    }
+                }
+            }
+        } catch (IllegalStateException e) {
+            reportError(e);
+        } finally {
+            releaseAudioRecord(audioRecord);
+            releaseCodec(codec);
+            mAudioFinished.countDown();
+        }
+    }
+
+    private void addTrack(boolean video, MediaFormat format) {
+        synchronized (mMuxerLock) {
+            // kept to set up the muxers of the next segments
+            if (video) {
+                mVideoFormat = format;
+            } else {
+                mAudioFormat = format;
+            }
+            if (mMuxer == null) {
+                // pre-roll, the track is added once recording starts
+                return;
+            }
+            if (video) {
+                mVideoTrack = mMuxer.addTrack(format);
+            } else {
+                mAudioTrack = mMuxer.addTrack(format);
+            }
+            startMuxerIfReady();
+        }
+    }
+
+    /**
+     * Called with {@link #mMuxerLock} held.
+     */
+    private void startMuxerIfReady() {
+        if (mMuxerStarted || mVideoTrack < 0 || (mAudioCodec != null && mAudioTrack < 0)) {
+            return;
+        }
+        mMuxer.start();
+        mMuxerStarted = true;
+        if (mPreRoll == null) {
+            // frames encoded before the muxer was ready are dropped, start from a keyframe
+            requestKeyFrame();
+        }
+    }
+
+    private void writeSample(boolean video, ByteBuffer buffer, MediaCodec.BufferInfo info) {
+        if ((info.flags & MediaCodec.BUFFER_FLAG_CODEC_CONFIG) != 0 || info.size == 0) {
+            // codec config is part of the track format
+            return;
+        }
+        if (video && writePreRoll(buffer, info)) {
+            return;
+        }
+        boolean reachedLimit = false;
+        boolean needsKeyFrame = false;
+        String finishedSegment = null;
+        int finishedIndex = 0;
+        synchronized (mMuxerLock) {
+            long ptsUs = info.presentationTimeUs;
+            if (!mMuxerStarted || ptsUs > mStopTimeUs
+                    || (mPauseStartUs >= 0 && ptsUs >= mPauseStartUs)) {
+                return;
+            }
+            if (video && !mHasKeyFrame) {
+                if ((info.flags & MediaCodec.BUFFER_FLAG_KEY_FRAME) == 0) {
+                    return;
+                }
+                mHasKeyFrame = true;
+            }
+            if (!mHasKeyFrame) {
+                // keep audio from starting before the first video frame
+                return;
+            }
+            if (mFirstSampleUs < 0) {
+                mFirstSampleUs = ptsUs;
+            }
+            ptsUs -= mPausedUs;
+            if (mSegmentStartUs < 0) {
+                mSegmentStartUs = ptsUs;
+            }
+            if (isSegmented() && ((mSegmentDurationUs > 0 && ptsUs - mSegmentStartUs >= mSegmentDurationUs)
+                    || (mSegmentFileSize > 0 && mSegmentBytes >= mSegmentFileSize))) {
+                if (video && (info.flags & MediaCodec.BUFFER_FLAG_KEY_FRAME) != 0) {
+                    // every segment has to start with a keyframe to play on its own
+                    finishedSegment = mPath;
+                    finishedIndex = mSegmentIndex;
+                    try {
+                        startNextSegment(ptsUs);
+                    } catch (IOException | RuntimeException e) {
+                        reportError(e);
+                        return;
+                    }
+                } else if (!mSegmentKeyFrameRequested) {
+                    mSegmentKeyFrameRequested = true;
+                    needsKeyFrame = true;
+                }
+            }
+            long lastUs = video ? mLastVideoUs : mLastAudioUs;
+            if (ptsUs <= lastUs) {
+                return;
+            }
+            if (video) {
+                mLastVideoUs = ptsUs;
+            } else {
+                mLastAudioUs = ptsUs;
+            }
+
+            buffer.position(info.offset);
+            buffer.limit(info.offset + info.size);
+            MediaCodec.BufferInfo sample = new MediaCodec.BufferInfo();
+            sample.set(0, info.size, ptsUs, info.flags);
+            mMuxer.writeSampleData(video ? mVideoTrack : mAudioTrack, buffer.slice(), sample);
+            mBytesWritten += info.size;
+            mSegmentBytes += info.size;
+
+            if (!mLimitReported && ((mMaxDurationUs > 0 && ptsUs - mFirstSampleUs >= mMaxDurationUs)
+                    || (mMaxFileSize > 0 && mBytesWritten >= mMaxFileSize))) {
+                mLimitReported = true;
+                reachedLimit = true;
+            }
+        }
+        if (needsKeyFrame) {
+            requestKeyFrame();
+        }
+        if (finishedSegment != null) {
+            final String path = finishedSegment;
+            final int index = finishedIndex;
+            mListenerHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    mListener.onRecorderSegmentFinished(path, index);
+                }
+            });
+        }
+        if (reachedLimit) {
+            mListenerHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    mListener.onRecorderLimitReached();
+                }
+            });
+        }
+    }
+
+    /**
+     * Buffers video samples until the muxer starts, then writes the buffered samples. Only
+     * called from the video thread, so live frames can't overtake the buffered ones.
+     *
+     * @return whether the sample was buffered rather than written
+     */
+    private boolean writePreRoll(ByteBuffer buffer, MediaCodec.BufferInfo info) {
+        EncodedFrameRing preRoll;
+        synchronized (mMuxerLock) {
+            if (mPreRoll == null) {
+                return false;
+            }
+            if (!mMuxerStarted) {
+                mPreRoll.add(buffer, info);
+                return true;
+            }
+            preRoll = mPreRoll;
+            mPreRoll = null;
+        }
+        long spanUs = preRoll.getSpanUs();
+        if (spanUs < mPreRollDurationUs) {
+            Log.w(TAG, "Pre-roll holds " + spanUs / 1000 + " ms of the " + mPreRollDurationUs / 1000 + " ms asked for");
+        }
+        preRoll.drainTo(new EncodedFrameRing.Sink() {
+            @Override
+            public void onSample(ByteBuffer data, MediaCodec.BufferInfo sample) {
+                writeSample(true, data, sample);
+            }
+        });
+        return false;
+    }
+
+    /**
+     * Finishes the current file and points the muxer at the next segment. Called with
+     * {@link #mMuxerLock} held, before the keyframe starting the segment is written.
+     */
+    private void startNextSegment(long startUs) throws IOException {
+        mMuxer.stop();
+        mMuxer.release();
+        mMuxer = null;
+        mMuxerStarted = false;
+
+        mSegmentIndex++;
+        mPath = getSegmentPath(mFirstSegmentPath, mSegmentIndex);
+        mMuxer = new MediaMuxer(mPath, MediaMuxer.OutputFormat.MUXER_OUTPUT_MPEG_4);
+        mMuxer.setOrientationHint(mOrientationHint);
+        mVideoTrack = mMuxer.addTrack(mVideoFormat);
+        if (mAudioFormat != null) {
+            mAudioTrack = mMuxer.addTrack(mAudioFormat);
+        }
+        mMuxer.start();
+        mMuxerStarted = true;
+
+        mSegmentStartUs = startUs;
+        mSegmentBytes = 0;
+        mSegmentKeyFrameRequested = false;
+    }
+
+    private void reportError(final Exception e) {
+        if (mStopping) {
+            return;
+        }
+        Log.e(TAG, "Encoding failed", e);
+        mListenerHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                mListener.onRecorderError(e);
+            }
+        });
+    }
+
+    private static void joinQuietly(Thread thread) {
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join(STOP_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Frees the encoders and the muxer without finishing the file, {@link #stop(StopCallback)} does both.
+     */
+    void release() {
+        mReleased = true;
+        releaseAudio();
+        if (mVideoThread == null) {
+            releaseCodec(mVideoCodec);
+        }
+        mVideoCodec = null;
+        if (mOwnsInputSurface && mInputSurface != null) {
+            mInputSurface.release();
+        }
+        mInputSurface = null;
+        synchronized (mMuxerLock) {
+            mPreRoll = null;
+            if (mMuxer != null) {
+                try {
+                    if (mMuxerStarted) {
+                        mMuxer.stop();
+                    }
+                } catch (IllegalStateException e) {
+                    Log.e(TAG, "Failed to finish the video file", e);
+                }
+                mMuxer.release();
+                mMuxer = null;
+            }
+            mMuxerStarted = false;
+        }
+    }
+
+    private void releaseAudio() {
+        if (mAudioThread == null) {
+            releaseAudioRecord(mAudioRecord);
+            releaseCodec(mAudioCodec);
+        }
+        mAudioRecord = null;
+        mAudioCodec = null;
+    }
+
+    private static void releaseAudioRecord(AudioRecord audioRecord) {
+        if (audioRecord != null) {
+            try {
+                audioRecord.stop();
+            } catch (IllegalStateException e) {
+                // never started
+            }
+            audioRecord.release();
+        }
+    }
+
+    private static void releaseCodec(MediaCodec codec) {
+        if (codec != null) {
+            try {
+                codec.stop();
+            } catch (IllegalStateException e) {
+                // never started, or already failed
+            }
+            codec.release();
+        }
+    }
+}
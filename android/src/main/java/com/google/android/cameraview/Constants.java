@@ -44,4 +44,7 @@ public interface Constants {
     int ORIENTATION_DOWN = 2;
     int ORIENTATION_LEFT = 3;
     int ORIENTATION_RIGHT = 4;
+
+    int RECORDING_ENGINE_MEDIA_RECORDER = 0;
+    int RECORDING_ENGINE_MEDIA_CODEC = 1;
 }
@@ -109,6 +109,10 @@ abstract class DisplayOrientationDetector {
         return mLastKnownDisplayOrientation;
     }
 
+    public int getLastKnownDeviceOrientation() {
+        return mLastKnownDeviceOrientation;
+    }
+
     void dispatchOnDisplayOrientationChanged(int displayOrientation) {
         mLastKnownDisplayOrientation = displayOrientation;
         onDisplayOrientationChanged(displayOrientation, mLastKnownDeviceOrientation);
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.cameraview;
+
+import android.media.MediaCodec;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Keeps the last encoded video samples in one fixed-size direct buffer, for the pre-roll of a
+ * recording. The buffer lives outside the Java heap, which is much smaller than what a few
+ * seconds of high bitrate video can take.
+ *
+ * The ring always starts on a keyframe, so it can be written to a file as is. Whole groups of
+ * pictures are dropped from its start once the ones after them still cover the duration, or
+ * when the buffer is full.
+ */
+class EncodedFrameRing {
+
+    interface Sink {
+        void onSample(ByteBuffer data, MediaCodec.BufferInfo info);
+    }
+
+    private static class Sample {
+        final int offset;
+        final int size;
+        final long ptsUs;
+        final int flags;
+
+        Sample(int offset, int size, long ptsUs, int flags) {
+            this.offset = offset;
+            this.size = size;
+            this.ptsUs = ptsUs;
+            this.flags = flags;
+        }
+
+        boolean isKeyFrame() {
+            return (flags & MediaCodec.BUFFER_FLAG_KEY_FRAME) != 0;
+        }
+    }
+
+    private final long mDurationUs;
+
+    private final ByteBuffer mData;
+
+    private final ArrayDeque<Sample> mSamples = new ArrayDeque<>();
+
+    /**
+     * @param durationUs how far back the ring has to reach
+     * @param capacity bytes of encoded video the ring can hold
+     * @throws OutOfMemoryError if the buffer can't be allocated
+     */
+    EncodedFrameRing(long durationUs, int capacity) {
+        mDurationUs = durationUs;
+        mData = ByteBuffer.allocateDirect(capacity);
+    }
+
+    /**
+     * Copies a sample at the end of the ring. Samples that don't follow a keyframe are dropped.
+     */
+    synchronized void add(ByteBuffer buffer, MediaCodec.BufferInfo info) {
+        boolean keyFrame = (info.flags & MediaCodec.BUFFER_FLAG_KEY_FRAME) != 0;
+        if (info.size > mData.capacity()) {
+            // can't be kept, and the frames after it depend on it
+            mSamples.clear();
+            return;
+        }
+        if (mSamples.isEmpty() && !keyFrame) {
+            return;
+        }
+        int offset = allocate(info.size);
+        while (offset < 0) {
+            dropFirstGroup();
+            if (mSamples.isEmpty() && !keyFrame) {
+                return;
+            }
+            offset = allocate(info.size);
+        }
+        buffer.position(info.offset);
+        buffer.limit(info.offset + info.size);
+        mData.limit(offset + info.size);
+        mData.position(offset);
+        mData.put(buffer);
+        mData.clear();
+        mSamples.addLast(new Sample(offset, info.size, info.presentationTimeUs, info.flags));
+
+        // drop the oldest group while the next keyframe still reaches back far enough
+        while (true) {
+            Sample nextKeyFrame = findSecondKeyFrame();
+            if (nextKeyFrame == null || info.presentationTimeUs - nextKeyFrame.ptsUs < mDurationUs) {
+                break;
+            }
+            dropFirstGroup();
+        }
+    }
+
+    /**
+     * @return time between the oldest and the newest sample kept
+     */
+    synchronized long getSpanUs() {
+        if (mSamples.isEmpty()) {
+            return 0;
+        }
+        return mSamples.peekLast().ptsUs - mSamples.peekFirst().ptsUs;
+    }
+
+    /**
+     * Hands every sample to {@code sink}, oldest first, and empties the ring.
+     */
+    synchronized void drainTo(Sink sink) {
+        MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+        for (Sample sample : mSamples) {
+            info.set(sample.offset, sample.size, sample.ptsUs, sample.flags);
+            mData.clear();
+            sink.onSample(mData, info);
+        }
+        mData.clear();
+        mSamples.clear();
+    }
+
+    /**
+     * @return where {@code size} bytes fit without overwriting a kept sample, -1 if they don't
+     */
+    private int allocate(int size) {
+        if (mSamples.isEmpty()) {
+            return 0;
+        }
+        int head = mSamples.peekFirst().offset;
+        Sample last = mSamples.peekLast();
+        int tail = last.offset + last.size;
+        if (tail > head) {
+            if (mData.capacity() - tail >= size) {
+                return tail;
+            }
+            // wrap around, leaving the end of the array unused
+            return head > size ? 0 : -1;
+        }
+        return head - tail > size ? tail : -1;
+    }
+
+    private Sample findSecondKeyFrame() {
+        boolean first = true;
+        for (Sample sample : mSamples) {
+            if (first) {
+                first = false;
+            } else if (sample.isKeyFrame()) {
+                return sample;
+            }
+        }
+        return null;
+    }
+
+    private void dropFirstGroup() {
+        mSamples.pollFirst();
+        while (!mSamples.isEmpty() && !mSamples.peekFirst().isKeyFrame()) {
+            mSamples.pollFirst();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.cameraview;
+
+import android.annotation.TargetApi;
+import android.graphics.ImageFormat;
+import android.media.Image;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Packs the three planes of a {@link ImageFormat#YUV_420_888} image into a single
+ * {@link ImageFormat#NV21} or {@link ImageFormat#YV12} frame, honouring the row and pixel
+ * strides reported by each plane.
+ */
+@TargetApi(19)
+class YuvFrameAssembler {
+
+    private final int mOutputFormat;
+
+    private byte[] mRow;
+
+    YuvFrameAssembler(int outputFormat) {
+        if (outputFormat != ImageFormat.NV21 && outputFormat != ImageFormat.YV12) {
+            throw new IllegalArgumentException("Unsupported output format: " + outputFormat);
+        }
+        mOutputFormat = outputFormat;
+    }
+
+    static int getBufferSize(int width, int height) {
+        return width * height + 2 * (width / 2) * (height / 2);
+    }
+
+    /**
+     * @param image A YUV_420_888 image.
+     * @param out   Destination of at least {@link #getBufferSize(int, int)} bytes.
+     */
+    void assemble(Image image, byte[] out) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int chromaWidth = width / 2;
+        int chromaHeight = height / 2;
+        int chromaOffset = width * height;
+        Image.Plane[] planes = image.getPlanes();
+
+        copyPlane(planes[0], width, height, out, 0, 1);
+        if (mOutputFormat == ImageFormat.NV21) {
+            // interleaved VU
+            copyPlane(planes[2], chromaWidth, chromaHeight, out, chromaOffset, 2);
+            copyPlane(planes[1], chromaWidth, chromaHeight, out, chromaOffset + 1, 2);
+        } else {
+            // full V plane followed by the full U plane
+            copyPlane(planes[2], chromaWidth, chromaHeight, out, chromaOffset, 1);
+            copyPlane(planes[1], chromaWidth, chromaHeight, out, chromaOffset + chromaWidth * chromaHeight, 1);
+        }
+    }
+
+    private void copyPlane(Image.Plane plane, int width, int height, byte[] out, int offset, int outPixelStride) {
+        ByteBuffer buffer = plane.getBuffer();
+        int rowStride = plane.getRowStride();
+        int pixelStride = plane.getPixelStride();
+
+        if (pixelStride == 1 && outPixelStride == 1) {
+            if (rowStride == width) {
+                buffer.position(0);
+                buffer.get(out, offset, width * height);
+                return;
+            }
+            for (int row = 0; row < height; row++) {
+                buffer.position(row * rowStride);
+                buffer.get(out, offset + row * width, width);
+            }
+            return;
+        }
+
+        // the last row is not necessarily padded up to the row stride, only read what we need
+        int rowLength = (width - 1) * pixelStride + 1;
+        if (mRow == null || mRow.length < rowLength) {
+            mRow = new byte[rowLength];
+        }
+        int outIndex = offset;
+        for (int row = 0; row < height; row++) {
+            buffer.position(row * rowStride);
+            buffer.get(mRow, 0, rowLength);
+            for (int col = 0; col < rowLength; col += pixelStride) {
+                out[outIndex] = mRow[col];
+                outIndex += outPixelStride;
+            }
+        }
+    }
+}
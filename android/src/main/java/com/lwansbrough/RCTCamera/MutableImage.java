@@ -170,6 +170,10 @@ public class MutableImage {
         return Base64.encodeToString(toJpeg(currentRepresentation, jpegQualityPercent), Base64.NO_WRAP);
     }
 
+    public byte[] toJpegBytes(int jpegQualityPercent) {
+        return toJpeg(currentRepresentation, jpegQualityPercent);
+    }
+
     public void writeDataToFile(File file, ReadableMap options, int jpegQualityPercent) throws IOException {
         FileOutputStream fos = new FileOutputStream(file);
         fos.write(toJpeg(currentRepresentation, jpegQualityPercent));
@@ -25,6 +25,7 @@ import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.bridge.WritableNativeMap;
+import org.reactnative.camera.utils.CaptureStore;
 
 import java.io.*;
 import java.text.SimpleDateFormat;
@@ -634,9 +635,14 @@ public class RCTCameraModule extends ReactContextBaseJavaModule
 
         switch (options.getInt("target")) {
             case RCT_CAMERA_CAPTURE_TARGET_MEMORY:
-                String encoded = mutableImage.toBase64(jpegQualityPercent);
                 WritableMap response = new WritableNativeMap();
-                response.putString("data", encoded);
+                if (options.hasKey("handle") && options.getBoolean("handle")) {
+                    // keep the picture native side, it can be read through the handle
+                    response.putString("handle", CaptureStore.getInstance().put(mutableImage.toJpegBytes(jpegQualityPercent), "image/jpeg"));
+                } else {
+                    String encoded = mutableImage.toBase64(jpegQualityPercent);
+                    response.putString("data", encoded);
+                }
                 response.putInt("width", imgWidth);
                 response.putInt("height", imgHeight);
                 promise.resolve(response);
@@ -0,0 +1,128 @@
+package org.reactnative.barcodescanner;
+
+import com.google.zxing.LuminanceSource;
+
+/**
+ * Luminance view over the Y plane of a preview frame that can be cropped, rotated 90 degrees
+ * clockwise and inverted without copying the frame. Only the cropped area is ever read, and
+ * {@link #getMatrix()} fills a caller provided buffer instead of allocating one.
+ */
+public class FrameLuminanceSource extends LuminanceSource {
+  private final byte[] mData;
+  private final int mDataWidth;
+  private final int mDataHeight;
+  private final int mLeft;
+  private final int mTop;
+  private final int mCropWidth;
+  private final int mCropHeight;
+  private final boolean mRotated;
+  private final boolean mInverted;
+  private final byte[] mMatrixBuffer;
+
+  /**
+   * @param left, top, width, height Crop rectangle in frame coordinates.
+   * @param matrixBuffer Reused for {@link #getMatrix()} when large enough, may be null.
+   */
+  public FrameLuminanceSource(byte[] data, int dataWidth, int dataHeight, int left, int top, int width, int height,
+                              boolean rotated, boolean inverted, byte[] matrixBuffer) {
+    super(rotated ? height : width, rotated ? width : height);
+    if (left < 0 || top < 0 || left + width > dataWidth || top + height > dataHeight) {
+      throw new IllegalArgumentException("Crop rectangle does not fit within image data.");
+    }
+    mData = data;
+    mDataWidth = dataWidth;
+    mDataHeight = dataHeight;
+    mLeft = left;
+    mTop = top;
+    mCropWidth = width;
+    mCropHeight = height;
+    mRotated = rotated;
+    mInverted = inverted;
+    mMatrixBuffer = matrixBuffer;
+  }
+
+  @Override
+  public byte[] getRow(int y, byte[] row) {
+    if (y < 0 || y >= getHeight()) {
+      throw new IllegalArgumentException("Requested row is outside the image: " + y);
+    }
+    int width = getWidth();
+    if (row == null || row.length < width) {
+      row = new byte[width];
+    }
+    if (!mRotated) {
+      copyRow(y, row, 0);
+    } else {
+      // view row y is frame column mLeft + y, read bottom to top
+      int offset = (mTop + mCropHeight - 1) * mDataWidth + mLeft + y;
+      for (int x = 0; x < width; x++) {
+        byte value = mData[offset - x * mDataWidth];
+        row[x] = mInverted ? (byte) ~value : value;
+      }
+    }
+    return row;
+  }
+
+  @Override
+  public byte[] getMatrix() {
+    int width = getWidth();
+    int height = getHeight();
+    if (!mRotated && !mInverted && width == mDataWidth && height == mDataHeight) {
+      return mData;
+    }
+
+    int area = width * height;
+    byte[] matrix = mMatrixBuffer != null && mMatrixBuffer.length >= area ? mMatrixBuffer : new byte[area];
+    if (!mRotated) {
+      for (int y = 0; y < height; y++) {
+        copyRow(y, matrix, y * width);
+      }
+      return matrix;
+    }
+
+    // walk the frame row by row, it is much friendlier to the cache than walking columns
+    for (int frameRow = 0; frameRow < mCropHeight; frameRow++) {
+      int inputOffset = (mTop + frameRow) * mDataWidth + mLeft;
+      int outputOffset = mCropHeight - 1 - frameRow;
+      for (int frameColumn = 0; frameColumn < mCropWidth; frameColumn++) {
+        byte value = mData[inputOffset + frameColumn];
+        matrix[outputOffset] = mInverted ? (byte) ~value : value;
+        outputOffset += width;
+      }
+    }
+    return matrix;
+  }
+
+  private void copyRow(int y, byte[] output, int outputOffset) {
+    int width = getWidth();
+    int offset = (mTop + y) * mDataWidth + mLeft;
+    if (mInverted) {
+      for (int x = 0; x < width; x++) {
+        output[outputOffset + x] = (byte) ~mData[offset + x];
+      }
+    } else {
+      System.arraycopy(mData, offset, output, outputOffset, width);
+    }
+  }
+
+  @Override
+  public boolean isCropSupported() {
+    return true;
+  }
+
+  @Override
+  public LuminanceSource crop(int left, int top, int width, int height) {
+    if (!mRotated) {
+      return new FrameLuminanceSource(mData, mDataWidth, mDataHeight, mLeft + left, mTop + top, width, height,
+          false, mInverted, mMatrixBuffer);
+    }
+    return new FrameLuminanceSource(mData, mDataWidth, mDataHeight, mLeft + top, mTop + mCropHeight - left - width,
+        height, width, true, mInverted, mMatrixBuffer);
+  }
+
+  @Override
+  public LuminanceSource invert() {
+    return new FrameLuminanceSource(mData, mDataWidth, mDataHeight, mLeft, mTop, mCropWidth, mCropHeight,
+        mRotated, !mInverted, mMatrixBuffer);
+  }
+}
@@ -0,0 +1,69 @@
+package org.reactnative.barcodescanner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One attempt at decoding a frame: the orientation and inversion the frame is looked at with.
+ */
+public class ScanPass {
+  public static final ScanPass NORMAL = new ScanPass("normal", false, false);
+  public static final ScanPass ROTATED = new ScanPass("rotated", true, false);
+  public static final ScanPass INVERTED = new ScanPass("inverted", false, true);
+  public static final ScanPass ROTATED_INVERTED = new ScanPass("rotatedInverted", true, true);
+
+  public static final List<ScanPass> DEFAULT_PASSES =
+      Collections.unmodifiableList(Arrays.asList(NORMAL, ROTATED, INVERTED, ROTATED_INVERTED));
+
+  private final String mName;
+  private final boolean mRotated;
+  private final boolean mInverted;
+
+  private ScanPass(String name, boolean rotated, boolean inverted) {
+    mName = name;
+    mRotated = rotated;
+    mInverted = inverted;
+  }
+
+  public String getName() {
+    return mName;
+  }
+
+  public boolean isRotated() {
+    return mRotated;
+  }
+
+  public boolean isInverted() {
+    return mInverted;
+  }
+
+  public static ScanPass fromName(String name) {
+    for (ScanPass pass : DEFAULT_PASSES) {
+      if (pass.mName.equals(name)) {
+        return pass;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return the passes matching the given names, in order, or the default passes if none matched
+   */
+  public static List<ScanPass> fromNames(List<String> names) {
+    List<ScanPass> passes = new ArrayList<>();
+    for (String name : names) {
+      ScanPass pass = fromName(name);
+      if (pass != null && !passes.contains(pass)) {
+        passes.add(pass);
+      }
+    }
+    return passes.isEmpty() ? DEFAULT_PASSES : Collections.unmodifiableList(passes);
+  }
+
+  @Override
+  public String toString() {
+    return mName;
+  }
+}
@@ -0,0 +1,92 @@
+package org.reactnative.barcodescanner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Picks the passes to try on a frame. In adaptive mode the pass that hit most recently goes
+ * first and passes that haven't hit within the last {@code coldFrames} frames are skipped,
+ * except on every {@code exploreInterval}th frame where all passes are tried again. When no
+ * pass is hot, only the first one runs, so an idle or steady scene needs a single pass.
+ */
+public class ScanStrategy {
+  public static final int DEFAULT_COLD_FRAMES = 30;
+  public static final int DEFAULT_EXPLORE_INTERVAL = 10;
+
+  private List<ScanPass> mPasses = ScanPass.DEFAULT_PASSES;
+  private boolean mAdaptive = true;
+  private int mColdFrames = DEFAULT_COLD_FRAMES;
+  private int mExploreInterval = DEFAULT_EXPLORE_INTERVAL;
+  private long mFrameCount = 0;
+  private final Map<ScanPass, Long> mLastHits = new HashMap<>();
+
+  private final Comparator<ScanPass> mMostRecentHitFirst = new Comparator<ScanPass>() {
+    @Override
+    public int compare(ScanPass lhs, ScanPass rhs) {
+      long lhsHit = getLastHit(lhs);
+      long rhsHit = getLastHit(rhs);
+      return lhsHit == rhsHit ? 0 : (lhsHit > rhsHit ? -1 : 1);
+    }
+  };
+
+  public synchronized void setPasses(List<ScanPass> passes) {
+    mPasses = passes;
+    mLastHits.clear();
+  }
+
+  /**
+   * @param adaptive        false to always try every pass in the configured order
+   * @param coldFrames      frames without a hit after which a pass is skipped
+   * @param exploreInterval every how many frames all passes are tried, 0 to never re-explore
+   */
+  public synchronized void setAdaptive(boolean adaptive, int coldFrames, int exploreInterval) {
+    mAdaptive = adaptive;
+    mColdFrames = Math.max(0, coldFrames);
+    mExploreInterval = Math.max(0, exploreInterval);
+    mLastHits.clear();
+  }
+
+  public synchronized List<ScanPass> nextPasses() {
+    if (!mAdaptive || mPasses.size() <= 1) {
+      return mPasses;
+    }
+
+    // stable sort, passes that never hit keep their configured order
+    List<ScanPass> ordered = new ArrayList<>(mPasses);
+    Collections.sort(ordered, mMostRecentHitFirst);
+    if (mExploreInterval > 0 && mFrameCount % mExploreInterval == 0) {
+      return ordered;
+    }
+
+    List<ScanPass> hot = new ArrayList<>(ordered.size());
+    for (ScanPass pass : ordered) {
+      long lastHit = getLastHit(pass);
+      if (lastHit >= 0 && mFrameCount - lastHit <= mColdFrames) {
+        hot.add(pass);
+      }
+    }
+    if (hot.isEmpty()) {
+      hot.add(ordered.get(0));
+    }
+    return hot;
+  }
+
+  /**
+   * @param hit the pass that decoded the frame, or null if none did
+   */
+  public synchronized void onFrameScanned(ScanPass hit) {
+    if (hit != null) {
+      mLastHits.put(hit, mFrameCount);
+    }
+    mFrameCount++;
+  }
+
+  private long getLastHit(ScanPass pass) {
+    Long lastHit = mLastHits.get(pass);
+    return lastHit != null ? lastHit : -1;
+  }
+}
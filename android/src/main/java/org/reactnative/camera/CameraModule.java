@@ -4,7 +4,7 @@ import android.Manifest;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.media.MediaMetadataRetriever;
-import android.os.AsyncTask;
+import android.util.Base64;
 import android.util.Log;
 import android.widget.Toast;
 
@@ -16,12 +16,15 @@ import com.facebook.react.uimanager.UIManagerModule;
 import com.google.android.cameraview.AspectRatio;
 import com.google.zxing.BarcodeFormat;
 import org.reactnative.barcodedetector.BarcodeFormatUtils;
+import org.reactnative.camera.tasks.TaskExecutors;
+import org.reactnative.camera.utils.CaptureStore;
 import org.reactnative.camera.utils.ScopedContext;
 import org.reactnative.facedetector.RNFaceDetector;
 import com.google.android.cameraview.Size;
 
 import javax.annotation.Nullable;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Properties;
@@ -34,6 +37,7 @@ import java.util.SortedSet;
 
 public class CameraModule extends ReactContextBaseJavaModule {
   private static final String TAG = "CameraModule";
+  private static final int MAX_CAPTURE_CHUNK_SIZE = 4 * 1024 * 1024;
 
   private ScopedContext mScopedContext;
   static final int VIDEO_2160P = 0;
@@ -83,6 +87,12 @@ public class CameraModule extends ReactContextBaseJavaModule {
     return "RNCameraModule";
   }
 
+  @Override
+  public void onCatalystInstanceDestroy() {
+    // handles given to a JS context that is going away can't be released anymore
+    CaptureStore.getInstance().clear();
+  }
+
   @Nullable
   @Override
   public Map<String, Object> getConstants() {
@@ -93,6 +103,7 @@ public class CameraModule extends ReactContextBaseJavaModule {
         put("AutoFocus", getAutoFocusConstants());
         put("WhiteBalance", getWhiteBalanceConstants());
         put("VideoQuality", getVideoQualityConstants());
+        put("VideoCodec", getVideoCodecConstants());
         put("BarCodeType", getBarCodeConstants());
         put("FaceDetection", Collections.unmodifiableMap(new HashMap<String, Object>() {
           {
@@ -199,6 +210,17 @@ public class CameraModule extends ReactContextBaseJavaModule {
         });
       }
 
+      private Map<String, Object> getVideoCodecConstants() {
+        return Collections.unmodifiableMap(new HashMap<String, Object>() {
+          {
+            put("H264", "video/avc");
+            put("HEVC", "video/hevc");
+            // the key iOS exports, so VideoCodec.HVEC works on both platforms
+            put("HVEC", "video/hevc");
+          }
+        });
+      }
+
       private Map<String, Object> getGoogleVisionBarcodeModeConstants() {
         return Collections.unmodifiableMap(new HashMap<String, Object>() {
           {
@@ -280,6 +302,29 @@ public class CameraModule extends ReactContextBaseJavaModule {
     });
   }
 
+  @ReactMethod
+  public void takeBurst(final ReadableMap options, final int viewTag, final Promise promise) {
+    final ReactApplicationContext context = getReactApplicationContext();
+    final File cacheDirectory = mScopedContext.getCacheDirectory();
+    UIManagerModule uiManager = context.getNativeModule(UIManagerModule.class);
+    uiManager.addUIBlock(new UIBlock() {
+      @Override
+      public void execute(NativeViewHierarchyManager nativeViewHierarchyManager) {
+          RNCameraView cameraView = (RNCameraView) nativeViewHierarchyManager.resolveView(viewTag);
+          try {
+              if (cameraView.isCameraOpened()) {
+                cameraView.takeBurst(options, promise, cacheDirectory);
+              } else {
+                promise.reject("E_CAMERA_UNAVAILABLE", "Camera is not running");
+              }
+          }
+          catch (Exception e) {
+            promise.reject("E_TAKE_BURST_FAILED", e.getMessage());
+          }
+      }
+    });
+  }
+
   @ReactMethod
   public void record(final ReadableMap options, final int viewTag, final Promise promise) {
       final ReactApplicationContext context = getReactApplicationContext();
@@ -347,6 +392,40 @@ public class CameraModule extends ReactContextBaseJavaModule {
     });
   }
 
+  @ReactMethod
+  public void setVideoBitrate(final int bitrate, final int viewTag, final Promise promise) {
+    final ReactApplicationContext context = getReactApplicationContext();
+    UIManagerModule uiManager = context.getNativeModule(UIManagerModule.class);
+    uiManager.addUIBlock(new UIBlock() {
+      @Override
+      public void execute(NativeViewHierarchyManager nativeViewHierarchyManager) {
+          try {
+              RNCameraView cameraView = (RNCameraView) nativeViewHierarchyManager.resolveView(viewTag);
+              promise.resolve(cameraView.setVideoBitrate(bitrate));
+          } catch (Exception e) {
+              promise.reject("E_CAMERA_BAD_VIEWTAG", "setVideoBitrate: Expected a Camera component");
+          }
+      }
+    });
+  }
+
+  @ReactMethod
+  public void requestKeyFrame(final int viewTag, final Promise promise) {
+    final ReactApplicationContext context = getReactApplicationContext();
+    UIManagerModule uiManager = context.getNativeModule(UIManagerModule.class);
+    uiManager.addUIBlock(new UIBlock() {
+      @Override
+      public void execute(NativeViewHierarchyManager nativeViewHierarchyManager) {
+          try {
+              RNCameraView cameraView = (RNCameraView) nativeViewHierarchyManager.resolveView(viewTag);
+              promise.resolve(cameraView.requestKeyFrame());
+          } catch (Exception e) {
+              promise.reject("E_CAMERA_BAD_VIEWTAG", "requestKeyFrame: Expected a Camera component");
+          }
+      }
+    });
+  }
+
   @ReactMethod
   public void resumeRecording(final int viewTag) {
     final ReactApplicationContext context = getReactApplicationContext();
@@ -538,6 +617,50 @@ public class CameraModule extends ReactContextBaseJavaModule {
           catch(Throwable e){}
         }
       }
-    }.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+    }.executeOnExecutor(TaskExecutors.io());
+  }
+
+  /**
+   * Reads part of a capture taken with the handle option, so JS can stream it in chunks rather
+   * than receive one large base64 string. Resolves with {data, offset, length, size}, data being
+   * the base64 of the chunk; length is 0 once the end is reached. Rejects with E_CAPTURE_EVICTED
+   * if the capture was dropped because more than 64 MB or 256 handles were kept.
+   */
+  @ReactMethod
+  public void readCapture(final String handle, final double offset, final int length, final Promise promise) {
+    new GuardedAsyncTask<Void, Void>(getReactApplicationContext()) {
+      @Override
+      protected void doInBackgroundGuarded(Void... params) {
+        CaptureStore.Capture capture = CaptureStore.getInstance().get(handle);
+        if (capture == null) {
+          if (CaptureStore.getInstance().isEvicted(handle)) {
+            promise.reject("E_CAPTURE_EVICTED", "readCapture: the capture of handle " + handle
+                + " was evicted to make room for newer ones, release handles once they are read");
+          } else {
+            promise.reject("E_CAPTURE_NOT_FOUND", "readCapture: unknown or released handle " + handle);
+          }
+          return;
+        }
+        try {
+          byte[] chunk = capture.read((long) offset, Math.min(length, MAX_CAPTURE_CHUNK_SIZE));
+          WritableMap result = Arguments.createMap();
+          result.putString("data", Base64.encodeToString(chunk, Base64.NO_WRAP));
+          result.putDouble("offset", offset);
+          result.putInt("length", chunk.length);
+          result.putDouble("size", capture.getLength());
+          promise.resolve(result);
+        } catch (IOException e) {
+          promise.reject("E_CAPTURE_READ_FAILED", "readCapture: " + e.getMessage(), e);
+        }
+      }
+    }.executeOnExecutor(TaskExecutors.io());
+  }
+
+  /**
+   * Drops a capture handle. Captures kept in memory are freed, saved files stay where they are.
+   */
+  @ReactMethod
+  public void releaseCapture(final String handle, final Promise promise) {
+    promise.resolve(CaptureStore.getInstance().release(handle));
   }
 }
@@ -10,6 +10,8 @@ import com.facebook.react.uimanager.annotations.ReactProp;
 import com.google.android.cameraview.AspectRatio;
 import com.google.android.cameraview.Size;
 
+import org.reactnative.barcodescanner.ScanStrategy;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -28,6 +30,7 @@ public class CameraViewManager extends ViewGroupManager<RNCameraView> {
     EVENT_ON_PICTURE_SAVED("onPictureSaved"),
     EVENT_ON_RECORDING_START("onRecordingStart"),
     EVENT_ON_RECORDING_END("onRecordingEnd"),
+    EVENT_ON_RECORDING_SEGMENT("onRecordingSegment"),
     EVENT_ON_TOUCH("onTouch");
 
 
@@ -135,6 +138,11 @@ public class CameraViewManager extends ViewGroupManager<RNCameraView> {
     view.setPictureSize(size.equals("None") ? null : Size.parse(size));
   }
 
+  @ReactProp(name = "analysisSize")
+  public void setAnalysisSize(RNCameraView view, String size) {
+    view.setAnalysisSize(size.equals("None") ? null : Size.parse(size));
+  }
+
   @ReactProp(name = "playSoundOnCapture")
   public void setPlaySoundOnCapture(RNCameraView view, boolean playSoundOnCapture) {
     view.setPlaySoundOnCapture(playSoundOnCapture);
@@ -145,6 +153,23 @@ public class CameraViewManager extends ViewGroupManager<RNCameraView> {
     view.setPlaySoundOnRecord(playSoundOnRecord);
   }
 
+  @ReactProp(name = "videoReady")
+  public void setVideoReady(RNCameraView view, boolean videoReady) {
+    view.setVideoReady(videoReady);
+  }
+
+  @ReactProp(name = "preRollDuration", defaultInt = 0)
+  public void setPreRollDuration(RNCameraView view, int preRollDuration) {
+    view.setPreRollDuration(preRollDuration * 1000);
+  }
+
+  @ReactProp(name = "recordingEngine")
+  public void setRecordingEngine(RNCameraView view, String engine) {
+    view.setRecordingEngine("mediaCodec".equals(engine)
+        ? com.google.android.cameraview.Constants.RECORDING_ENGINE_MEDIA_CODEC
+        : com.google.android.cameraview.Constants.RECORDING_ENGINE_MEDIA_RECORDER);
+  }
+
   @ReactProp(name = "barCodeTypes")
   public void setBarCodeTypes(RNCameraView view, ReadableArray barCodeTypes) {
     if (barCodeTypes == null) {
@@ -157,6 +182,38 @@ public class CameraViewManager extends ViewGroupManager<RNCameraView> {
     view.setBarCodeTypes(result);
   }
 
+  @ReactProp(name = "barCodeScanPasses")
+  public void setBarCodeScanPasses(RNCameraView view, ReadableArray barCodeScanPasses) {
+    if (barCodeScanPasses == null) {
+      view.setBarCodeScanPasses(null);
+      return;
+    }
+    List<String> result = new ArrayList<>(barCodeScanPasses.size());
+    for (int i = 0; i < barCodeScanPasses.size(); i++) {
+      result.add(barCodeScanPasses.getString(i));
+    }
+    view.setBarCodeScanPasses(result);
+  }
+
+  @ReactProp(name = "barCodeScanStrategy")
+  public void setBarCodeScanStrategy(RNCameraView view, ReadableMap strategy) {
+    boolean adaptive = true;
+    int coldFrames = ScanStrategy.DEFAULT_COLD_FRAMES;
+    int exploreInterval = ScanStrategy.DEFAULT_EXPLORE_INTERVAL;
+    if (strategy != null) {
+      if (strategy.hasKey("adaptive")) {
+        adaptive = strategy.getBoolean("adaptive");
+      }
+      if (strategy.hasKey("coldFrames")) {
+        coldFrames = strategy.getInt("coldFrames");
+      }
+      if (strategy.hasKey("exploreInterval")) {
+        exploreInterval = strategy.getInt("exploreInterval");
+      }
+    }
+    view.setBarCodeScanStrategy(adaptive, coldFrames, exploreInterval);
+  }
+
   @ReactProp(name = "detectedImageInEvent")
   public void setDetectedImageInEvent(RNCameraView view, boolean detectedImageInEvent) {
     view.setDetectedImageInEvent(detectedImageInEvent);
@@ -167,6 +224,11 @@ public class CameraViewManager extends ViewGroupManager<RNCameraView> {
     view.setShouldScanBarCodes(barCodeScannerEnabled);
   }
 
+  @ReactProp(name = "barCodeScanFps", defaultFloat = 0f)
+  public void setBarCodeScanFps(RNCameraView view, float fps) {
+    view.setBarCodeScanFps(fps);
+  }
+
   @ReactProp(name = "useCamera2Api")
   public void setUseCamera2Api(RNCameraView view, boolean useCamera2Api) {
     view.setUsingCamera2Api(useCamera2Api);
@@ -182,6 +244,11 @@ public class CameraViewManager extends ViewGroupManager<RNCameraView> {
     view.setShouldDetectFaces(faceDetectorEnabled);
   }
 
+  @ReactProp(name = "faceDetectionFps", defaultFloat = 0f)
+  public void setFaceDetectionFps(RNCameraView view, float fps) {
+    view.setFaceDetectionFps(fps);
+  }
+
   @ReactProp(name = "faceDetectionMode")
   public void setFaceDetectionMode(RNCameraView view, int mode) {
     view.setFaceDetectionMode(mode);
@@ -217,11 +284,31 @@ public class CameraViewManager extends ViewGroupManager<RNCameraView> {
     view.setGoogleVisionBarcodeMode(barcodeMode);
   }
 
+  @ReactProp(name = "googleVisionBarcodeFps", defaultFloat = 0f)
+  public void setGoogleVisionBarcodeFps(RNCameraView view, float fps) {
+    view.setGoogleVisionBarcodeFps(fps);
+  }
+
   @ReactProp(name = "textRecognizerEnabled")
   public void setTextRecognizing(RNCameraView view, boolean textRecognizerEnabled) {
     view.setShouldRecognizeText(textRecognizerEnabled);
   }
 
+  @ReactProp(name = "textRecognitionFps", defaultFloat = 0f)
+  public void setTextRecognitionFps(RNCameraView view, float fps) {
+    view.setTextRecognitionFps(fps);
+  }
+
+  @ReactProp(name = "zsl", defaultBoolean = false)
+  public void setZsl(RNCameraView view, boolean zsl) {
+    view.setZsl(zsl);
+  }
+
+  @ReactProp(name = "zslFrameCount", defaultInt = RNCameraView.DEFAULT_ZSL_FRAME_COUNT)
+  public void setZslFrameCount(RNCameraView view, int frameCount) {
+    view.setZslFrameCount(frameCount);
+  }
+
   /**---limit scan area addition---**/
   @ReactProp(name = "rectOfInterest")
   public void setRectOfInterest(RNCameraView view, ReadableMap coordinates) {
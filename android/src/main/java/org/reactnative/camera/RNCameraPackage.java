@@ -8,6 +8,7 @@ import com.facebook.react.uimanager.ViewManager;
 import com.lwansbrough.RCTCamera.RCTCameraModule;
 import com.lwansbrough.RCTCamera.RCTCameraViewManager;
 
+import org.reactnative.camera.tasks.TaskExecutors;
 import org.reactnative.facedetector.FaceDetectorModule;
 
 import java.util.Arrays;
@@ -19,6 +20,16 @@ import java.util.List;
  */
 
 public class RNCameraPackage implements ReactPackage {
+    public RNCameraPackage() {
+    }
+
+    /**
+     * @param executorConfig Thread pool sizes and priorities for frame decoding and capture I/O.
+     */
+    public RNCameraPackage(TaskExecutors.Config executorConfig) {
+        TaskExecutors.configure(executorConfig);
+    }
+
     @Override
     public List<NativeModule> createNativeModules(ReactApplicationContext reactApplicationContext) {
         return Arrays.<NativeModule>asList(
@@ -11,6 +11,7 @@ import android.graphics.Rect;
 import android.graphics.YuvImage;
 import android.media.CamcorderProfile;
 import android.os.Build;
+import android.os.SystemClock;
 import androidx.core.content.ContextCompat;
 
 import android.util.DisplayMetrics;
@@ -22,14 +23,23 @@ import android.os.AsyncTask;
 import com.facebook.react.bridge.*;
 import com.facebook.react.uimanager.ThemedReactContext;
 import com.google.android.cameraview.CameraView;
+import com.google.android.cameraview.Size;
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.DecodeHintType;
 import com.google.zxing.MultiFormatReader;
 import com.google.zxing.Result;
 import org.reactnative.barcodedetector.RNBarcodeDetector;
+import org.reactnative.barcodescanner.ScanPass;
+import org.reactnative.barcodescanner.ScanStrategy;
 import org.reactnative.camera.tasks.*;
+import org.reactnative.camera.utils.FrameBufferPool;
+import org.reactnative.camera.utils.FrameDownscaler;
+import org.reactnative.camera.utils.PreviewFrame;
+import org.reactnative.camera.utils.RegionOfInterest;
 import org.reactnative.camera.utils.RNFileUtils;
+import org.reactnative.camera.utils.ZslFrameRing;
 import org.reactnative.facedetector.RNFaceDetector;
+import org.reactnative.textrecognizer.RNTextRecognizer;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -45,6 +55,20 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
   private Map<Promise, ReadableMap> mPictureTakenOptions = new ConcurrentHashMap<>();
   private Map<Promise, File> mPictureTakenDirectories = new ConcurrentHashMap<>();
   private Promise mVideoRecordedPromise;
+
+  // Burst capture, only one burst runs at a time
+  private static final int BURST_SAVE_QUEUE_SIZE = 3;
+  private Promise mBurstPromise;
+  private ReadableMap mBurstOptions;
+  private File mBurstCacheDirectory;
+  private PictureSaveQueue mBurstSaveQueue;
+
+  // Zero shutter lag capture, the ring is null while disabled
+  public static final int DEFAULT_ZSL_FRAME_COUNT = 3;
+  private volatile ZslFrameRing mZslRing;
+  private boolean mZslEnabled = false;
+  private int mZslFrameCount = DEFAULT_ZSL_FRAME_COUNT;
+
   private List<String> mBarCodeTypes = null;
   private boolean mDetectedImageInEvent = false;
 
@@ -59,16 +83,37 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
   private Boolean mIsRecordingInterrupted = false;
   private boolean mUseNativeZoom=false;
 
-  // Concurrency lock for scanners to avoid flooding the runtime
-  public volatile boolean barCodeScannerTaskLock = false;
-  public volatile boolean faceDetectorTaskLock = false;
-  public volatile boolean googleBarcodeDetectorTaskLock = false;
-  public volatile boolean textRecognizerTaskLock = false;
+  // One queue per detector so they don't flood the runtime nor wait on each other
+  private final FrameDispatcher mFrameDispatcher = new FrameDispatcher();
+  private FrameDispatcher.DetectorQueue mBarCodeScannerQueue;
+  private FrameDispatcher.DetectorQueue mFaceDetectorQueue;
+  private FrameDispatcher.DetectorQueue mGoogleBarcodeDetectorQueue;
+  private FrameDispatcher.DetectorQueue mTextRecognizerQueue;
+  private byte[] mInvertedImageData;
+
+  // Frames scaled down to the analysis size when the camera delivers them larger
+  private static final int ANALYSIS_BUFFER_COUNT = 3;
+  private final FrameBufferPool mAnalysisBuffers = new FrameBufferPool(ANALYSIS_BUFFER_COUNT);
+  private final PreviewFrame.Recycler mAnalysisRecycler = new PreviewFrame.Recycler() {
+    @Override
+    public void recycle(byte[] data) {
+      mAnalysisBuffers.release(data);
+    }
+  };
+  private final PreviewFrame.Recycler mFrameRecycler = new PreviewFrame.Recycler() {
+    @Override
+    public void recycle(byte[] data) {
+      releasePreviewBuffer(data);
+    }
+  };
 
   // Scanning-related properties
   private MultiFormatReader mMultiFormatReader;
+  private final ScanStrategy mBarCodeScanStrategy = new ScanStrategy();
+  private byte[] mLuminanceBuffer;
   private RNFaceDetector mFaceDetector;
   private RNBarcodeDetector mGoogleBarcodeDetector;
+  private RNTextRecognizer mTextRecognizer;
   private boolean mShouldDetectFaces = false;
   private boolean mShouldGoogleDetectBarcodes = false;
   private boolean mShouldScanBarCodes = false;
@@ -84,13 +129,16 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
   private int mPaddingY;
 
   // Limit Android Scan Area
+  private static final int REGION_BUFFER_COUNT = 3;
   private boolean mLimitScanArea = false;
-  private float mScanAreaX = 0.0f;
-  private float mScanAreaY = 0.0f;
-  private float mScanAreaWidth = 0.0f;
-  private float mScanAreaHeight = 0.0f;
-  private int mCameraViewWidth = 0;
-  private int mCameraViewHeight = 0;
+  private final RegionOfInterest mRegionOfInterest = new RegionOfInterest();
+  private final FrameBufferPool mRegionBuffers = new FrameBufferPool(REGION_BUFFER_COUNT);
+  private final PreviewFrame.Recycler mRegionRecycler = new PreviewFrame.Recycler() {
+    @Override
+    public void recycle(byte[] data) {
+      mRegionBuffers.release(data);
+    }
+  };
 
   public RNCameraView(ThemedReactContext themedReactContext) {
     super(themedReactContext, true);
@@ -111,21 +159,57 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
       @Override
       public void onPictureTaken(CameraView cameraView, final byte[] data, int deviceOrientation) {
         Promise promise = mPictureTakenPromises.poll();
+        if (promise == null) {
+          // nobody is waiting for this picture anymore
+          return;
+        }
         ReadableMap options = mPictureTakenOptions.remove(promise);
         if (options.hasKey("fastMode") && options.getBoolean("fastMode")) {
             promise.resolve(null);
         }
         final File cacheDirectory = mPictureTakenDirectories.remove(promise);
-        if(Build.VERSION.SDK_INT >= 11/*HONEYCOMB*/) {
-          new ResolveTakenPictureAsyncTask(data, promise, options, cacheDirectory, deviceOrientation, RNCameraView.this)
-                  .executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
-        } else {
-          new ResolveTakenPictureAsyncTask(data, promise, options, cacheDirectory, deviceOrientation, RNCameraView.this)
-                  .execute();
-        }
+        ResolveTakenPictureAsyncTask task = new ResolveTakenPictureAsyncTask(data, promise, options, cacheDirectory, deviceOrientation, RNCameraView.this);
+        task.setPreviewSize(getWidth(), getHeight());
+        task.executeOnExecutor(TaskExecutors.io());
         RNCameraViewHelper.emitPictureTakenEvent(cameraView);
       }
 
+      @Override
+      public void onBurstPictureTaken(CameraView cameraView, byte[] data, int deviceOrientation, int index) {
+        ResolveTakenPictureAsyncTask task = new ResolveTakenPictureAsyncTask(data, index, mBurstOptions, mBurstCacheDirectory, deviceOrientation, RNCameraView.this);
+        task.setPreviewSize(getWidth(), getHeight());
+        mBurstSaveQueue.submit(task);
+        RNCameraViewHelper.emitPictureTakenEvent(cameraView);
+      }
+
+      @Override
+      public boolean wantsBurstPicture(CameraView cameraView) {
+        PictureSaveQueue saveQueue = mBurstSaveQueue;
+        return saveQueue == null || saveQueue.hasRoom();
+      }
+
+      @Override
+      public void onBurstEnd(CameraView cameraView, final int count) {
+        final Promise promise = mBurstPromise;
+        PictureSaveQueue saveQueue = mBurstSaveQueue;
+        mBurstPromise = null;
+        mBurstOptions = null;
+        mBurstCacheDirectory = null;
+        mBurstSaveQueue = null;
+        if (promise == null) {
+          return;
+        }
+        // resolve once the last picture is on disk and its pictureSaved event went out
+        saveQueue.finish(new Runnable() {
+          @Override
+          public void run() {
+            WritableMap result = Arguments.createMap();
+            result.putInt("count", count);
+            promise.resolve(result);
+          }
+        });
+      }
+
       @Override
       public void onRecordingStart(CameraView cameraView, String path, int videoOrientation, int deviceOrientation) {
         WritableMap result = Arguments.createMap();
@@ -140,6 +224,14 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
         RNCameraViewHelper.emitRecordingEndEvent(cameraView);
       }
 
+      @Override
+      public void onRecordingSegment(CameraView cameraView, String path, int index) {
+        WritableMap result = Arguments.createMap();
+        result.putInt("index", index);
+        result.putString("uri", RNFileUtils.uriFromFile(new File(path)).toString());
+        RNCameraViewHelper.emitRecordingSegmentEvent(cameraView, result);
+      }
+
       @Override
       public void onVideoRecorded(CameraView cameraView, String path, int videoOrientation, int deviceOrientation) {
         if (mVideoRecordedPromise != null) {
@@ -159,60 +251,184 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
         }
       }
 
+      @Override
+      public boolean wantsFramePreview(CameraView cameraView) {
+        // disabled and throttled detectors drop the frame here, before the camera copies it
+        // anywhere. A busy detector still takes it, it replaces the frame waiting for it.
+        if (mFrameDispatcher.wantsFrame()) {
+          return true;
+        }
+        if (mZslRing != null) {
+          // the frame is still needed, onFramePreview counts it as skipped
+          return true;
+        }
+        mFrameDispatcher.skipFrame();
+        return false;
+      }
+
       @Override
       public void onFramePreview(CameraView cameraView, byte[] data, int width, int height, int rotation) {
-        int correctRotation = RNCameraViewHelper.getCorrectCameraRotation(rotation, getFacing(), getCameraOrientation());
-        boolean willCallBarCodeTask = mShouldScanBarCodes && !barCodeScannerTaskLock && cameraView instanceof BarCodeScannerAsyncTaskDelegate;
-        boolean willCallFaceTask = mShouldDetectFaces && !faceDetectorTaskLock && cameraView instanceof FaceDetectorAsyncTaskDelegate;
-        boolean willCallGoogleBarcodeTask = mShouldGoogleDetectBarcodes && !googleBarcodeDetectorTaskLock && cameraView instanceof BarcodeDetectorAsyncTaskDelegate;
-        boolean willCallTextTask = mShouldRecognizeText && !textRecognizerTaskLock && cameraView instanceof TextRecognizerAsyncTaskDelegate;
-        if (!willCallBarCodeTask && !willCallFaceTask && !willCallGoogleBarcodeTask && !willCallTextTask) {
+        if (data.length < (1.5 * width * height)) {
+          releasePreviewBuffer(data);
           return;
         }
 
-        if (data.length < (1.5 * width * height)) {
-            return;
+        int correctRotation = RNCameraViewHelper.getCorrectCameraRotation(rotation, getFacing(), getCameraOrientation());
+        ZslFrameRing zslRing = mZslRing;
+        if (zslRing != null) {
+          zslRing.offer(data, width, height, correctRotation, SystemClock.elapsedRealtime());
+        }
+        // asked again, the camera may deliver the frame from another thread than it asked on
+        if (!mFrameDispatcher.wantsFrame()) {
+          mFrameDispatcher.skipFrame();
+          releasePreviewBuffer(data);
+          return;
         }
 
-        if (willCallBarCodeTask) {
-          barCodeScannerTaskLock = true;
-          BarCodeScannerAsyncTaskDelegate delegate = (BarCodeScannerAsyncTaskDelegate) cameraView;
-          new BarCodeScannerAsyncTask(delegate, mMultiFormatReader, data, width, height, mLimitScanArea, mScanAreaX, mScanAreaY, mScanAreaWidth, mScanAreaHeight, mCameraViewWidth, mCameraViewHeight, getAspectRatio().toFloat()).execute();
+        PreviewFrame frame = downscaleToAnalysisSize(data, width, height, correctRotation);
+        if (frame == null) {
+          frame = new PreviewFrame(data, width, height, correctRotation, mFrameRecycler);
         }
+        PreviewFrame regionFrame = mLimitScanArea && mFrameDispatcher.wantsRegionFrame() ? cropToRegionOfInterest(frame) : null;
+        mFrameDispatcher.dispatch(frame, regionFrame);
+        // drop the references held while dispatching, the buffers are reused once every detector is done
+        frame.release();
+        if (regionFrame != null) {
+          regionFrame.release();
+        }
+      }
+    });
+
+    setupFrameDispatcher();
+  }
 
-        if (willCallFaceTask) {
-          faceDetectorTaskLock = true;
-          FaceDetectorAsyncTaskDelegate delegate = (FaceDetectorAsyncTaskDelegate) cameraView;
-          new FaceDetectorAsyncTask(delegate, mFaceDetector, data, width, height, correctRotation, getResources().getDisplayMetrics().density, getFacing(), getWidth(), getHeight(), mPaddingX, mPaddingY).execute();
+  /**
+   * Box-downscales frames larger than the analysis size into a pooled buffer and gives the camera
+   * buffer back right away. Camera1 always needs this, Camera2 only when no stream size fits.
+   *
+   * @return the downscaled frame, or null if the full frame has to be used
+   */
+  private PreviewFrame downscaleToAnalysisSize(byte[] data, int width, int height, int rotation) {
+    Size analysisSize = getAnalysisSize();
+    if (analysisSize == null) {
+      return null;
+    }
+    int factor = FrameDownscaler.getScaleFactor(width, height, analysisSize.getWidth(), analysisSize.getHeight());
+    if (factor <= 1) {
+      return null;
+    }
+    int scaledWidth = FrameDownscaler.getScaledWidth(width, factor);
+    int scaledHeight = FrameDownscaler.getScaledHeight(height, factor);
+    int bufferSize = RegionOfInterest.getNv21BufferSize(scaledWidth, scaledHeight);
+    if (mAnalysisBuffers.getBufferSize() != bufferSize) {
+      mAnalysisBuffers.reset(bufferSize);
+    }
+    byte[] buffer = mAnalysisBuffers.acquire();
+    if (buffer == null) {
+      return null;
+    }
+    FrameDownscaler.downscaleNv21(data, width, height, factor, buffer);
+    releasePreviewBuffer(data);
+    return new PreviewFrame(buffer, scaledWidth, scaledHeight, rotation, mAnalysisRecycler);
+  }
+
+  /**
+   * Copies the region of interest out of the frame, so the ML detectors only process what the user sees.
+   *
+   * @return the cropped frame, or null if the full frame has to be used instead
+   */
+  private PreviewFrame cropToRegionOfInterest(PreviewFrame frame) {
+    int width = frame.getWidth();
+    int height = frame.getHeight();
+    Rect crop = mRegionOfInterest.getNv21CropRect(width, height, getAspectRatio().toFloat());
+    if (crop.isEmpty() || (crop.width() == width && crop.height() == height)) {
+      return null;
+    }
+    int bufferSize = RegionOfInterest.getNv21BufferSize(crop.width(), crop.height());
+    if (mRegionBuffers.getBufferSize() != bufferSize) {
+      mRegionBuffers.reset(bufferSize);
+    }
+    byte[] buffer = mRegionBuffers.acquire();
+    if (buffer == null) {
+      // every region buffer is still in use, detectors fall back to the full frame
+      return null;
+    }
+    RegionOfInterest.cropNv21(frame.getData(), width, height, crop, buffer);
+    return new PreviewFrame(buffer, crop.width(), crop.height(), frame.getRotation(), crop, width, height, mRegionRecycler);
+  }
+
+  /**
+   * Preview frames are only copied out while a detector or the zero shutter lag ring needs them.
+   */
+  private void updateScanning() {
+    setScanning(mShouldDetectFaces || mShouldGoogleDetectBarcodes || mShouldScanBarCodes || mShouldRecognizeText || mZslRing != null);
+  }
+
+  private void setupFrameDispatcher() {
+    mBarCodeScannerQueue = mFrameDispatcher.addDetector(FrameDropPolicy.latestWins(), new FrameDispatcher.TaskFactory() {
+      @Override
+      public AsyncTask<Void, ?, ?> createTask(PreviewFrame frame) {
+        if (mMultiFormatReader == null) {
+          return null;
+        }
+        // only one scanner task runs at a time, so the luminance buffer can be reused
+        int area = frame.getWidth() * frame.getHeight();
+        if (mLuminanceBuffer == null || mLuminanceBuffer.length < area) {
+          mLuminanceBuffer = new byte[area];
         }
+        // ZXing crops while reading the luminance, it always gets the full frame
+        Rect scanArea = mLimitScanArea ? mRegionOfInterest.getFrameRect(frame.getWidth(), frame.getHeight(), getAspectRatio().toFloat()) : null;
+        return new BarCodeScannerAsyncTask(RNCameraView.this, mMultiFormatReader, frame.getData(), frame.getWidth(), frame.getHeight(),
+                scanArea, mBarCodeScanStrategy, mLuminanceBuffer);
+      }
+    });
 
-        if (willCallGoogleBarcodeTask) {
-          googleBarcodeDetectorTaskLock = true;
-          if (mGoogleVisionBarCodeMode == RNBarcodeDetector.NORMAL_MODE) {
-            invertImageData = false;
-          } else if (mGoogleVisionBarCodeMode == RNBarcodeDetector.ALTERNATE_MODE) {
-            invertImageData = !invertImageData;
-          } else if (mGoogleVisionBarCodeMode == RNBarcodeDetector.INVERTED_MODE) {
-            invertImageData = true;
-          }
-          if (invertImageData) {
-            for (int y = 0; y < data.length; y++) {
-              data[y] = (byte) ~data[y];
-            }
+    mFaceDetectorQueue = mFrameDispatcher.addDetector(FrameDropPolicy.latestWins(), new FrameDispatcher.TaskFactory() {
+      @Override
+      public AsyncTask<Void, ?, ?> createTask(PreviewFrame frame) {
+        return new FaceDetectorAsyncTask(RNCameraView.this, mFaceDetector, frame.getData(), frame.getWidth(), frame.getHeight(),
+                frame.getRotation(), getResources().getDisplayMetrics().density, getFacing(), getWidth(), getHeight(), mPaddingX, mPaddingY,
+                frame.getRegion(), frame.getSourceWidth(), frame.getSourceHeight());
+      }
+    });
+
+    mGoogleBarcodeDetectorQueue = mFrameDispatcher.addDetector(FrameDropPolicy.latestWins(), new FrameDispatcher.TaskFactory() {
+      @Override
+      public AsyncTask<Void, ?, ?> createTask(PreviewFrame frame) {
+        if (mGoogleVisionBarCodeMode == RNBarcodeDetector.NORMAL_MODE) {
+          invertImageData = false;
+        } else if (mGoogleVisionBarCodeMode == RNBarcodeDetector.ALTERNATE_MODE) {
+          invertImageData = !invertImageData;
+        } else if (mGoogleVisionBarCodeMode == RNBarcodeDetector.INVERTED_MODE) {
+          invertImageData = true;
+        }
+        byte[] invertedImageData = null;
+        if (invertImageData) {
+          // only one barcode detector task runs at a time, so the buffer can be reused
+          if (mInvertedImageData == null || mInvertedImageData.length < frame.getData().length) {
+            mInvertedImageData = new byte[frame.getData().length];
           }
-          BarcodeDetectorAsyncTaskDelegate delegate = (BarcodeDetectorAsyncTaskDelegate) cameraView;
-          new BarcodeDetectorAsyncTask(delegate, mGoogleBarcodeDetector, data, width, height,
-                  correctRotation, getResources().getDisplayMetrics().density, getFacing(),
-                  getWidth(), getHeight(), mPaddingX, mPaddingY).execute();
+          invertedImageData = mInvertedImageData;
         }
+        return new BarcodeDetectorAsyncTask(RNCameraView.this, mGoogleBarcodeDetector, frame.getData(), invertedImageData,
+                frame.getWidth(), frame.getHeight(), frame.getRotation(), getResources().getDisplayMetrics().density, getFacing(),
+                getWidth(), getHeight(), mPaddingX, mPaddingY, frame.getRegion(), frame.getSourceWidth(), frame.getSourceHeight());
+      }
+    });
 
-        if (willCallTextTask) {
-          textRecognizerTaskLock = true;
-          TextRecognizerAsyncTaskDelegate delegate = (TextRecognizerAsyncTaskDelegate) cameraView;
-          new TextRecognizerAsyncTask(delegate, data, width, height, correctRotation, getResources().getDisplayMetrics().density, getFacing(), getWidth(), getHeight(), mPaddingX, mPaddingY).execute();
-        }
+    mTextRecognizerQueue = mFrameDispatcher.addDetector(FrameDropPolicy.latestWins(), new FrameDispatcher.TaskFactory() {
+      @Override
+      public AsyncTask<Void, ?, ?> createTask(PreviewFrame frame) {
+        return new TextRecognizerAsyncTask(RNCameraView.this, mTextRecognizer, frame.getData(), frame.getWidth(), frame.getHeight(),
+                frame.getRotation(), getResources().getDisplayMetrics().density, getFacing(), getWidth(), getHeight(), mPaddingX, mPaddingY,
+                frame.getRegion(), frame.getSourceWidth(), frame.getSourceHeight());
       }
     });
+
+    // the ML Kit detectors get frames cropped to the rect of interest, if there is one
+    mFaceDetectorQueue.setUsesRegion(true);
+    mGoogleBarcodeDetectorQueue.setUsesRegion(true);
+    mTextRecognizerQueue.setUsesRegion(true);
   }
 
   @Override
@@ -268,6 +484,9 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
   }
 
   public void takePicture(final ReadableMap options, final Promise promise, final File cacheDirectory) {
+    if (options.hasKey("zsl") && options.getBoolean("zsl") && takeZslPicture(options, promise, cacheDirectory)) {
+      return;
+    }
     mBgHandler.post(new Runnable() {
       @Override
       public void run() {
@@ -288,6 +507,68 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
     });
   }
 
+  /**
+   * Saves the kept preview frame closest to now instead of starting a still capture. The frame
+   * is only as large as the preview frames, and is encoded on the io pool.
+   *
+   * @return false if no frame is kept, the picture then has to be taken the regular way
+   */
+  private boolean takeZslPicture(ReadableMap options, Promise promise, File cacheDirectory) {
+    ZslFrameRing zslRing = mZslRing;
+    PreviewFrame frame = zslRing != null ? zslRing.acquireClosest(SystemClock.elapsedRealtime()) : null;
+    if (frame == null) {
+      return false;
+    }
+    if (options.hasKey("fastMode") && options.getBoolean("fastMode")) {
+      promise.resolve(null);
+    }
+    ResolveTakenPictureAsyncTask task = new ResolveTakenPictureAsyncTask(frame, promise, options, cacheDirectory, getDeviceOrientation(), this);
+    task.setPreviewSize(getWidth(), getHeight());
+    task.executeOnExecutor(TaskExecutors.io());
+    RNCameraViewHelper.emitPictureTakenEvent(this);
+    if (options.hasKey("pauseAfterCapture") && options.getBoolean("pauseAfterCapture")) {
+      pausePreview();
+    }
+    return true;
+  }
+
+  /**
+   * Takes options.count pictures, at least options.interval ms apart, without pausing the preview.
+   * Every picture is saved like takePicture would and reported through a pictureSaved event
+   * carrying its index. The promise resolves once all of them are saved.
+   */
+  public void takeBurst(final ReadableMap options, final Promise promise, final File cacheDirectory) {
+    mBgHandler.post(new Runnable() {
+      @Override
+      public void run() {
+        if (mBurstPromise != null) {
+          promise.reject("E_TAKE_BURST_FAILED", "Another burst is in progress.");
+          return;
+        }
+        int count = options.hasKey("count") ? options.getInt("count") : 1;
+        int interval = options.hasKey("interval") ? options.getInt("interval") : 0;
+        if (count < 1) {
+          promise.reject("E_TAKE_BURST_FAILED", "count must be at least 1.");
+          return;
+        }
+
+        mBurstPromise = promise;
+        mBurstOptions = options;
+        mBurstCacheDirectory = cacheDirectory;
+        mBurstSaveQueue = new PictureSaveQueue(BURST_SAVE_QUEUE_SIZE);
+        try {
+          RNCameraView.super.takeBurst(options, count, interval);
+        } catch (Exception e) {
+          mBurstPromise = null;
+          mBurstOptions = null;
+          mBurstCacheDirectory = null;
+          mBurstSaveQueue = null;
+          promise.reject("E_TAKE_BURST_FAILED", e.getMessage());
+        }
+      }
+    });
+  }
+
   @Override
   public void onPictureSaved(WritableMap response) {
     RNCameraViewHelper.emitPictureSavedEvent(this, response);
@@ -321,6 +602,12 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
             orientation = options.getInt("orientation");
           }
 
+          // only used by the MediaCodec recording engine
+          setVideoCodec(options.hasKey("codec") ? options.getString("codec") : null);
+          int segmentDuration = options.hasKey("segmentDuration") ? options.getInt("segmentDuration") : 0;
+          int segmentFileSize = options.hasKey("segmentFileSize") ? options.getInt("segmentFileSize") : 0;
+          setVideoSegments(segmentDuration * 1000, segmentFileSize);
+
           if (RNCameraView.super.record(path, maxDuration * 1000, maxFileSize, recordAudio, profile, orientation, fps)) {
             mIsRecording = true;
             mVideoRecordedPromise = promise;
@@ -362,7 +649,29 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
       initBarcodeReader();
     }
     this.mShouldScanBarCodes = shouldScanBarCodes;
-    setScanning(mShouldDetectFaces || mShouldGoogleDetectBarcodes || mShouldScanBarCodes || mShouldRecognizeText);
+    mBarCodeScannerQueue.setEnabled(shouldScanBarCodes);
+    updateScanning();
+  }
+
+  /**
+   * Orientation/inversion passes tried on every frame, in order, e.g. ["normal", "inverted"].
+   */
+  public void setBarCodeScanPasses(List<String> passes) {
+    mBarCodeScanStrategy.setPasses(passes == null ? ScanPass.DEFAULT_PASSES : ScanPass.fromNames(passes));
+  }
+
+  /**
+   * @see ScanStrategy#setAdaptive(boolean, int, int)
+   */
+  public void setBarCodeScanStrategy(boolean adaptive, int coldFrames, int exploreInterval) {
+    mBarCodeScanStrategy.setAdaptive(adaptive, coldFrames, exploreInterval);
+  }
+
+  /**
+   * Caps how often the barcode scanner runs, 0 runs it on every frame it can keep up with.
+   */
+  public void setBarCodeScanFps(float fps) {
+    mBarCodeScannerQueue.setPolicy(FrameDropPolicy.targetFps(fps));
   }
 
   public void onBarCodeRead(Result barCode, int width, int height, byte[] imageData) {
@@ -390,23 +699,19 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
   }
 
   public void onBarCodeScanningTaskCompleted() {
-    barCodeScannerTaskLock = false;
     if(mMultiFormatReader != null) {
       mMultiFormatReader.reset();
     }
+    mBarCodeScannerQueue.onTaskCompleted();
   }
 
   // Limit Scan Area
   public void setRectOfInterest(float x, float y, float width, float height) {
     this.mLimitScanArea = true;
-    this.mScanAreaX = x;
-    this.mScanAreaY = y;
-    this.mScanAreaWidth = width;
-    this.mScanAreaHeight = height;
+    mRegionOfInterest.set(x, y, width, height);
   }
   public void setCameraViewDimensions(int width, int height) {
-    this.mCameraViewWidth = width;
-    this.mCameraViewHeight = height;
+    mRegionOfInterest.setCameraViewDimensions(width, height);
   }
 
 
@@ -478,12 +783,20 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
     }
   }
 
+  /**
+   * Caps how often faces are detected, 0 runs the detector on every frame it can keep up with.
+   */
+  public void setFaceDetectionFps(float fps) {
+    mFaceDetectorQueue.setPolicy(FrameDropPolicy.targetFps(fps));
+  }
+
   public void setShouldDetectFaces(boolean shouldDetectFaces) {
     if (shouldDetectFaces && mFaceDetector == null) {
       setupFaceDetector();
     }
     this.mShouldDetectFaces = shouldDetectFaces;
-    setScanning(mShouldDetectFaces || mShouldGoogleDetectBarcodes || mShouldScanBarCodes || mShouldRecognizeText);
+    mFaceDetectorQueue.setEnabled(shouldDetectFaces);
+    updateScanning();
   }
 
   public void onFacesDetected(WritableArray data) {
@@ -504,7 +817,7 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
 
   @Override
   public void onFaceDetectingTaskCompleted() {
-    faceDetectorTaskLock = false;
+    mFaceDetectorQueue.onTaskCompleted();
   }
 
   /**
@@ -520,7 +833,8 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
       setupBarcodeDetector();
     }
     this.mShouldGoogleDetectBarcodes = shouldDetectBarcodes;
-    setScanning(mShouldDetectFaces || mShouldGoogleDetectBarcodes || mShouldScanBarCodes || mShouldRecognizeText);
+    mGoogleBarcodeDetectorQueue.setEnabled(shouldDetectBarcodes);
+    updateScanning();
   }
 
   public void setGoogleVisionBarcodeType(int barcodeType) {
@@ -534,6 +848,13 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
     mGoogleVisionBarCodeMode = barcodeMode;
   }
 
+  /**
+   * Caps how often barcodes are detected, 0 runs the detector on every frame it can keep up with.
+   */
+  public void setGoogleVisionBarcodeFps(float fps) {
+    mGoogleBarcodeDetectorQueue.setPolicy(FrameDropPolicy.targetFps(fps));
+  }
+
   public void onBarcodesDetected(WritableArray barcodesDetected, int width, int height, byte[] imageData) {
     if (!mShouldGoogleDetectBarcodes) {
       return;
@@ -568,7 +889,7 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
 
   @Override
   public void onBarcodeDetectingTaskCompleted() {
-    googleBarcodeDetectorTaskLock = false;
+    mGoogleBarcodeDetectorQueue.onTaskCompleted();
   }
 
   /**
@@ -577,8 +898,19 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
    */
 
   public void setShouldRecognizeText(boolean shouldRecognizeText) {
+    if (shouldRecognizeText && mTextRecognizer == null) {
+      mTextRecognizer = new RNTextRecognizer();
+    }
     this.mShouldRecognizeText = shouldRecognizeText;
-    setScanning(mShouldDetectFaces || mShouldGoogleDetectBarcodes || mShouldScanBarCodes || mShouldRecognizeText);
+    mTextRecognizerQueue.setEnabled(shouldRecognizeText);
+    updateScanning();
+  }
+
+  /**
+   * Caps how often text is recognized, 0 runs the recognizer on every frame it can keep up with.
+   */
+  public void setTextRecognitionFps(float fps) {
+    mTextRecognizerQueue.setPolicy(FrameDropPolicy.targetFps(fps));
   }
 
   public void onTextRecognized(WritableArray serializedData) {
@@ -591,13 +923,43 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
 
   @Override
   public void onTextRecognizerTaskCompleted() {
-    textRecognizerTaskLock = false;
+    mTextRecognizerQueue.onTaskCompleted();
   }
 
   /**
   *
   * End Text Recognition */
 
+  /**
+   * Keeps copying preview frames for takePicture({zsl: true}) while enabled. Every frame is
+   * copied into the ring, so it is off unless asked for.
+   */
+  public void setZsl(boolean zsl) {
+    mZslEnabled = zsl;
+    updateZslRing();
+  }
+
+  /**
+   * Number of preview frames kept while zero shutter lag capture is enabled, 0 frees them.
+   */
+  public void setZslFrameCount(int frameCount) {
+    mZslFrameCount = frameCount;
+    updateZslRing();
+  }
+
+  private void updateZslRing() {
+    int frameCount = mZslEnabled ? mZslFrameCount : 0;
+    ZslFrameRing zslRing = mZslRing;
+    if (zslRing != null && zslRing.getCapacity() == frameCount) {
+      return;
+    }
+    mZslRing = frameCount > 0 ? new ZslFrameRing(frameCount) : null;
+    if (zslRing != null) {
+      zslRing.clear();
+    }
+    updateScanning();
+  }
+
   @Override
   public void onHostResume() {
     if (hasCameraPermissions()) {
@@ -625,6 +987,10 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
       mIsPaused = true;
       stop();
     }
+    // frames from before the pause must not end up in a picture taken after it
+    if (mZslRing != null) {
+      mZslRing.clear();
+    }
   }
 
   @Override
@@ -635,7 +1001,14 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
     if (mGoogleBarcodeDetector != null) {
       mGoogleBarcodeDetector.release();
     }
+    if (mTextRecognizer != null) {
+      mTextRecognizer.release();
+    }
     mMultiFormatReader = null;
+    mFrameDispatcher.clear();
+    if (mZslRing != null) {
+      mZslRing.clear();
+    }
     mThemedReactContext.removeLifecycleEventListener(this);
 
     // camera release can be quite expensive. Run in on bg handler
@@ -17,6 +17,7 @@ import com.facebook.react.uimanager.UIManagerModule;
 import com.google.android.cameraview.CameraView;
 import com.google.zxing.Result;
 import org.reactnative.camera.events.*;
+import org.reactnative.camera.utils.JpegExifWriter;
 import org.reactnative.barcodedetector.RNBarcodeDetector;
 import org.reactnative.facedetector.RNFaceDetector;
 
@@ -25,136 +26,161 @@ import java.util.Calendar;
 
 public class RNCameraViewHelper {
 
-  public static final String[][] exifTags = new String[][]{
-      {"string", ExifInterface.TAG_ARTIST},
-      {"int", ExifInterface.TAG_BITS_PER_SAMPLE},
-      {"int", ExifInterface.TAG_COMPRESSION},
-      {"string", ExifInterface.TAG_COPYRIGHT},
-      {"string", ExifInterface.TAG_DATETIME},
-      {"string", ExifInterface.TAG_IMAGE_DESCRIPTION},
-      {"int", ExifInterface.TAG_IMAGE_LENGTH},
-      {"int", ExifInterface.TAG_IMAGE_WIDTH},
-      {"int", ExifInterface.TAG_JPEG_INTERCHANGE_FORMAT},
-      {"int", ExifInterface.TAG_JPEG_INTERCHANGE_FORMAT_LENGTH},
-      {"string", ExifInterface.TAG_MAKE},
-      {"string", ExifInterface.TAG_MODEL},
-      {"int", ExifInterface.TAG_ORIENTATION},
-      {"int", ExifInterface.TAG_PHOTOMETRIC_INTERPRETATION},
-      {"int", ExifInterface.TAG_PLANAR_CONFIGURATION},
-      {"double", ExifInterface.TAG_PRIMARY_CHROMATICITIES},
-      {"double", ExifInterface.TAG_REFERENCE_BLACK_WHITE},
-      {"int", ExifInterface.TAG_RESOLUTION_UNIT},
-      {"int", ExifInterface.TAG_ROWS_PER_STRIP},
-      {"int", ExifInterface.TAG_SAMPLES_PER_PIXEL},
-      {"string", ExifInterface.TAG_SOFTWARE},
-      {"int", ExifInterface.TAG_STRIP_BYTE_COUNTS},
-      {"int", ExifInterface.TAG_STRIP_OFFSETS},
-      {"int", ExifInterface.TAG_TRANSFER_FUNCTION},
-      {"double", ExifInterface.TAG_WHITE_POINT},
-      {"double", ExifInterface.TAG_X_RESOLUTION},
-      {"double", ExifInterface.TAG_Y_CB_CR_COEFFICIENTS},
-      {"int", ExifInterface.TAG_Y_CB_CR_POSITIONING},
-      {"int", ExifInterface.TAG_Y_CB_CR_SUB_SAMPLING},
-      {"double", ExifInterface.TAG_Y_RESOLUTION},
-      {"double", ExifInterface.TAG_APERTURE_VALUE},
-      {"double", ExifInterface.TAG_BRIGHTNESS_VALUE},
-      {"string", ExifInterface.TAG_CFA_PATTERN},
-      {"int", ExifInterface.TAG_COLOR_SPACE},
-      {"string", ExifInterface.TAG_COMPONENTS_CONFIGURATION},
-      {"double", ExifInterface.TAG_COMPRESSED_BITS_PER_PIXEL},
-      {"int", ExifInterface.TAG_CONTRAST},
-      {"int", ExifInterface.TAG_CUSTOM_RENDERED},
-      {"string", ExifInterface.TAG_DATETIME_DIGITIZED},
-      {"string", ExifInterface.TAG_DATETIME_ORIGINAL},
-      {"string", ExifInterface.TAG_DEVICE_SETTING_DESCRIPTION},
-      {"double", ExifInterface.TAG_DIGITAL_ZOOM_RATIO},
-      {"string", ExifInterface.TAG_EXIF_VERSION},
-      {"double", ExifInterface.TAG_EXPOSURE_BIAS_VALUE},
-      {"double", ExifInterface.TAG_EXPOSURE_INDEX},
-      {"int", ExifInterface.TAG_EXPOSURE_MODE},
-      {"int", ExifInterface.TAG_EXPOSURE_PROGRAM},
-      {"double", ExifInterface.TAG_EXPOSURE_TIME},
-      {"double", ExifInterface.TAG_F_NUMBER},
-      {"string", ExifInterface.TAG_FILE_SOURCE},
-      {"int", ExifInterface.TAG_FLASH},
-      {"double", ExifInterface.TAG_FLASH_ENERGY},
-      {"string", ExifInterface.TAG_FLASHPIX_VERSION},
-      {"double", ExifInterface.TAG_FOCAL_LENGTH},
-      {"int", ExifInterface.TAG_FOCAL_LENGTH_IN_35MM_FILM},
-      {"int", ExifInterface.TAG_FOCAL_PLANE_RESOLUTION_UNIT},
-      {"double", ExifInterface.TAG_FOCAL_PLANE_X_RESOLUTION},
-      {"double", ExifInterface.TAG_FOCAL_PLANE_Y_RESOLUTION},
-      {"int", ExifInterface.TAG_GAIN_CONTROL},
-      {"int", ExifInterface.TAG_ISO_SPEED_RATINGS},
-      {"string", ExifInterface.TAG_IMAGE_UNIQUE_ID},
-      {"int", ExifInterface.TAG_LIGHT_SOURCE},
-      {"string", ExifInterface.TAG_MAKER_NOTE},
-      {"double", ExifInterface.TAG_MAX_APERTURE_VALUE},
-      {"int", ExifInterface.TAG_METERING_MODE},
-      {"int", ExifInterface.TAG_NEW_SUBFILE_TYPE},
-      {"string", ExifInterface.TAG_OECF},
-      {"int", ExifInterface.TAG_PIXEL_X_DIMENSION},
-      {"int", ExifInterface.TAG_PIXEL_Y_DIMENSION},
-      {"string", ExifInterface.TAG_RELATED_SOUND_FILE},
-      {"int", ExifInterface.TAG_SATURATION},
-      {"int", ExifInterface.TAG_SCENE_CAPTURE_TYPE},
-      {"string", ExifInterface.TAG_SCENE_TYPE},
-      {"int", ExifInterface.TAG_SENSING_METHOD},
-      {"int", ExifInterface.TAG_SHARPNESS},
-      {"double", ExifInterface.TAG_SHUTTER_SPEED_VALUE},
-      {"string", ExifInterface.TAG_SPATIAL_FREQUENCY_RESPONSE},
-      {"string", ExifInterface.TAG_SPECTRAL_SENSITIVITY},
-      {"int", ExifInterface.TAG_SUBFILE_TYPE},
-      {"string", ExifInterface.TAG_SUBSEC_TIME},
-      {"string", ExifInterface.TAG_SUBSEC_TIME_DIGITIZED},
-      {"string", ExifInterface.TAG_SUBSEC_TIME_ORIGINAL},
-      {"int", ExifInterface.TAG_SUBJECT_AREA},
-      {"double", ExifInterface.TAG_SUBJECT_DISTANCE},
-      {"int", ExifInterface.TAG_SUBJECT_DISTANCE_RANGE},
-      {"int", ExifInterface.TAG_SUBJECT_LOCATION},
-      {"string", ExifInterface.TAG_USER_COMMENT},
-      {"int", ExifInterface.TAG_WHITE_BALANCE},
-      {"int", ExifInterface.TAG_GPS_ALTITUDE_REF},
-      {"string", ExifInterface.TAG_GPS_AREA_INFORMATION},
-      {"double", ExifInterface.TAG_GPS_DOP},
-      {"string", ExifInterface.TAG_GPS_DATESTAMP},
-      {"double", ExifInterface.TAG_GPS_DEST_BEARING},
-      {"string", ExifInterface.TAG_GPS_DEST_BEARING_REF},
-      {"double", ExifInterface.TAG_GPS_DEST_DISTANCE},
-      {"string", ExifInterface.TAG_GPS_DEST_DISTANCE_REF},
-      {"double", ExifInterface.TAG_GPS_DEST_LATITUDE},
-      {"string", ExifInterface.TAG_GPS_DEST_LATITUDE_REF},
-      {"double", ExifInterface.TAG_GPS_DEST_LONGITUDE},
-      {"string", ExifInterface.TAG_GPS_DEST_LONGITUDE_REF},
-      {"int", ExifInterface.TAG_GPS_DIFFERENTIAL},
-      {"double", ExifInterface.TAG_GPS_IMG_DIRECTION},
-      {"string", ExifInterface.TAG_GPS_IMG_DIRECTION_REF},
-      {"string", ExifInterface.TAG_GPS_LATITUDE_REF},
-      {"string", ExifInterface.TAG_GPS_LONGITUDE_REF},
-      {"string", ExifInterface.TAG_GPS_MAP_DATUM},
-      {"string", ExifInterface.TAG_GPS_MEASURE_MODE},
-      {"string", ExifInterface.TAG_GPS_PROCESSING_METHOD},
-      {"string", ExifInterface.TAG_GPS_SATELLITES},
-      {"double", ExifInterface.TAG_GPS_SPEED},
-      {"string", ExifInterface.TAG_GPS_SPEED_REF},
-      {"string", ExifInterface.TAG_GPS_STATUS},
-      {"string", ExifInterface.TAG_GPS_TIMESTAMP},
-      {"double", ExifInterface.TAG_GPS_TRACK},
-      {"string", ExifInterface.TAG_GPS_TRACK_REF},
-      {"string", ExifInterface.TAG_GPS_VERSION_ID},
-      {"string", ExifInterface.TAG_INTEROPERABILITY_INDEX},
-      {"int", ExifInterface.TAG_THUMBNAIL_IMAGE_LENGTH},
-      {"int", ExifInterface.TAG_THUMBNAIL_IMAGE_WIDTH},
-      {"int", ExifInterface.TAG_DNG_VERSION},
-      {"int", ExifInterface.TAG_DEFAULT_CROP_SIZE},
-      {"int", ExifInterface.TAG_ORF_PREVIEW_IMAGE_START},
-      {"int", ExifInterface.TAG_ORF_PREVIEW_IMAGE_LENGTH},
-      {"int", ExifInterface.TAG_ORF_ASPECT_FRAME},
-      {"int", ExifInterface.TAG_RW2_SENSOR_BOTTOM_BORDER},
-      {"int", ExifInterface.TAG_RW2_SENSOR_LEFT_BORDER},
-      {"int", ExifInterface.TAG_RW2_SENSOR_RIGHT_BORDER},
-      {"int", ExifInterface.TAG_RW2_SENSOR_TOP_BORDER},
-      {"int", ExifInterface.TAG_RW2_ISO},
+  /**
+   * A tag exposed to JS, read and written through {@link ExifInterface} as a string, int or
+   * double. Tags {@link JpegExifWriter} can write also carry their TIFF id, IFD and field type.
+   */
+  public static class ExifTag {
+    public final String type;
+    public final String name;
+    // 0 for the tags JpegExifWriter leaves out
+    public final int id;
+    public final int ifd;
+    public final int fieldType;
+
+    ExifTag(String type, String name) {
+      this(type, name, 0, 0, 0);
+    }
+
+    ExifTag(String type, String name, int id, int ifd, int fieldType) {
+      this.type = type;
+      this.name = name;
+      this.id = id;
+      this.ifd = ifd;
+      this.fieldType = fieldType;
+    }
+  }
+
+  public static final ExifTag[] exifTags = new ExifTag[]{
+      new ExifTag("string", ExifInterface.TAG_ARTIST, 0x013B, JpegExifWriter.IFD_0, JpegExifWriter.TYPE_ASCII),
+      new ExifTag("int", ExifInterface.TAG_BITS_PER_SAMPLE),
+      new ExifTag("int", ExifInterface.TAG_COMPRESSION),
+      new ExifTag("string", ExifInterface.TAG_COPYRIGHT, 0x8298, JpegExifWriter.IFD_0, JpegExifWriter.TYPE_ASCII),
+      new ExifTag("string", ExifInterface.TAG_DATETIME, 0x0132, JpegExifWriter.IFD_0, JpegExifWriter.TYPE_ASCII),
+      new ExifTag("string", ExifInterface.TAG_IMAGE_DESCRIPTION, 0x010E, JpegExifWriter.IFD_0, JpegExifWriter.TYPE_ASCII),
+      new ExifTag("int", ExifInterface.TAG_IMAGE_LENGTH, 0x0101, JpegExifWriter.IFD_0, JpegExifWriter.TYPE_LONG),
+      new ExifTag("int", ExifInterface.TAG_IMAGE_WIDTH, 0x0100, JpegExifWriter.IFD_0, JpegExifWriter.TYPE_LONG),
+      new ExifTag("int", ExifInterface.TAG_JPEG_INTERCHANGE_FORMAT),
+      new ExifTag("int", ExifInterface.TAG_JPEG_INTERCHANGE_FORMAT_LENGTH),
+      new ExifTag("string", ExifInterface.TAG_MAKE, 0x010F, JpegExifWriter.IFD_0, JpegExifWriter.TYPE_ASCII),
+      new ExifTag("string", ExifInterface.TAG_MODEL, 0x0110, JpegExifWriter.IFD_0, JpegExifWriter.TYPE_ASCII),
+      new ExifTag("int", ExifInterface.TAG_ORIENTATION, 0x0112, JpegExifWriter.IFD_0, JpegExifWriter.TYPE_SHORT),
+      new ExifTag("int", ExifInterface.TAG_PHOTOMETRIC_INTERPRETATION),
+      new ExifTag("int", ExifInterface.TAG_PLANAR_CONFIGURATION),
+      new ExifTag("double", ExifInterface.TAG_PRIMARY_CHROMATICITIES),
+      new ExifTag("double", ExifInterface.TAG_REFERENCE_BLACK_WHITE),
+      new ExifTag("int", ExifInterface.TAG_RESOLUTION_UNIT, 0x0128, JpegExifWriter.IFD_0, JpegExifWriter.TYPE_SHORT),
+      new ExifTag("int", ExifInterface.TAG_ROWS_PER_STRIP),
+      new ExifTag("int", ExifInterface.TAG_SAMPLES_PER_PIXEL),
+      new ExifTag("string", ExifInterface.TAG_SOFTWARE, 0x0131, JpegExifWriter.IFD_0, JpegExifWriter.TYPE_ASCII),
+      new ExifTag("int", ExifInterface.TAG_STRIP_BYTE_COUNTS),
+      new ExifTag("int", ExifInterface.TAG_STRIP_OFFSETS),
+      new ExifTag("int", ExifInterface.TAG_TRANSFER_FUNCTION),
+      new ExifTag("double", ExifInterface.TAG_WHITE_POINT),
+      new ExifTag("double", ExifInterface.TAG_X_RESOLUTION, 0x011A, JpegExifWriter.IFD_0, JpegExifWriter.TYPE_RATIONAL),
+      new ExifTag("double", ExifInterface.TAG_Y_CB_CR_COEFFICIENTS),
+      new ExifTag("int", ExifInterface.TAG_Y_CB_CR_POSITIONING, 0x0213, JpegExifWriter.IFD_0, JpegExifWriter.TYPE_SHORT),
+      new ExifTag("int", ExifInterface.TAG_Y_CB_CR_SUB_SAMPLING),
+      new ExifTag("double", ExifInterface.TAG_Y_RESOLUTION, 0x011B, JpegExifWriter.IFD_0, JpegExifWriter.TYPE_RATIONAL),
+      new ExifTag("double", ExifInterface.TAG_APERTURE_VALUE, 0x9202, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_RATIONAL),
+      new ExifTag("double", ExifInterface.TAG_BRIGHTNESS_VALUE, 0x9203, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_SRATIONAL),
+      new ExifTag("string", ExifInterface.TAG_CFA_PATTERN),
+      new ExifTag("int", ExifInterface.TAG_COLOR_SPACE, 0xA001, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_SHORT),
+      new ExifTag("string", ExifInterface.TAG_COMPONENTS_CONFIGURATION),
+      new ExifTag("double", ExifInterface.TAG_COMPRESSED_BITS_PER_PIXEL, 0x9102, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_RATIONAL),
+      new ExifTag("int", ExifInterface.TAG_CONTRAST, 0xA408, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_SHORT),
+      new ExifTag("int", ExifInterface.TAG_CUSTOM_RENDERED, 0xA401, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_SHORT),
+      new ExifTag("string", ExifInterface.TAG_DATETIME_DIGITIZED, 0x9004, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_ASCII),
+      new ExifTag("string", ExifInterface.TAG_DATETIME_ORIGINAL, 0x9003, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_ASCII),
+      new ExifTag("string", ExifInterface.TAG_DEVICE_SETTING_DESCRIPTION),
+      new ExifTag("double", ExifInterface.TAG_DIGITAL_ZOOM_RATIO, 0xA404, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_RATIONAL),
+      new ExifTag("string", ExifInterface.TAG_EXIF_VERSION, 0x9000, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_VERSION),
+      new ExifTag("double", ExifInterface.TAG_EXPOSURE_BIAS_VALUE, 0x9204, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_SRATIONAL),
+      new ExifTag("double", ExifInterface.TAG_EXPOSURE_INDEX, 0xA215, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_RATIONAL),
+      new ExifTag("int", ExifInterface.TAG_EXPOSURE_MODE, 0xA402, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_SHORT),
+      new ExifTag("int", ExifInterface.TAG_EXPOSURE_PROGRAM, 0x8822, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_SHORT),
+      new ExifTag("double", ExifInterface.TAG_EXPOSURE_TIME, 0x829A, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_RATIONAL),
+      new ExifTag("double", ExifInterface.TAG_F_NUMBER, 0x829D, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_RATIONAL),
+      new ExifTag("string", ExifInterface.TAG_FILE_SOURCE),
+      new ExifTag("int", ExifInterface.TAG_FLASH, 0x9209, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_SHORT),
+      new ExifTag("double", ExifInterface.TAG_FLASH_ENERGY, 0xA20B, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_RATIONAL),
+      new ExifTag("string", ExifInterface.TAG_FLASHPIX_VERSION, 0xA000, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_VERSION),
+      new ExifTag("double", ExifInterface.TAG_FOCAL_LENGTH, 0x920A, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_RATIONAL),
+      new ExifTag("int", ExifInterface.TAG_FOCAL_LENGTH_IN_35MM_FILM, 0xA405, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_SHORT),
+      new ExifTag("int", ExifInterface.TAG_FOCAL_PLANE_RESOLUTION_UNIT, 0xA210, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_SHORT),
+      new ExifTag("double", ExifInterface.TAG_FOCAL_PLANE_X_RESOLUTION, 0xA20E, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_RATIONAL),
+      new ExifTag("double", ExifInterface.TAG_FOCAL_PLANE_Y_RESOLUTION, 0xA20F, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_RATIONAL),
+      new ExifTag("int", ExifInterface.TAG_GAIN_CONTROL, 0xA407, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_SHORT),
+      new ExifTag("int", ExifInterface.TAG_ISO_SPEED_RATINGS, 0x8827, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_SHORT),
+      new ExifTag("string", ExifInterface.TAG_IMAGE_UNIQUE_ID, 0xA420, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_ASCII),
+      new ExifTag("int", ExifInterface.TAG_LIGHT_SOURCE, 0x9208, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_SHORT),
+      new ExifTag("string", ExifInterface.TAG_MAKER_NOTE),
+      new ExifTag("double", ExifInterface.TAG_MAX_APERTURE_VALUE, 0x9205, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_RATIONAL),
+      new ExifTag("int", ExifInterface.TAG_METERING_MODE, 0x9207, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_SHORT),
+      new ExifTag("int", ExifInterface.TAG_NEW_SUBFILE_TYPE),
+      new ExifTag("string", ExifInterface.TAG_OECF),
+      new ExifTag("int", ExifInterface.TAG_PIXEL_X_DIMENSION, 0xA002, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_LONG),
+      new ExifTag("int", ExifInterface.TAG_PIXEL_Y_DIMENSION, 0xA003, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_LONG),
+      new ExifTag("string", ExifInterface.TAG_RELATED_SOUND_FILE, 0xA004, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_ASCII),
+      new ExifTag("int", ExifInterface.TAG_SATURATION, 0xA409, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_SHORT),
+      new ExifTag("int", ExifInterface.TAG_SCENE_CAPTURE_TYPE, 0xA406, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_SHORT),
+      new ExifTag("string", ExifInterface.TAG_SCENE_TYPE),
+      new ExifTag("int", ExifInterface.TAG_SENSING_METHOD, 0xA217, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_SHORT),
+      new ExifTag("int", ExifInterface.TAG_SHARPNESS, 0xA40A, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_SHORT),
+      new ExifTag("double", ExifInterface.TAG_SHUTTER_SPEED_VALUE, 0x9201, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_SRATIONAL),
+      new ExifTag("string", ExifInterface.TAG_SPATIAL_FREQUENCY_RESPONSE),
+      new ExifTag("string", ExifInterface.TAG_SPECTRAL_SENSITIVITY, 0x8824, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_ASCII),
+      new ExifTag("int", ExifInterface.TAG_SUBFILE_TYPE),
+      new ExifTag("string", ExifInterface.TAG_SUBSEC_TIME, 0x9290, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_ASCII),
+      new ExifTag("string", ExifInterface.TAG_SUBSEC_TIME_DIGITIZED, 0x9292, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_ASCII),
+      new ExifTag("string", ExifInterface.TAG_SUBSEC_TIME_ORIGINAL, 0x9291, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_ASCII),
+      new ExifTag("int", ExifInterface.TAG_SUBJECT_AREA),
+      new ExifTag("double", ExifInterface.TAG_SUBJECT_DISTANCE, 0x9206, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_RATIONAL),
+      new ExifTag("int", ExifInterface.TAG_SUBJECT_DISTANCE_RANGE, 0xA40C, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_SHORT),
+      new ExifTag("int", ExifInterface.TAG_SUBJECT_LOCATION),
+      new ExifTag("string", ExifInterface.TAG_USER_COMMENT, 0x9286, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_COMMENT),
+      new ExifTag("int", ExifInterface.TAG_WHITE_BALANCE, 0xA403, JpegExifWriter.IFD_EXIF, JpegExifWriter.TYPE_SHORT),
+      new ExifTag("int", ExifInterface.TAG_GPS_ALTITUDE_REF),
+      new ExifTag("string", ExifInterface.TAG_GPS_AREA_INFORMATION, 0x001C, JpegExifWriter.IFD_GPS, JpegExifWriter.TYPE_COMMENT),
+      new ExifTag("double", ExifInterface.TAG_GPS_DOP, 0x000B, JpegExifWriter.IFD_GPS, JpegExifWriter.TYPE_RATIONAL),
+      new ExifTag("string", ExifInterface.TAG_GPS_DATESTAMP, 0x001D, JpegExifWriter.IFD_GPS, JpegExifWriter.TYPE_ASCII),
+      new ExifTag("double", ExifInterface.TAG_GPS_DEST_BEARING, 0x0018, JpegExifWriter.IFD_GPS, JpegExifWriter.TYPE_RATIONAL),
+      new ExifTag("string", ExifInterface.TAG_GPS_DEST_BEARING_REF, 0x0017, JpegExifWriter.IFD_GPS, JpegExifWriter.TYPE_ASCII),
+      new ExifTag("double", ExifInterface.TAG_GPS_DEST_DISTANCE, 0x001A, JpegExifWriter.IFD_GPS, JpegExifWriter.TYPE_RATIONAL),
+      new ExifTag("string", ExifInterface.TAG_GPS_DEST_DISTANCE_REF, 0x0019, JpegExifWriter.IFD_GPS, JpegExifWriter.TYPE_ASCII),
+      new ExifTag("double", ExifInterface.TAG_GPS_DEST_LATITUDE),
+      new ExifTag("string", ExifInterface.TAG_GPS_DEST_LATITUDE_REF),
+      new ExifTag("double", ExifInterface.TAG_GPS_DEST_LONGITUDE),
+      new ExifTag("string", ExifInterface.TAG_GPS_DEST_LONGITUDE_REF),
+      new ExifTag("int", ExifInterface.TAG_GPS_DIFFERENTIAL, 0x001E, JpegExifWriter.IFD_GPS, JpegExifWriter.TYPE_SHORT),
+      new ExifTag("double", ExifInterface.TAG_GPS_IMG_DIRECTION, 0x0011, JpegExifWriter.IFD_GPS, JpegExifWriter.TYPE_RATIONAL),
+      new ExifTag("string", ExifInterface.TAG_GPS_IMG_DIRECTION_REF, 0x0010, JpegExifWriter.IFD_GPS, JpegExifWriter.TYPE_ASCII),
+      new ExifTag("string", ExifInterface.TAG_GPS_LATITUDE_REF),
+      new ExifTag("string", ExifInterface.TAG_GPS_LONGITUDE_REF),
+      new ExifTag("string", ExifInterface.TAG_GPS_MAP_DATUM, 0x0012, JpegExifWriter.IFD_GPS, JpegExifWriter.TYPE_ASCII),
+      new ExifTag("string", ExifInterface.TAG_GPS_MEASURE_MODE, 0x000A, JpegExifWriter.IFD_GPS, JpegExifWriter.TYPE_ASCII),
+      new ExifTag("string", ExifInterface.TAG_GPS_PROCESSING_METHOD, 0x001B, JpegExifWriter.IFD_GPS, JpegExifWriter.TYPE_COMMENT),
+      new ExifTag("string", ExifInterface.TAG_GPS_SATELLITES, 0x0008, JpegExifWriter.IFD_GPS, JpegExifWriter.TYPE_ASCII),
+      new ExifTag("double", ExifInterface.TAG_GPS_SPEED, 0x000D, JpegExifWriter.IFD_GPS, JpegExifWriter.TYPE_RATIONAL),
+      new ExifTag("string", ExifInterface.TAG_GPS_SPEED_REF, 0x000C, JpegExifWriter.IFD_GPS, JpegExifWriter.TYPE_ASCII),
+      new ExifTag("string", ExifInterface.TAG_GPS_STATUS, 0x0009, JpegExifWriter.IFD_GPS, JpegExifWriter.TYPE_ASCII),
+      new ExifTag("string", ExifInterface.TAG_GPS_TIMESTAMP),
+      new ExifTag("double", ExifInterface.TAG_GPS_TRACK, 0x000F, JpegExifWriter.IFD_GPS, JpegExifWriter.TYPE_RATIONAL),
+      new ExifTag("string", ExifInterface.TAG_GPS_TRACK_REF, 0x000E, JpegExifWriter.IFD_GPS, JpegExifWriter.TYPE_ASCII),
+      new ExifTag("string", ExifInterface.TAG_GPS_VERSION_ID),
+      new ExifTag("string", ExifInterface.TAG_INTEROPERABILITY_INDEX),
+      new ExifTag("int", ExifInterface.TAG_THUMBNAIL_IMAGE_LENGTH),
+      new ExifTag("int", ExifInterface.TAG_THUMBNAIL_IMAGE_WIDTH),
+      new ExifTag("int", ExifInterface.TAG_DNG_VERSION),
+      new ExifTag("int", ExifInterface.TAG_DEFAULT_CROP_SIZE),
+      new ExifTag("int", ExifInterface.TAG_ORF_PREVIEW_IMAGE_START),
+      new ExifTag("int", ExifInterface.TAG_ORF_PREVIEW_IMAGE_LENGTH),
+      new ExifTag("int", ExifInterface.TAG_ORF_ASPECT_FRAME),
+      new ExifTag("int", ExifInterface.TAG_RW2_SENSOR_BOTTOM_BORDER),
+      new ExifTag("int", ExifInterface.TAG_RW2_SENSOR_LEFT_BORDER),
+      new ExifTag("int", ExifInterface.TAG_RW2_SENSOR_RIGHT_BORDER),
+      new ExifTag("int", ExifInterface.TAG_RW2_SENSOR_TOP_BORDER),
+      new ExifTag("int", ExifInterface.TAG_RW2_ISO),
   };
 
   // Run all events on native modules queue thread since they might be fired
@@ -243,6 +269,18 @@ public class RNCameraViewHelper {
       }
      });
   }
+
+  public static void emitRecordingSegmentEvent(final ViewGroup view, final WritableMap response) {
+
+    final ReactContext reactContext = (ReactContext) view.getContext();
+    reactContext.runOnNativeModulesQueueThread(new Runnable() {
+      @Override
+      public void run() {
+        RecordingSegmentEvent event = RecordingSegmentEvent.obtain(view.getId(), response);
+        reactContext.getNativeModule(UIManagerModule.class).getEventDispatcher().dispatchEvent(event);
+      }
+     });
+  }
   // Touch event
   public static void emitTouchEvent(final ViewGroup view, final boolean isDoubleTap, final int x, final int y) {
 
@@ -383,10 +421,10 @@ public class RNCameraViewHelper {
 
   public static WritableMap getExifData(ExifInterface exifInterface) {
     WritableMap exifMap = Arguments.createMap();
-    for (String[] tagInfo : exifTags) {
-      String name = tagInfo[1];
+    for (ExifTag tag : exifTags) {
+      String name = tag.name;
       if (exifInterface.getAttribute(name) != null) {
-        String type = tagInfo[0];
+        String type = tag.type;
         switch (type) {
           case "string":
             exifMap.putString(name, exifInterface.getAttribute(name));
@@ -412,10 +450,10 @@ public class RNCameraViewHelper {
   }
 
   public static void setExifData(ExifInterface exifInterface, ReadableMap exifMap) {
-    for (String[] tagInfo : exifTags) {
-      String name = tagInfo[1];
+    for (ExifTag tag : exifTags) {
+      String name = tag.name;
       if (exifMap.hasKey(name)) {
-        String type = tagInfo[0];
+        String type = tag.type;
         switch (type) {
           case "string":
             exifInterface.setAttribute(name, exifMap.getString(name));
@@ -443,8 +481,8 @@ public class RNCameraViewHelper {
 
   // clears exif values in place
   public static void clearExifData(ExifInterface exifInterface) {
-    for (String[] tagInfo : exifTags) {
-      exifInterface.setAttribute(tagInfo[1], null);
+    for (ExifTag tag : exifTags) {
+      exifInterface.setAttribute(tag.name, null);
     }
 
     // these are not part of our tag list, remove by hand
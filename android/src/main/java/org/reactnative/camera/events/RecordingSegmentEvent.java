@@ -0,0 +1,46 @@
+package org.reactnative.camera.events;
+
+import androidx.core.util.Pools;
+
+import org.reactnative.camera.CameraViewManager;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.uimanager.events.Event;
+import com.facebook.react.uimanager.events.RCTEventEmitter;
+
+public class RecordingSegmentEvent extends Event<RecordingSegmentEvent> {
+    private static final Pools.SynchronizedPool<RecordingSegmentEvent> EVENTS_POOL = new Pools.SynchronizedPool<>(3);
+    private RecordingSegmentEvent() {}
+
+    private WritableMap mResponse;
+
+    public static RecordingSegmentEvent obtain(int viewTag, WritableMap response) {
+        RecordingSegmentEvent event = EVENTS_POOL.acquire();
+        if (event == null) {
+        event = new RecordingSegmentEvent();
+        }
+        event.init(viewTag, response);
+        return event;
+    }
+
+    private void init(int viewTag, WritableMap response) {
+        super.init(viewTag);
+        mResponse = response;
+    }
+
+    @Override
+    public short getCoalescingKey() {
+        // every segment has to reach JS
+        return (short) (mResponse.getInt("index") % Short.MAX_VALUE);
+    }
+
+    @Override
+    public String getEventName() {
+        return CameraViewManager.Events.EVENT_ON_RECORDING_SEGMENT.toString();
+    }
+
+    @Override
+    public void dispatch(RCTEventEmitter rctEventEmitter) {
+        rctEventEmitter.receiveEvent(getViewTag(), getEventName(), mResponse);
+    }
+}
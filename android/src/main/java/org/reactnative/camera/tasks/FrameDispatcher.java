@@ -0,0 +1,239 @@
+package org.reactnative.camera.tasks;
+
+import android.os.AsyncTask;
+import android.os.SystemClock;
+
+import org.reactnative.camera.utils.PreviewFrame;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Hands preview frames to the detectors. Every detector gets its own bounded queue and
+ * {@link FrameDropPolicy}, and at most one task per detector runs at a time on the
+ * {@link TaskExecutors#decode()} pool, so a slow detector never delays the others.
+ */
+public class FrameDispatcher {
+  public interface TaskFactory {
+    /**
+     * @return the task processing the frame, or null to skip it. The task has to call
+     * {@link DetectorQueue#onTaskCompleted()} once it is done with the frame.
+     */
+    AsyncTask<Void, ?, ?> createTask(PreviewFrame frame);
+  }
+
+  private final Executor mExecutor;
+  private final List<DetectorQueue> mQueues = new CopyOnWriteArrayList<>();
+
+  public FrameDispatcher() {
+    this(null);
+  }
+
+  /**
+   * @param executor Executor running the detector tasks, null for {@link TaskExecutors#decode()}.
+   */
+  public FrameDispatcher(Executor executor) {
+    mExecutor = executor;
+  }
+
+  public DetectorQueue addDetector(FrameDropPolicy policy, TaskFactory factory) {
+    DetectorQueue queue = new DetectorQueue(policy, factory);
+    mQueues.add(queue);
+    return queue;
+  }
+
+  /**
+   * Lets the caller drop a frame before doing any work on it. A frame dropped this way has to
+   * be reported with {@link #skipFrame()}, so every-Nth-frame policies keep advancing.
+   *
+   * @return true if at least one detector would currently accept a frame
+   */
+  public boolean wantsFrame() {
+    long now = SystemClock.elapsedRealtime();
+    for (DetectorQueue queue : mQueues) {
+      if (queue.wantsFrame(now)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Counts a frame that was dropped instead of dispatched.
+   */
+  public void skipFrame() {
+    for (DetectorQueue queue : mQueues) {
+      queue.skip();
+    }
+  }
+
+  /**
+   * @return true if a detector working on the region of interest would currently accept a
+   * frame, i.e. if it is worth cropping one
+   */
+  public boolean wantsRegionFrame() {
+    long now = SystemClock.elapsedRealtime();
+    for (DetectorQueue queue : mQueues) {
+      if (queue.usesRegion() && queue.wantsFrame(now)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public void dispatch(PreviewFrame frame) {
+    dispatch(frame, null);
+  }
+
+  /**
+   * Offers the frame to every enabled detector. Each accepting queue takes its own reference,
+   * the caller keeps (and eventually releases) the ones it holds.
+   *
+   * @param regionFrame the frame cropped to the region of interest, handed to the detectors
+   * using it instead of the full frame. Null if there is none.
+   */
+  public void dispatch(PreviewFrame frame, PreviewFrame regionFrame) {
+    long now = SystemClock.elapsedRealtime();
+    for (DetectorQueue queue : mQueues) {
+      queue.offer(regionFrame != null && queue.usesRegion() ? regionFrame : frame, now);
+    }
+  }
+
+  /**
+   * Drops every waiting frame. Running tasks release theirs once they complete.
+   */
+  public void clear() {
+    for (DetectorQueue queue : mQueues) {
+      queue.clear();
+    }
+  }
+
+  public class DetectorQueue {
+    private final TaskFactory mFactory;
+    private final ArrayDeque<PreviewFrame> mPending = new ArrayDeque<>();
+    private FrameDropPolicy mPolicy;
+    private boolean mEnabled = false;
+    private boolean mUsesRegion = false;
+    private PreviewFrame mCurrentFrame;
+    private long mFrameCount = 0;
+    private long mLastAcceptedAt = 0;
+
+    private DetectorQueue(FrameDropPolicy policy, TaskFactory factory) {
+      mPolicy = policy;
+      mFactory = factory;
+    }
+
+    public synchronized void setPolicy(FrameDropPolicy policy) {
+      mPolicy = policy;
+      mFrameCount = 0;
+      mLastAcceptedAt = 0;
+      while (mPending.size() > policy.getQueueSize()) {
+        mPending.poll().release();
+      }
+    }
+
+    public synchronized void setEnabled(boolean enabled) {
+      mEnabled = enabled;
+      if (!enabled) {
+        clear();
+      }
+    }
+
+    public synchronized boolean isEnabled() {
+      return mEnabled;
+    }
+
+    /**
+     * Whether the detector should get frames cropped to the region of interest when there is one.
+     */
+    public synchronized void setUsesRegion(boolean usesRegion) {
+      mUsesRegion = usesRegion;
+    }
+
+    private synchronized boolean usesRegion() {
+      return mUsesRegion;
+    }
+
+    private synchronized boolean wantsFrame(long now) {
+      if (!mEnabled) {
+        return false;
+      }
+      switch (mPolicy.getMode()) {
+        case FrameDropPolicy.EVERY_NTH_FRAME:
+          return mFrameCount % mPolicy.getFrameInterval() == 0;
+        case FrameDropPolicy.TARGET_FPS:
+          return mLastAcceptedAt == 0 || now - mLastAcceptedAt >= mPolicy.getMinIntervalMs();
+        default:
+          return true;
+      }
+    }
+
+    private synchronized void skip() {
+      if (mEnabled) {
+        mFrameCount++;
+      }
+    }
+
+    private void offer(PreviewFrame frame, long now) {
+      PreviewFrame start = null;
+      synchronized (this) {
+        boolean accept = wantsFrame(now);
+        if (mEnabled) {
+          mFrameCount++;
+        }
+        if (!accept) {
+          return;
+        }
+        mLastAcceptedAt = now;
+        frame.retain();
+        if (mCurrentFrame == null) {
+          mCurrentFrame = frame;
+          start = frame;
+        } else {
+          if (mPending.size() >= mPolicy.getQueueSize()) {
+            mPending.poll().release();
+          }
+          mPending.add(frame);
+        }
+      }
+      if (start != null) {
+        run(start);
+      }
+    }
+
+    /**
+     * Releases the frame of the finished task and starts the next waiting one, if any.
+     */
+    public void onTaskCompleted() {
+      PreviewFrame next;
+      synchronized (this) {
+        if (mCurrentFrame != null) {
+          mCurrentFrame.release();
+        }
+        next = mPending.poll();
+        mCurrentFrame = next;
+      }
+      if (next != null) {
+        run(next);
+      }
+    }
+
+    private synchronized void clear() {
+      PreviewFrame frame;
+      while ((frame = mPending.poll()) != null) {
+        frame.release();
+      }
+    }
+
+    private void run(PreviewFrame frame) {
+      AsyncTask<Void, ?, ?> task = mFactory.createTask(frame);
+      if (task == null) {
+        onTaskCompleted();
+        return;
+      }
+      task.executeOnExecutor(mExecutor != null ? mExecutor : TaskExecutors.decode());
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package org.reactnative.camera.tasks;
+
+/**
+ * Decides which preview frames a detector gets to see and how many frames may wait
+ * for it while it is busy. When the queue is full the oldest waiting frame is dropped.
+ */
+public class FrameDropPolicy {
+  public static final int LATEST_WINS = 0;
+  public static final int EVERY_NTH_FRAME = 1;
+  public static final int TARGET_FPS = 2;
+
+  private final int mMode;
+  private final int mFrameInterval;
+  private final long mMinIntervalMs;
+  private final int mQueueSize;
+
+  private FrameDropPolicy(int mode, int frameInterval, long minIntervalMs, int queueSize) {
+    mMode = mode;
+    mFrameInterval = Math.max(1, frameInterval);
+    mMinIntervalMs = Math.max(0, minIntervalMs);
+    mQueueSize = Math.max(1, queueSize);
+  }
+
+  /**
+   * Every frame is accepted, the most recent one waits while the detector is busy.
+   */
+  public static FrameDropPolicy latestWins() {
+    return new FrameDropPolicy(LATEST_WINS, 1, 0, 1);
+  }
+
+  public static FrameDropPolicy everyNthFrame(int n) {
+    return new FrameDropPolicy(EVERY_NTH_FRAME, n, 0, 1);
+  }
+
+  public static FrameDropPolicy targetFps(float fps) {
+    if (fps <= 0) {
+      return latestWins();
+    }
+    return new FrameDropPolicy(TARGET_FPS, 1, (long) (1000 / fps), 1);
+  }
+
+  public FrameDropPolicy withQueueSize(int queueSize) {
+    return new FrameDropPolicy(mMode, mFrameInterval, mMinIntervalMs, queueSize);
+  }
+
+  public int getMode() {
+    return mMode;
+  }
+
+  public int getFrameInterval() {
+    return mFrameInterval;
+  }
+
+  public long getMinIntervalMs() {
+    return mMinIntervalMs;
+  }
+
+  public int getQueueSize() {
+    return mQueueSize;
+  }
+}
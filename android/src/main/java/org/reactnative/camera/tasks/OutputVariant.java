@@ -0,0 +1,147 @@
+package org.reactnative.camera.tasks;
+
+import android.graphics.Bitmap;
+import android.net.Uri;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+
+import org.reactnative.camera.utils.CaptureStore;
+import org.reactnative.camera.utils.ImageOutput;
+import org.reactnative.camera.utils.JpegExifWriter;
+import org.reactnative.camera.utils.PictureFormat;
+import org.reactnative.camera.utils.RNFileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * One extra image produced from a captured picture, as described by an entry of the
+ * {@code outputs} picture option:
+ * {@code {width?, quality?, format?: 'jpg' | 'png' | 'webp' | 'heif', base64?, handle?, doNotSave?, path?}}.
+ *
+ * Every variant is scaled from the same decoded bitmap and encoded on its own, so several
+ * of them can be encoded in parallel.
+ */
+public class OutputVariant {
+  private final int mWidth;
+  private final int mQuality;
+  private final PictureFormat mFormat;
+  private final boolean mWebpLossless;
+  private final boolean mBase64;
+  private final boolean mHandle;
+  private final boolean mSave;
+  private final String mPath;
+
+  private OutputVariant(ReadableMap options, int defaultQuality, boolean defaultWebpLossless) {
+    mWidth = options.hasKey("width") ? options.getInt("width") : 0;
+    mQuality = options.hasKey("quality") ? (int) (options.getDouble("quality") * 100) : defaultQuality;
+    mFormat = PictureFormat.fromOptions(options);
+    mWebpLossless = PictureFormat.isWebpLossless(options, defaultWebpLossless);
+    mBase64 = options.hasKey("base64") && options.getBoolean("base64");
+    mHandle = options.hasKey("handle") && options.getBoolean("handle");
+    mSave = !options.hasKey("doNotSave") || !options.getBoolean("doNotSave");
+    mPath = options.hasKey("path") ? options.getString("path") : null;
+  }
+
+  /**
+   * @return the variants requested through options.outputs, empty if there are none
+   */
+  public static List<OutputVariant> fromOptions(ReadableMap options, int defaultQuality) {
+    boolean webpLossless = PictureFormat.isWebpLossless(options, false);
+    List<OutputVariant> variants = new ArrayList<>();
+    if (!options.hasKey("outputs") || options.isNull("outputs")) {
+      return variants;
+    }
+    ReadableArray outputs = options.getArray("outputs");
+    for (int i = 0; i < outputs.size(); i++) {
+      variants.add(new OutputVariant(outputs.getMap(i), defaultQuality, webpLossless));
+    }
+    return variants;
+  }
+
+  /**
+   * @return the width a shared decode has to reach to serve every variant, 0 for full size
+   */
+  public static int getDecodeWidth(List<OutputVariant> variants) {
+    int decodeWidth = 0;
+    for (OutputVariant variant : variants) {
+      if (variant.mWidth <= 0) {
+        return 0;
+      }
+      decodeWidth = Math.max(decodeWidth, variant.mWidth);
+    }
+    return decodeWidth;
+  }
+
+  public boolean isJpeg() {
+    return mFormat.isJpeg();
+  }
+
+  public int getTargetWidth(Bitmap source) {
+    return mWidth > 0 ? mWidth : source.getWidth();
+  }
+
+  public int getTargetHeight(Bitmap source) {
+    return mWidth > 0 ? Math.max(1, Math.round((float) source.getHeight() * mWidth / source.getWidth())) : source.getHeight();
+  }
+
+  /**
+   * @param source decoded picture, shared with other variants and left untouched
+   * @param exifSegment EXIF APP1 segment written into JPEG variants, null for none
+   * @return the encoding job, resolving to the map describing the variant
+   */
+  public Callable<WritableMap> encode(final Bitmap source, final byte[] exifSegment, final File cacheDirectory) {
+    return new Callable<WritableMap>() {
+      @Override
+      public WritableMap call() throws IOException {
+        int width = getTargetWidth(source);
+        int height = getTargetHeight(source);
+        Bitmap bitmap = width == source.getWidth() && height == source.getHeight()
+            ? source
+            : Bitmap.createScaledBitmap(source, width, height, true);
+
+        String path = null;
+        if (mSave) {
+          path = mPath != null ? mPath : RNFileUtils.getOutputFilePath(cacheDirectory, mFormat.getExtension());
+        }
+        ImageOutput output = new ImageOutput(path, mBase64, mHandle && path == null);
+        try {
+          OutputStream stream = output.getStream();
+          if (exifSegment != null && isJpeg()) {
+            stream = JpegExifWriter.wrap(stream, exifSegment);
+          }
+          mFormat.compress(bitmap, mQuality, mWebpLossless, stream, cacheDirectory);
+        } finally {
+          output.close();
+          if (bitmap != source) {
+            bitmap.recycle();
+          }
+        }
+
+        WritableMap result = Arguments.createMap();
+        result.putInt("width", width);
+        result.putInt("height", height);
+        if (path != null) {
+          result.putString("uri", Uri.fromFile(new File(path)).toString());
+        }
+        if (mBase64) {
+          result.putString("base64", output.getBase64());
+        }
+        if (mHandle) {
+          String handle = path != null
+              ? CaptureStore.getInstance().put(new File(path), mFormat.getMimeType())
+              : CaptureStore.getInstance().put(output.getBuffer(), mFormat.getMimeType());
+          result.putString("handle", handle);
+        }
+        return result;
+      }
+    };
+  }
+}
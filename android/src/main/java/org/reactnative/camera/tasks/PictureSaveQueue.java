@@ -0,0 +1,74 @@
+package org.reactnative.camera.tasks;
+
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Saves the pictures of a burst on the {@link TaskExecutors#io()} pool while the camera keeps
+ * shooting. The camera asks {@link #hasRoom} before each shot and holds it back while
+ * {@code capacity} pictures wait or are being saved, so JPEGs don't pile up in memory when
+ * storage is slow. {@link #submit} itself never blocks the thread delivering the pictures.
+ */
+public class PictureSaveQueue implements Executor {
+  private final int mCapacity;
+  private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+  private int mPending = 0;
+  private Runnable mOnDone;
+
+  public PictureSaveQueue(int capacity) {
+    mCapacity = Math.max(1, capacity);
+  }
+
+  public synchronized boolean hasRoom() {
+    return mPending < mCapacity;
+  }
+
+  public void submit(AsyncTask<Void, ?, ?> task) {
+    synchronized (this) {
+      mPending++;
+    }
+    task.executeOnExecutor(this);
+  }
+
+  /**
+   * Runs {@code onDone} on the main thread once every submitted picture is saved. Results are
+   * posted to the main thread before a save counts as done, so {@code onDone} comes after all
+   * of them.
+   */
+  public synchronized void finish(Runnable onDone) {
+    mOnDone = onDone;
+    if (mPending == 0) {
+      postDone();
+    }
+  }
+
+  @Override
+  public void execute(final Runnable command) {
+    TaskExecutors.io().execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          command.run();
+        } finally {
+          onSaved();
+        }
+      }
+    });
+  }
+
+  private synchronized void onSaved() {
+    mPending--;
+    if (mPending == 0 && mOnDone != null) {
+      postDone();
+    }
+  }
+
+  private void postDone() {
+    final Runnable onDone = mOnDone;
+    mOnDone = null;
+    mMainHandler.post(onDone);
+  }
+}
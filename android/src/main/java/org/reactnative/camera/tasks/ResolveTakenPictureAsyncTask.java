@@ -3,29 +3,49 @@ package org.reactnative.camera.tasks;
 import android.content.res.Resources;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.graphics.ImageFormat;
 import android.graphics.Matrix;
+import android.graphics.Rect;
+import android.graphics.YuvImage;
 import android.net.Uri;
 import android.os.AsyncTask;
 import androidx.exifinterface.media.ExifInterface;
 import android.util.Base64;
+import android.util.Log;
 
 import org.reactnative.camera.RNCameraViewHelper;
+import org.reactnative.camera.utils.CaptureStore;
+import org.reactnative.camera.utils.DecodePlan;
+import org.reactnative.camera.utils.FrameBufferPool;
+import org.reactnative.camera.utils.ImageOutput;
+import org.reactnative.camera.utils.JpegExifWriter;
+import org.reactnative.camera.utils.PictureFormat;
+import org.reactnative.camera.utils.PreviewFrame;
 import org.reactnative.camera.utils.RNFileUtils;
+import org.reactnative.camera.utils.RegionOfInterest;
 
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.ReadableType;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 public class ResolveTakenPictureAsyncTask extends AsyncTask<Void, Void, WritableMap> {
     private static final String ERROR_TAG = "E_TAKING_PICTURE_FAILED";
+
+    // rotated copies of zero shutter lag frames, a second picture rotated meanwhile gets its own
+    private static final FrameBufferPool sRotationBuffers = new FrameBufferPool(1);
     private Promise mPromise;
     private Bitmap mBitmap;
     private byte[] mImageData;
@@ -33,6 +53,10 @@ public class ResolveTakenPictureAsyncTask extends AsyncTask<Void, Void, Writable
     private File mCacheDirectory;
     private int mDeviceOrientation;
     private PictureSavedDelegate mPictureSavedDelegate;
+    private int mBurstIndex = -1;
+    private PreviewFrame mFrame;
+    private int mPreviewWidth;
+    private int mPreviewHeight;
 
     public ResolveTakenPictureAsyncTask(byte[] imageData, Promise promise, ReadableMap options, File cacheDirectory, int deviceOrientation, PictureSavedDelegate delegate) {
         mPromise = promise;
@@ -43,14 +67,90 @@ public class ResolveTakenPictureAsyncTask extends AsyncTask<Void, Void, Writable
         mPictureSavedDelegate = delegate;
     }
 
+    /**
+     * Saves a picture of a burst. There is no promise, the result goes to
+     * {@link PictureSavedDelegate#onPictureSaved} along with the index of the picture.
+     */
+    public ResolveTakenPictureAsyncTask(byte[] imageData, int burstIndex, ReadableMap options, File cacheDirectory, int deviceOrientation, PictureSavedDelegate delegate) {
+        this(imageData, (Promise) null, options, cacheDirectory, deviceOrientation, delegate);
+        mBurstIndex = burstIndex;
+    }
+
+    /**
+     * Saves a preview frame kept for zero shutter lag capture. The frame is encoded to an upright
+     * JPEG in the background and released once that is done.
+     */
+    public ResolveTakenPictureAsyncTask(PreviewFrame frame, Promise promise, ReadableMap options, File cacheDirectory, int deviceOrientation, PictureSavedDelegate delegate) {
+        this((byte[]) null, promise, options, cacheDirectory, deviceOrientation, delegate);
+        mFrame = frame;
+    }
+
     private int getQuality() {
         return (int) (mOptions.getDouble("quality") * 100);
     }
 
-    // loads bitmap only if necessary
-    private void loadBitmap() throws IOException {
+    /**
+     * Size of the preview the picture was taken from, used to crop the picture to what the
+     * user saw when the cropToPreview option is set.
+     */
+    public void setPreviewSize(int width, int height) {
+        mPreviewWidth = width;
+        mPreviewHeight = height;
+    }
+
+    private float getCropAspectRatio() {
+        if (!mOptions.hasKey("cropToPreview") || !mOptions.getBoolean("cropToPreview")
+                || mPreviewWidth <= 0 || mPreviewHeight <= 0) {
+            return 0;
+        }
+        return (float) Math.max(mPreviewWidth, mPreviewHeight) / Math.min(mPreviewWidth, mPreviewHeight);
+    }
+
+    private WritableMap getOutputResult(Future<WritableMap> result) throws IOException {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException("Failed to encode an output.", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while encoding the outputs.", e);
+        }
+    }
+
+    // the encodes share the source bitmap, so it can only be recycled once they are all done
+    private void awaitOutputs(List<Future<WritableMap>> results) {
+        for (Future<WritableMap> result : results) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                // already reported
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private Bitmap scaleToWidth(Bitmap source, int width) {
+        if (width <= 0 || width == source.getWidth()) {
+            return source;
+        }
+        int height = Math.max(1, Math.round((float) source.getHeight() * width / source.getWidth()));
+        return Bitmap.createScaledBitmap(source, width, height, true);
+    }
+
+    private int getRotatedWidth(int rotation) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(mImageData, 0, mImageData.length, options);
+        return rotation % 180 == 0 ? options.outWidth : options.outHeight;
+    }
+
+    // loads bitmap only if necessary, decoding only the pixels the requested output needs
+    private void loadBitmap(int rotation, int targetWidth, float cropAspectRatio) throws IOException {
         if(mBitmap == null){
-            mBitmap = BitmapFactory.decodeByteArray(mImageData, 0, mImageData.length);
+            mBitmap = DecodePlan.create(mImageData, rotation, targetWidth, cropAspectRatio).decode(mImageData);
         }
         if(mBitmap == null){
             throw new IOException("Failed to decode Image Bitmap");
@@ -67,6 +167,19 @@ public class ResolveTakenPictureAsyncTask extends AsyncTask<Void, Void, Writable
 
         boolean orientationChanged = false;
 
+        // bitmap the extra outputs are scaled from, and their pending encodes
+        Bitmap outputSource = null;
+        List<Future<WritableMap>> outputResults = new ArrayList<>();
+
+        if (mFrame != null) {
+            try {
+                mImageData = encodeFrame(mFrame);
+            } finally {
+                mFrame.release();
+                mFrame = null;
+            }
+        }
+
         response.putInt("deviceOrientation", mDeviceOrientation);
         response.putInt("pictureOrientation", mOptions.hasKey("orientation") ? mOptions.getInt("orientation") : mDeviceOrientation);
 
@@ -81,6 +194,10 @@ public class ResolveTakenPictureAsyncTask extends AsyncTask<Void, Void, Writable
             inputStream = new ByteArrayInputStream(mImageData);
 
 
+            // Work out every requested transform first, so the bitmap is decoded and
+            // transformed only once
+            int rotation = 0;
+
             // Rotate the bitmap to the proper orientation if requested
             if(mOptions.hasKey("fixOrientation") && mOptions.getBoolean("fixOrientation")){
 
@@ -90,20 +207,37 @@ public class ResolveTakenPictureAsyncTask extends AsyncTask<Void, Void, Writable
                 int orientation = exifInterface.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_UNDEFINED);
 
                 if(orientation != ExifInterface.ORIENTATION_UNDEFINED){
-                    loadBitmap();
-                    mBitmap = rotateBitmap(mBitmap, getImageRotation(orientation));
+                    rotation = getImageRotation(orientation);
                     orientationChanged = true;
                 }
             }
 
-            if (mOptions.hasKey("width")) {
-                loadBitmap();
-                mBitmap = resizeBitmap(mBitmap, mOptions.getInt("width"));
+            int targetWidth = mOptions.hasKey("width") ? mOptions.getInt("width") : 0;
+            if (targetWidth > 0 && getRotatedWidth(rotation) == targetWidth) {
+                // the camera already encoded the picture at the requested size
+                targetWidth = 0;
             }
-
-            if (mOptions.hasKey("mirrorImage") && mOptions.getBoolean("mirrorImage")) {
-                loadBitmap();
-                mBitmap = flipHorizontally(mBitmap);
+            boolean mirror = mOptions.hasKey("mirrorImage") && mOptions.getBoolean("mirrorImage");
+            float cropAspectRatio = getCropAspectRatio();
+            PictureFormat format = PictureFormat.fromOptions(mOptions);
+
+            // anything but a JPEG has to be re-encoded from a bitmap
+            boolean transform = orientationChanged || targetWidth > 0 || mirror || cropAspectRatio > 0 || !format.isJpeg();
+            List<OutputVariant> outputs = OutputVariant.fromOptions(mOptions, getQuality());
+
+            if (!outputs.isEmpty()) {
+                // one decode serves the picture and every extra output, at the largest width any of them needs
+                int decodeWidth = OutputVariant.getDecodeWidth(outputs);
+                if (transform && decodeWidth > 0) {
+                    decodeWidth = targetWidth > 0 ? Math.max(decodeWidth, targetWidth) : 0;
+                }
+                loadBitmap(rotation, decodeWidth, cropAspectRatio);
+                outputSource = transformBitmap(mBitmap, rotation, 0, mirror);
+                mBitmap = transform ? scaleToWidth(outputSource, targetWidth) : null;
+            }
+            else if (transform) {
+                loadBitmap(rotation, targetWidth, cropAspectRatio);
+                mBitmap = transformBitmap(mBitmap, rotation, targetWidth, mirror);
             }
 
 
@@ -132,7 +266,7 @@ public class ResolveTakenPictureAsyncTask extends AsyncTask<Void, Void, Writable
                 // if we manipulated the image, or need to add extra data, or need to add it to the response,
                 // then we need to load the actual exif data.
                 // Otherwise we can just use w/e exif data we have right now in our byte array
-                if(mBitmap != null || exifExtraData != null || writeExifToResponse){
+                if(mBitmap != null || outputSource != null || exifExtraData != null || writeExifToResponse){
                     if(exifInterface == null){
                         exifInterface = new ExifInterface(inputStream);
                     }
@@ -161,7 +295,26 @@ public class ResolveTakenPictureAsyncTask extends AsyncTask<Void, Void, Writable
                 }
             }
 
+            // the extra outputs are encoded in parallel while the picture itself is saved
+            for (OutputVariant output : outputs) {
+                byte[] exifSegment = null;
+                if (writeExifToFile && exifData != null && output.isJpeg()) {
+                    WritableMap outputExif = Arguments.createMap();
+                    outputExif.merge(exifData);
+                    if (orientationChanged) {
+                        outputExif.putInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+                    }
+                    outputExif.putInt(ExifInterface.TAG_PIXEL_X_DIMENSION, output.getTargetWidth(outputSource));
+                    outputExif.putInt(ExifInterface.TAG_PIXEL_Y_DIMENSION, output.getTargetHeight(outputSource));
+                    exifSegment = JpegExifWriter.buildSegment(outputExif);
+                }
+                outputResults.add(TaskExecutors.encode().submit(output.encode(outputSource, exifSegment, mCacheDirectory)));
+            }
+
+
 
+            // return a native handle instead of moving the bytes over the bridge, if requested
+            boolean writeHandle = mOptions.hasKey("handle") && mOptions.getBoolean("handle");
 
             // final processing
             // Based on whether or not we loaded the full bitmap into memory, final processing differs
@@ -182,36 +335,43 @@ public class ResolveTakenPictureAsyncTask extends AsyncTask<Void, Void, Writable
                 if (!mOptions.hasKey("doNotSave") || !mOptions.getBoolean("doNotSave")) {
 
                     // Prepare file output
-                    File imageFile = new File(getImagePath());
-
-                    imageFile.createNewFile();
-
-                    FileOutputStream fOut = new FileOutputStream(imageFile);
-
-                    // Save byte array (it is already a JPEG)
-                    fOut.write(mImageData);
-                    fOut.flush();
-                    fOut.close();
+                    File imageFile = new File(getImagePath(format));
+
+                    // Since we didn't modify the image, the exif data only changes if we have
+                    // extra exif info, or if we were requested to NOT store it. Dropping it is
+                    // done while the JPEG is written.
+                    ImageOutput output = new ImageOutput(imageFile.getAbsolutePath(), false);
+                    try {
+                        if (!writeExifToFile) {
+                            JpegExifWriter.writeJpeg(mImageData, null, output.getStream());
+                        }
+                        else {
+                            // save byte array as is (it is already a JPEG)
+                            output.getStream().write(mImageData);
+                        }
+                    } finally {
+                        output.close();
+                    }
 
-                    // update exif data if needed.
-                    // Since we didn't modify the image, we only update if we have extra exif info
+                    // extras are added to the camera's own exif, a rebuilt segment would lose
+                    // the thumbnail, maker note and every tag JpegExifWriter doesn't know. This
+                    // is the only case where a saved picture is written a second time.
                     if (writeExifToFile && exifExtraData != null) {
                         ExifInterface fileExifInterface = new ExifInterface(imageFile.getAbsolutePath());
                         RNCameraViewHelper.setExifData(fileExifInterface, exifExtraData);
                         fileExifInterface.saveAttributes();
                     }
-                    else if (!writeExifToFile){
-                        // if we were requested to NOT store exif, we actually need to
-                        // clear the exif tags
-                        ExifInterface fileExifInterface = new ExifInterface(imageFile.getAbsolutePath());
-                        RNCameraViewHelper.clearExifData(fileExifInterface);
-                        fileExifInterface.saveAttributes();
-                    }
-                    // else: exif is unmodified, no need to update anything
 
                     // Return file system URI
                     String fileUri = Uri.fromFile(imageFile).toString();
                     response.putString("uri", fileUri);
+
+                    if (writeHandle) {
+                        response.putString("handle", CaptureStore.getInstance().put(imageFile, format.getMimeType()));
+                    }
+                }
+                else if (writeHandle) {
+                    response.putString("handle", CaptureStore.getInstance().put(mImageData, format.getMimeType()));
                 }
 
                 if (mOptions.hasKey("base64") && mOptions.getBoolean("base64")) {
@@ -225,43 +385,65 @@ public class ResolveTakenPictureAsyncTask extends AsyncTask<Void, Void, Writable
                 response.putInt("width", mBitmap.getWidth());
                 response.putInt("height", mBitmap.getHeight());
 
-                // Cache compressed image in imageStream
-                ByteArrayOutputStream imageStream = new ByteArrayOutputStream();
-                mBitmap.compress(Bitmap.CompressFormat.JPEG, getQuality(), imageStream);
-
+                boolean saveToFile = !mOptions.hasKey("doNotSave") || !mOptions.getBoolean("doNotSave");
+                boolean writeBase64 = mOptions.hasKey("base64") && mOptions.getBoolean("base64");
 
-                // Write compressed image to file in cache directory unless otherwise specified
-                if (!mOptions.hasKey("doNotSave") || !mOptions.getBoolean("doNotSave")) {
-                    String filePath = writeStreamToFile(imageStream);
+                // since we lost any exif data on bitmap creation, we only need
+                // to add it if requested
+                byte[] exifSegment = null;
+                if (saveToFile && writeExifToFile && exifData != null && format.isJpeg()) {
+                    exifSegment = JpegExifWriter.buildSegment(exifData);
+                }
 
-                    // since we lost any exif data on bitmap creation, we only need
-                    // to add it if requested
-                    if (writeExifToFile && exifData != null) {
-                        ExifInterface fileExifInterface = new ExifInterface(filePath);
-                        RNCameraViewHelper.setExifData(fileExifInterface, exifData);
-                        fileExifInterface.saveAttributes();
+                // Compress straight into the file, base64-encoding along the way if requested
+                String filePath = saveToFile ? getImagePath(format) : null;
+                ImageOutput output = new ImageOutput(filePath, writeBase64, writeHandle && !saveToFile);
+                try {
+                    OutputStream stream = output.getStream();
+                    if (exifSegment != null) {
+                        stream = JpegExifWriter.wrap(stream, exifSegment);
                     }
+                    format.compress(mBitmap, getQuality(), PictureFormat.isWebpLossless(mOptions, false), stream, mCacheDirectory);
+                } finally {
+                    output.close();
+                }
+
+                if (saveToFile) {
                     File imageFile = new File(filePath);
                     String fileUri = Uri.fromFile(imageFile).toString();
                     response.putString("uri", fileUri);
                 }
 
-                // Write base64-encoded image to the response if requested
-                if (mOptions.hasKey("base64") && mOptions.getBoolean("base64")) {
-                    response.putString("base64", Base64.encodeToString(imageStream.toByteArray(), Base64.NO_WRAP));
+                if (writeHandle) {
+                    String handle = saveToFile
+                            ? CaptureStore.getInstance().put(new File(filePath), format.getMimeType())
+                            : CaptureStore.getInstance().put(output.getBuffer(), format.getMimeType());
+                    response.putString("handle", handle);
+                }
+
+                if (writeBase64) {
+                    response.putString("base64", output.getBase64());
                 }
 
             }
 
+            if (!outputResults.isEmpty()) {
+                WritableArray outputsResponse = Arguments.createArray();
+                for (Future<WritableMap> result : outputResults) {
+                    outputsResponse.pushMap(getOutputResult(result));
+                }
+                response.putArray("outputs", outputsResponse);
+            }
+
             return response;
 
         }
         catch (Resources.NotFoundException e) {
-            mPromise.reject(ERROR_TAG, "Documents directory of the app could not be found.", e);
+            reject("Documents directory of the app could not be found.", e);
             e.printStackTrace();
         }
         catch (IOException e) {
-            mPromise.reject(ERROR_TAG, "An unknown I/O exception has occurred.", e);
+            reject("An unknown I/O exception has occurred.", e);
             e.printStackTrace();
         }
         finally {
@@ -272,29 +454,132 @@ public class ResolveTakenPictureAsyncTask extends AsyncTask<Void, Void, Writable
             } catch (IOException e) {
                 e.printStackTrace();
             }
+            if (outputSource != null && outputSource != mBitmap) {
+                awaitOutputs(outputResults);
+                outputSource.recycle();
+            }
         }
 
         return null;
     }
 
-    private Bitmap rotateBitmap(Bitmap source, int angle) {
-        Matrix matrix = new Matrix();
-        matrix.postRotate(angle);
-        return Bitmap.createBitmap(source, 0, 0, source.getWidth(), source.getHeight(), matrix, true);
+    private void reject(String message, Exception e) {
+        if (mPromise != null) {
+            mPromise.reject(ERROR_TAG, message, e);
+        } else {
+            Log.e(ERROR_TAG, "Burst picture " + mBurstIndex + ": " + message);
+        }
+    }
+
+    private byte[] encodeFrame(PreviewFrame frame) {
+        int width = frame.getWidth();
+        int height = frame.getHeight();
+        int rotation = ((frame.getRotation() % 360) + 360) % 360;
+        byte[] data = frame.getData();
+        byte[] rotated = null;
+        if (rotation != 0) {
+            rotated = acquireRotationBuffer(RegionOfInterest.getNv21BufferSize(width, height));
+            rotateNv21(data, rotated, width, height, rotation);
+            data = rotated;
+            if (rotation != 180) {
+                width = frame.getHeight();
+                height = frame.getWidth();
+            }
+        }
+        try {
+            YuvImage image = new YuvImage(data, ImageFormat.NV21, width, height, null);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            image.compressToJpeg(new Rect(0, 0, width, height), getQuality(), out);
+            return out.toByteArray();
+        } finally {
+            if (rotated != null) {
+                sRotationBuffers.release(rotated);
+            }
+        }
     }
 
-    private Bitmap resizeBitmap(Bitmap bm, int newWidth) {
-        int width = bm.getWidth();
-        int height = bm.getHeight();
-        float scaleRatio = (float) newWidth / (float) width;
+    private static byte[] acquireRotationBuffer(int size) {
+        byte[] buffer;
+        synchronized (sRotationBuffers) {
+            if (sRotationBuffers.getBufferSize() != size) {
+                sRotationBuffers.reset(size);
+            }
+            buffer = sRotationBuffers.acquire();
+        }
+        return buffer != null ? buffer : new byte[size];
+    }
+
+    // Rotates an NV21 frame clockwise into output, the interleaved VU samples move in pairs
+    private static void rotateNv21(byte[] data, byte[] output, int width, int height, int rotation) {
+        int frameSize = width * height;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int target;
+                switch (rotation) {
+                    case 90:
+                        target = x * height + (height - 1 - y);
+                        break;
+                    case 180:
+                        target = (height - 1 - y) * width + (width - 1 - x);
+                        break;
+                    default:
+                        target = (width - 1 - x) * height + y;
+                        break;
+                }
+                output[target] = data[y * width + x];
+            }
+        }
 
-        return Bitmap.createScaledBitmap(bm, newWidth, (int) (height * scaleRatio), true);
+        int chromaWidth = width / 2;
+        int chromaHeight = height / 2;
+        for (int y = 0; y < chromaHeight; y++) {
+            for (int x = 0; x < chromaWidth; x++) {
+                int target;
+                switch (rotation) {
+                    case 90:
+                        target = frameSize + x * height + (chromaHeight - 1 - y) * 2;
+                        break;
+                    case 180:
+                        target = frameSize + (chromaHeight - 1 - y) * width + (chromaWidth - 1 - x) * 2;
+                        break;
+                    default:
+                        target = frameSize + (chromaWidth - 1 - x) * height + y * 2;
+                        break;
+                }
+                int source = frameSize + y * width + x * 2;
+                output[target] = data[source];
+                output[target + 1] = data[source + 1];
+            }
+        }
     }
 
-    private Bitmap flipHorizontally(Bitmap source) {
+    // Rotates, then resizes to the target width, then mirrors, allocating a single new bitmap
+    private Bitmap transformBitmap(Bitmap source, int rotation, int targetWidth, boolean mirror) {
+        int width = source.getWidth();
+        int height = source.getHeight();
         Matrix matrix = new Matrix();
-        matrix.preScale(-1.0f, 1.0f);
-        return Bitmap.createBitmap(source, 0, 0, source.getWidth(), source.getHeight(), matrix, true);
+        if (rotation != 0) {
+            matrix.postRotate(rotation);
+        }
+        if (targetWidth > 0) {
+            int rotatedWidth = rotation % 180 == 0 ? width : height;
+            float scaleRatio = (float) targetWidth / (float) rotatedWidth;
+            if (scaleRatio != 1) {
+                matrix.postScale(scaleRatio, scaleRatio);
+            }
+        }
+        if (mirror) {
+            matrix.postScale(-1.0f, 1.0f);
+        }
+        if (matrix.isIdentity()) {
+            return source;
+        }
+
+        Bitmap result = Bitmap.createBitmap(source, 0, 0, width, height, matrix, true);
+        if (result != source) {
+            source.recycle();
+        }
+        return result;
     }
 
     // Get rotation degrees from Exif orientation enum
@@ -315,40 +600,11 @@ public class ResolveTakenPictureAsyncTask extends AsyncTask<Void, Void, Writable
         return rotationDegrees;
     }
 
-    private String getImagePath() throws IOException{
+    private String getImagePath(PictureFormat format) throws IOException{
         if(mOptions.hasKey("path")){
             return mOptions.getString("path");
         }
-        return RNFileUtils.getOutputFilePath(mCacheDirectory, ".jpg");
-    }
-
-    private String writeStreamToFile(ByteArrayOutputStream inputStream) throws IOException {
-        String outputPath = null;
-        IOException exception = null;
-        FileOutputStream outputStream = null;
-
-        try {
-            outputPath = getImagePath();
-            outputStream = new FileOutputStream(outputPath);
-            inputStream.writeTo(outputStream);
-        } catch (IOException e) {
-            e.printStackTrace();
-            exception = e;
-        } finally {
-            try {
-                if (outputStream != null) {
-                    outputStream.close();
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
-
-        if (exception != null) {
-            throw exception;
-        }
-
-        return outputPath;
+        return RNFileUtils.getOutputFilePath(mCacheDirectory, format.getExtension());
     }
 
     @Override
@@ -357,7 +613,15 @@ public class ResolveTakenPictureAsyncTask extends AsyncTask<Void, Void, Writable
 
         // If the response is not null everything went well and we can resolve the promise.
         if (response != null) {
-            if (mOptions.hasKey("fastMode") && mOptions.getBoolean("fastMode")) {
+            if (mBurstIndex >= 0) {
+                WritableMap wrapper = Arguments.createMap();
+                if (mOptions.hasKey("id")) {
+                    wrapper.putInt("id", mOptions.getInt("id"));
+                }
+                wrapper.putInt("index", mBurstIndex);
+                wrapper.putMap("data", response);
+                mPictureSavedDelegate.onPictureSaved(wrapper);
+            } else if (mOptions.hasKey("fastMode") && mOptions.getBoolean("fastMode")) {
                 WritableMap wrapper = Arguments.createMap();
                 wrapper.putInt("id", mOptions.getInt("id"));
                 wrapper.putMap("data", response);
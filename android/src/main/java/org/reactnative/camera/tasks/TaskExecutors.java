@@ -0,0 +1,138 @@
+package org.reactnative.camera.tasks;
+
+import android.os.Process;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread pools the camera tasks run on. Frame decoding and capture I/O get pools of their
+ * own, so a slow picture save never holds up the detectors, and neither waits on app code
+ * using the process-wide AsyncTask executors. Picture tasks hand the extra outputs they
+ * encode to a third pool, which they can wait on without starving the I/O pool.
+ *
+ * Pool sizes and priorities can be changed with {@link #configure(Config)}, usually through
+ * {@link org.reactnative.camera.RNCameraPackage}, before the first camera is created.
+ */
+public class TaskExecutors {
+  public static class Config {
+    private int mDecodeThreads = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    private int mDecodePriority = Process.THREAD_PRIORITY_DEFAULT;
+    private int mIoThreads = 2;
+    private int mIoPriority = Process.THREAD_PRIORITY_BACKGROUND;
+    private int mEncodeThreads = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+    /**
+     * Threads running barcode, face and text detection on preview frames.
+     */
+    public Config setDecodeThreads(int threads) {
+      mDecodeThreads = Math.max(1, threads);
+      return this;
+    }
+
+    /**
+     * A {@link Process} thread priority, e.g. {@link Process#THREAD_PRIORITY_DEFAULT}.
+     */
+    public Config setDecodePriority(int priority) {
+      mDecodePriority = priority;
+      return this;
+    }
+
+    /**
+     * Threads processing and saving captured pictures.
+     */
+    public Config setIoThreads(int threads) {
+      mIoThreads = Math.max(1, threads);
+      return this;
+    }
+
+    public Config setIoPriority(int priority) {
+      mIoPriority = priority;
+      return this;
+    }
+
+    /**
+     * Threads encoding the extra outputs of a picture in parallel.
+     */
+    public Config setEncodeThreads(int threads) {
+      mEncodeThreads = Math.max(1, threads);
+      return this;
+    }
+  }
+
+  private static final long KEEP_ALIVE_SECONDS = 30;
+  // the frame dispatcher never runs more than one task per detector
+  private static final int DECODE_QUEUE_SIZE = 16;
+  private static final int ENCODE_QUEUE_SIZE = 16;
+
+  private static Config sConfig = new Config();
+  private static ThreadPoolExecutor sDecodeExecutor;
+  private static ThreadPoolExecutor sIoExecutor;
+  private static ThreadPoolExecutor sEncodeExecutor;
+
+  public static synchronized void configure(Config config) {
+    sConfig = config;
+    // the pools are rebuilt on next use. The running ones aren't shut down: a task holding one
+    // may still submit to it, and work rejected after a shutdown would be dropped, leaving its
+    // future pending forever. Their threads time out once idle and the pools are collected.
+    sDecodeExecutor = null;
+    sIoExecutor = null;
+    sEncodeExecutor = null;
+  }
+
+  public static synchronized Executor decode() {
+    if (sDecodeExecutor == null) {
+      sDecodeExecutor = createExecutor("RNCamera decode", sConfig.mDecodeThreads,
+          new LinkedBlockingQueue<Runnable>(DECODE_QUEUE_SIZE), sConfig.mDecodePriority);
+    }
+    return sDecodeExecutor;
+  }
+
+  public static synchronized Executor io() {
+    if (sIoExecutor == null) {
+      // unbounded, captures are submitted from the camera and main threads, which must never
+      // end up saving a picture themselves
+      sIoExecutor = createExecutor("RNCamera io", sConfig.mIoThreads,
+          new LinkedBlockingQueue<Runnable>(), sConfig.mIoPriority);
+    }
+    return sIoExecutor;
+  }
+
+  public static synchronized ExecutorService encode() {
+    if (sEncodeExecutor == null) {
+      sEncodeExecutor = createExecutor("RNCamera encode", sConfig.mEncodeThreads,
+          new LinkedBlockingQueue<Runnable>(ENCODE_QUEUE_SIZE), sConfig.mIoPriority);
+    }
+    return sEncodeExecutor;
+  }
+
+  /**
+   * Work rejected by a full {@code queue} runs on the submitting thread, so a bounded queue is
+   * only fine where the submitters can't overflow it or are worker threads themselves.
+   */
+  private static ThreadPoolExecutor createExecutor(final String name, int threads, BlockingQueue<Runnable> queue, final int priority) {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+        queue, new ThreadFactory() {
+      private final AtomicInteger mCount = new AtomicInteger(1);
+
+      @Override
+      public Thread newThread(final Runnable runnable) {
+        return new Thread(new Runnable() {
+          @Override
+          public void run() {
+            Process.setThreadPriority(priority);
+            runnable.run();
+          }
+        }, name + " #" + mCount.getAndIncrement());
+      }
+    }, new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+}
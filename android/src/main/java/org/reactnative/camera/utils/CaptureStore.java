@@ -0,0 +1,245 @@
+package org.reactnative.camera.utils;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Captures kept on the native side and handed to JS as a handle, so their bytes don't have to
+ * cross the bridge as base64. Other native code, an uploader for instance, looks a capture up
+ * by its handle and reads it straight from memory or from its file; JS can read it in chunks.
+ *
+ * Captures stay around until they are released, file-backed ones only hold the path and never
+ * delete the file. The store holds at most 64 MB of in-memory captures and 256 handles, past
+ * that the oldest captures are evicted: they are dropped as if released, with a warning in the
+ * log, and {@link #isEvicted(String)} tells their handles apart from unknown ones.
+ * {@link #clear()} drops everything when the React instance goes away.
+ */
+public class CaptureStore {
+  private static final String TAG = "RNCamera";
+  private static final long MAX_MEMORY_BYTES = 64 * 1024 * 1024;
+  private static final int MAX_CAPTURES = 256;
+  // evicted handles remembered to report them as such, oldest forgotten first
+  private static final int MAX_EVICTED_HANDLES = 256;
+
+  private static final CaptureStore sInstance = new CaptureStore();
+
+  // oldest first
+  private final Map<String, Capture> mCaptures = new LinkedHashMap<>();
+  private final Set<String> mEvictedHandles = Collections.newSetFromMap(
+      new LinkedHashMap<String, Boolean>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+          return size() > MAX_EVICTED_HANDLES;
+        }
+      });
+  private long mMemoryBytes = 0;
+
+  public static CaptureStore getInstance() {
+    return sInstance;
+  }
+
+  public static class Capture {
+    // read-only, positioned at the start of the capture
+    private final ByteBuffer mBytes;
+    private final long mMemoryBytes;
+    private final File mFile;
+    private final String mMimeType;
+
+    private Capture(ByteBuffer bytes, long memoryBytes, File file, String mimeType) {
+      mBytes = bytes;
+      mMemoryBytes = memoryBytes;
+      mFile = file;
+      mMimeType = mimeType;
+    }
+
+    public String getMimeType() {
+      return mMimeType;
+    }
+
+    /**
+     * @return the file the capture was saved to, null if it only lives in memory
+     */
+    public File getFile() {
+      return mFile;
+    }
+
+    public long getLength() {
+      return mBytes != null ? mBytes.remaining() : mFile.length();
+    }
+
+    private long getMemoryBytes() {
+      return mMemoryBytes;
+    }
+
+    /**
+     * @return a read-only view of the capture, over the stored bytes or a memory mapping of
+     * its file, without copying it
+     */
+    public ByteBuffer getBuffer() throws IOException {
+      if (mBytes != null) {
+        return mBytes.duplicate();
+      }
+      RandomAccessFile file = new RandomAccessFile(mFile, "r");
+      try {
+        FileChannel channel = file.getChannel();
+        // the mapping stays valid once the file is closed
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      } finally {
+        file.close();
+      }
+    }
+
+    public InputStream openStream() throws IOException {
+      return mBytes != null ? new ByteBufferInputStream(mBytes.duplicate()) : new FileInputStream(mFile);
+    }
+
+    /**
+     * @return up to {@code length} bytes starting at {@code offset}, empty past the end
+     */
+    public byte[] read(long offset, int length) throws IOException {
+      offset = Math.max(0, offset);
+      long available = Math.max(0, getLength() - offset);
+      byte[] chunk = new byte[(int) Math.min(Math.max(length, 0), available)];
+      if (chunk.length == 0) {
+        return chunk;
+      }
+      if (mBytes != null) {
+        ByteBuffer view = mBytes.duplicate();
+        view.position((int) offset);
+        view.get(chunk);
+        return chunk;
+      }
+      RandomAccessFile file = new RandomAccessFile(mFile, "r");
+      try {
+        file.seek(offset);
+        file.readFully(chunk);
+      } finally {
+        file.close();
+      }
+      return chunk;
+    }
+  }
+
+  /**
+   * Keeps {@code bytes} in memory, without copying them, until the handle is released.
+   *
+   * @return the handle of the capture
+   */
+  public String put(byte[] bytes, String mimeType) {
+    return put(ByteBuffer.wrap(bytes), mimeType);
+  }
+
+  /**
+   * Keeps the remaining bytes of {@code buffer} in memory, without copying them, until the
+   * handle is released. Its whole capacity counts against the memory budget.
+   *
+   * @return the handle of the capture
+   */
+  public String put(ByteBuffer buffer, String mimeType) {
+    return add(new Capture(buffer.slice().asReadOnlyBuffer(), buffer.capacity(), null, mimeType));
+  }
+
+  /**
+   * @return the handle of the capture saved to {@code file}
+   */
+  public String put(File file, String mimeType) {
+    return add(new Capture(null, 0, file, mimeType));
+  }
+
+  /**
+   * @return the capture, or null if the handle is unknown or was released
+   */
+  public synchronized Capture get(String handle) {
+    return mCaptures.get(handle);
+  }
+
+  /**
+   * @return whether the capture of the handle was dropped to make room for newer ones
+   */
+  public synchronized boolean isEvicted(String handle) {
+    return mEvictedHandles.contains(handle);
+  }
+
+  /**
+   * @return whether the handle was known
+   */
+  public synchronized boolean release(String handle) {
+    Capture capture = mCaptures.remove(handle);
+    if (capture == null) {
+      return false;
+    }
+    mMemoryBytes -= capture.getMemoryBytes();
+    return true;
+  }
+
+  /**
+   * Releases every handle.
+   */
+  public synchronized void clear() {
+    mCaptures.clear();
+    mEvictedHandles.clear();
+    mMemoryBytes = 0;
+  }
+
+  private synchronized String add(Capture capture) {
+    String handle = UUID.randomUUID().toString();
+    mCaptures.put(handle, capture);
+    mMemoryBytes += capture.getMemoryBytes();
+
+    // the new capture is kept even if it is over the budget on its own
+    Iterator<Map.Entry<String, Capture>> oldest = mCaptures.entrySet().iterator();
+    while (mCaptures.size() > 1 && (mCaptures.size() > MAX_CAPTURES || mMemoryBytes > MAX_MEMORY_BYTES)) {
+      Map.Entry<String, Capture> evicted = oldest.next();
+      mMemoryBytes -= evicted.getValue().getMemoryBytes();
+      oldest.remove();
+      mEvictedHandles.add(evicted.getKey());
+      Log.w(TAG, "Capture store is full, evicted the capture of handle " + evicted.getKey()
+          + " without it being released");
+    }
+    return handle;
+  }
+
+  private static class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer mBuffer;
+
+    ByteBufferInputStream(ByteBuffer buffer) {
+      mBuffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return mBuffer.hasRemaining() ? mBuffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!mBuffer.hasRemaining()) {
+        return -1;
+      }
+      len = Math.min(len, mBuffer.remaining());
+      mBuffer.get(b, off, len);
+      return len;
+    }
+
+    @Override
+    public int available() {
+      return mBuffer.remaining();
+    }
+  }
+}
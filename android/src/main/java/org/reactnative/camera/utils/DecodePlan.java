@@ -0,0 +1,97 @@
+package org.reactnative.camera.utils;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+
+import java.io.IOException;
+
+/**
+ * Works out how little of a JPEG has to be decoded for the requested output: bounds are read
+ * first, only the region that is kept is decoded, and it is subsampled by the largest power of
+ * two that keeps it at least as wide as the target. What is left is a fractional scale for
+ * the caller to apply.
+ */
+public class DecodePlan {
+  private final Rect mRegion;
+  private final boolean mFullImage;
+  private final int mSampleSize;
+  private final int mSampledWidth;
+  private final int mTargetWidth;
+
+  private DecodePlan(Rect region, boolean fullImage, int sampleSize, int sampledWidth, int targetWidth) {
+    mRegion = region;
+    mFullImage = fullImage;
+    mSampleSize = sampleSize;
+    mSampledWidth = sampledWidth;
+    mTargetWidth = targetWidth;
+  }
+
+  /**
+   * @param rotation clockwise rotation the image will get after decoding, the target width
+   * applies to the rotated image
+   * @param targetWidth width of the final image, 0 to keep the size
+   * @param cropAspectRatio long side over short side to crop the image to, centered, 0 to keep
+   * the whole image
+   */
+  public static DecodePlan create(byte[] jpeg, int rotation, int targetWidth, float cropAspectRatio) {
+    BitmapFactory.Options bounds = new BitmapFactory.Options();
+    bounds.inJustDecodeBounds = true;
+    BitmapFactory.decodeByteArray(jpeg, 0, jpeg.length, bounds);
+    int width = bounds.outWidth;
+    int height = bounds.outHeight;
+
+    Rect region = new Rect(0, 0, Math.max(width, 0), Math.max(height, 0));
+    if (cropAspectRatio >= 1 && width > 0 && height > 0) {
+      region = getCenterCrop(width, height, cropAspectRatio);
+    }
+    boolean fullImage = width <= 0 || height <= 0 || (region.width() == width && region.height() == height);
+
+    int sourceWidth = rotation % 180 == 0 ? region.width() : region.height();
+    int sampleSize = 1;
+    if (targetWidth > 0) {
+      while (sourceWidth / (sampleSize * 2) >= targetWidth) {
+        sampleSize *= 2;
+      }
+    }
+    return new DecodePlan(region, fullImage, sampleSize, sourceWidth / sampleSize, targetWidth);
+  }
+
+  public Bitmap decode(byte[] jpeg) throws IOException {
+    BitmapFactory.Options options = new BitmapFactory.Options();
+    options.inSampleSize = mSampleSize;
+    if (mFullImage) {
+      if (mTargetWidth > 0 && mSampledWidth > mTargetWidth) {
+        // the decoder does the fractional scale down while it decodes
+        options.inScaled = true;
+        options.inDensity = mSampledWidth;
+        options.inTargetDensity = mTargetWidth;
+      }
+      return BitmapFactory.decodeByteArray(jpeg, 0, jpeg.length, options);
+    }
+
+    BitmapRegionDecoder decoder = BitmapRegionDecoder.newInstance(jpeg, 0, jpeg.length, false);
+    try {
+      return decoder.decodeRegion(mRegion, options);
+    } finally {
+      decoder.recycle();
+    }
+  }
+
+  private static Rect getCenterCrop(int width, int height, float aspectRatio) {
+    boolean landscape = width >= height;
+    int longSide = landscape ? width : height;
+    int shortSide = landscape ? height : width;
+    if ((float) longSide / shortSide > aspectRatio) {
+      longSide = Math.round(shortSide * aspectRatio);
+    } else {
+      shortSide = Math.round(longSide / aspectRatio);
+    }
+    int cropWidth = landscape ? longSide : shortSide;
+    int cropHeight = landscape ? shortSide : longSide;
+    int left = (width - cropWidth) / 2;
+    int top = (height - cropHeight) / 2;
+    return new Rect(left, top, left + cropWidth, top + cropHeight);
+  }
+}
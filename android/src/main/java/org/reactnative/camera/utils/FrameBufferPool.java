@@ -0,0 +1,61 @@
+package org.reactnative.camera.utils;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Small pool of equally sized byte arrays used to pass frame data around
+ * without allocating a new array for every frame.
+ *
+ * Calling {@link #reset(int)} starts a new generation of buffers. Buffers from an older
+ * generation that are released afterwards are simply dropped, so holders don't need to
+ * know that the frame size changed in the meantime.
+ */
+public class FrameBufferPool {
+  private final int mCapacity;
+  private final ArrayDeque<byte[]> mFreeBuffers;
+  private final Set<byte[]> mBuffers = Collections.newSetFromMap(new IdentityHashMap<byte[], Boolean>());
+  private int mBufferSize = 0;
+
+  public FrameBufferPool(int capacity) {
+    mCapacity = capacity;
+    mFreeBuffers = new ArrayDeque<>(capacity);
+  }
+
+  public synchronized void reset(int bufferSize) {
+    mBufferSize = bufferSize;
+    mFreeBuffers.clear();
+    mBuffers.clear();
+  }
+
+  public synchronized int getBufferSize() {
+    return mBufferSize;
+  }
+
+  /**
+   * @return a free buffer, allocating it lazily, or null if every buffer is in use
+   */
+  public synchronized byte[] acquire() {
+    byte[] buffer = mFreeBuffers.poll();
+    if (buffer == null && mBufferSize > 0 && mBuffers.size() < mCapacity) {
+      buffer = new byte[mBufferSize];
+      mBuffers.add(buffer);
+    }
+    return buffer;
+  }
+
+  /**
+   * @return true if the buffer belongs to the current generation and went back to the pool
+   */
+  public synchronized boolean release(byte[] buffer) {
+    if (buffer == null || !mBuffers.contains(buffer)) {
+      return false;
+    }
+    if (!mFreeBuffers.contains(buffer)) {
+      mFreeBuffers.add(buffer);
+    }
+    return true;
+  }
+}
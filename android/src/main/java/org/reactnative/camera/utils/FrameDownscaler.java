@@ -0,0 +1,78 @@
+package org.reactnative.camera.utils;
+
+/**
+ * Shrinks NV21 frames by an integer factor, averaging every factor x factor block of pixels.
+ * Used when the camera can't deliver frames at the analysis size by itself.
+ */
+public class FrameDownscaler {
+  /**
+   * @return the largest factor that keeps the frame at least as big as the target size, 1 if
+   * the frame should be left alone
+   */
+  public static int getScaleFactor(int width, int height, int targetWidth, int targetHeight) {
+    int frameLonger = Math.max(width, height);
+    int frameShorter = Math.min(width, height);
+    int targetLonger = Math.max(targetWidth, targetHeight);
+    int targetShorter = Math.min(targetWidth, targetHeight);
+    if (targetLonger <= 0 || targetShorter <= 0) {
+      return 1;
+    }
+    return Math.max(1, Math.min(frameLonger / targetLonger, frameShorter / targetShorter));
+  }
+
+  public static int getScaledWidth(int width, int factor) {
+    return (width / factor) & ~1;
+  }
+
+  public static int getScaledHeight(int height, int factor) {
+    return (height / factor) & ~1;
+  }
+
+  /**
+   * Writes the downscaled frame to {@code output}, which has to hold at least
+   * {@code scaledWidth * scaledHeight * 3 / 2} bytes.
+   */
+  public static void downscaleNv21(byte[] data, int width, int height, int factor, byte[] output) {
+    int scaledWidth = getScaledWidth(width, factor);
+    int scaledHeight = getScaledHeight(height, factor);
+    int area = factor * factor;
+
+    int out = 0;
+    for (int y = 0; y < scaledHeight; y++) {
+      int rowStart = y * factor * width;
+      for (int x = 0; x < scaledWidth; x++) {
+        int sum = 0;
+        int blockStart = rowStart + x * factor;
+        for (int by = 0; by < factor; by++) {
+          int offset = blockStart + by * width;
+          for (int bx = 0; bx < factor; bx++) {
+            sum += data[offset + bx] & 0xff;
+          }
+        }
+        output[out++] = (byte) (sum / area);
+      }
+    }
+
+    // the interleaved VU plane is half the size in both directions, so the same factor applies to its samples
+    int chromaStart = width * height;
+    int scaledChromaWidth = scaledWidth / 2;
+    int scaledChromaHeight = scaledHeight / 2;
+    for (int y = 0; y < scaledChromaHeight; y++) {
+      int rowStart = chromaStart + y * factor * width;
+      for (int x = 0; x < scaledChromaWidth; x++) {
+        int sumV = 0;
+        int sumU = 0;
+        int blockStart = rowStart + x * factor * 2;
+        for (int by = 0; by < factor; by++) {
+          int offset = blockStart + by * width;
+          for (int bx = 0; bx < factor; bx++) {
+            sumV += data[offset + bx * 2] & 0xff;
+            sumU += data[offset + bx * 2 + 1] & 0xff;
+          }
+        }
+        output[out++] = (byte) (sumV / area);
+        output[out++] = (byte) (sumU / area);
+      }
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package org.reactnative.camera.utils;
+
+import android.annotation.TargetApi;
+import android.graphics.Bitmap;
+import android.media.MediaCodecInfo;
+import android.media.MediaCodecList;
+import android.media.MediaFormat;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.heifwriter.HeifWriter;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Writes pictures as HEIF through androidx's HeifWriter. The library needs Android 9 and is
+ * only compiled against here, apps that want HEIF pictures have to add it themselves. This
+ * class is only loaded once {@link #isAvailable()} found it.
+ */
+class HeifEncoder {
+  private static final String TAG = "RNCamera";
+  private static final long ENCODE_TIMEOUT_MS = 5000;
+  private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+  private static Boolean sAvailable;
+
+  private HeifEncoder() {
+  }
+
+  static synchronized boolean isAvailable() {
+    if (sAvailable == null) {
+      sAvailable = Build.VERSION.SDK_INT >= Build.VERSION_CODES.P && hasHeifWriter() && hasHevcEncoder();
+    }
+    return sAvailable;
+  }
+
+  private static boolean hasHeifWriter() {
+    try {
+      Class.forName("androidx.heifwriter.HeifWriter");
+      return true;
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+  }
+
+  @TargetApi(Build.VERSION_CODES.P)
+  private static boolean hasHevcEncoder() {
+    for (MediaCodecInfo info : new MediaCodecList(MediaCodecList.REGULAR_CODECS).getCodecInfos()) {
+      if (!info.isEncoder()) {
+        continue;
+      }
+      for (String type : info.getSupportedTypes()) {
+        if (MediaFormat.MIMETYPE_IMAGE_ANDROID_HEIC.equalsIgnoreCase(type) || MediaFormat.MIMETYPE_VIDEO_HEVC.equalsIgnoreCase(type)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * HeifWriter can only write to a file, so the picture is encoded into a temporary one that
+   * is then copied into {@code stream}.
+   */
+  @TargetApi(Build.VERSION_CODES.P)
+  static void compress(Bitmap bitmap, int quality, OutputStream stream, File cacheDirectory) throws IOException {
+    File file = File.createTempFile("heif", ".heic", cacheDirectory);
+    try {
+      HeifWriter writer = new HeifWriter.Builder(file.getAbsolutePath(), bitmap.getWidth(), bitmap.getHeight(), HeifWriter.INPUT_MODE_BITMAP)
+          .setQuality(Math.max(0, Math.min(100, quality)))
+          .build();
+      try {
+        writer.start();
+        writer.addBitmap(bitmap);
+        writer.stop(ENCODE_TIMEOUT_MS);
+      } catch (Exception e) {
+        throw new IOException("Failed to encode the picture as HEIF.", e);
+      } finally {
+        writer.close();
+      }
+
+      InputStream input = new FileInputStream(file);
+      try {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+          stream.write(buffer, 0, read);
+        }
+      } finally {
+        input.close();
+      }
+    } finally {
+      if (!file.delete()) {
+        Log.w(TAG, "Could not delete " + file);
+      }
+    }
+  }
+}
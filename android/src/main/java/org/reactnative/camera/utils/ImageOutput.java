@@ -0,0 +1,177 @@
+package org.reactnative.camera.utils;
+
+import android.util.Base64;
+import android.util.Base64OutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sink for an encoded picture. Whatever is written goes through a buffer straight into the
+ * output file's channel and, if requested, through a streaming base64 encoder at the same
+ * time, so the encoded image never has to be held in memory as a whole. The raw bytes are only
+ * kept when asked for, for captures handed out through {@link CaptureStore}.
+ */
+public class ImageOutput implements Closeable {
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final FileOutputStream mFile;
+  private final ByteArrayOutputStream mBase64Bytes;
+  private final BufferOutputStream mBytes;
+  private final OutputStream mStream;
+  private boolean mClosed = false;
+
+  /**
+   * @param path file to write to, null to skip saving
+   * @param base64 whether to encode the written data to base64 as well
+   */
+  public ImageOutput(String path, boolean base64) throws IOException {
+    this(path, base64, false);
+  }
+
+  /**
+   * @param keepBytes whether to keep a copy of the written data in memory
+   */
+  public ImageOutput(String path, boolean base64, boolean keepBytes) throws IOException {
+    List<OutputStream> streams = new ArrayList<>();
+    if (path != null) {
+      mFile = new FileOutputStream(path);
+      FileChannel channel = mFile.getChannel();
+      streams.add(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+    } else {
+      mFile = null;
+    }
+    if (base64) {
+      mBase64Bytes = new ByteArrayOutputStream();
+      streams.add(new Base64OutputStream(mBase64Bytes, Base64.NO_WRAP));
+    } else {
+      mBase64Bytes = null;
+    }
+    if (keepBytes) {
+      mBytes = new BufferOutputStream();
+      streams.add(mBytes);
+    } else {
+      mBytes = null;
+    }
+
+    if (streams.size() > 1) {
+      mStream = new TeeOutputStream(streams);
+    } else if (streams.size() == 1) {
+      mStream = streams.get(0);
+    } else {
+      mStream = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+      };
+    }
+  }
+
+  public OutputStream getStream() {
+    return mStream;
+  }
+
+  /**
+   * @return the base64 encoding of everything written, or null if it wasn't requested.
+   * Only complete once the output is closed.
+   */
+  public String getBase64() {
+    if (mBase64Bytes == null) {
+      return null;
+    }
+    try {
+      return mBase64Bytes.toString("US-ASCII");
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * @return a read-only view of everything written, without copying it, or null if it wasn't
+   * kept. Only complete once the output is closed.
+   */
+  public ByteBuffer getBuffer() {
+    return mBytes != null ? mBytes.toBuffer() : null;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (mClosed) {
+      return;
+    }
+    mClosed = true;
+    try {
+      mStream.close();
+    } finally {
+      // also closes the channel
+      if (mFile != null) {
+        mFile.close();
+      }
+    }
+  }
+
+  private static class BufferOutputStream extends ByteArrayOutputStream {
+    synchronized ByteBuffer toBuffer() {
+      return ByteBuffer.wrap(buf, 0, count).asReadOnlyBuffer();
+    }
+  }
+
+  private static class TeeOutputStream extends OutputStream {
+    private final List<OutputStream> mStreams;
+
+    TeeOutputStream(List<OutputStream> streams) {
+      mStreams = streams;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      for (OutputStream stream : mStreams) {
+        stream.write(b);
+      }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      for (OutputStream stream : mStreams) {
+        stream.write(b, off, len);
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      for (OutputStream stream : mStreams) {
+        stream.flush();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      IOException error = null;
+      for (OutputStream stream : mStreams) {
+        try {
+          stream.close();
+        } catch (IOException e) {
+          if (error == null) {
+            error = e;
+          }
+        }
+      }
+      if (error != null) {
+        throw error;
+      }
+    }
+  }
+}
@@ -0,0 +1,425 @@
+package org.reactnative.camera.utils;
+
+import androidx.exifinterface.media.ExifInterface;
+
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+
+import org.reactnative.camera.RNCameraViewHelper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Builds an EXIF APP1 segment in memory and writes it into a JPEG while the JPEG is being
+ * written, so a picture is saved with a single sequential write instead of being saved and
+ * then rewritten by {@link ExifInterface#saveAttributes()}.
+ *
+ * Only the tags {@link RNCameraViewHelper#exifTags} gives an id for are written, values that
+ * would need more than one number (chromaticities, subject area, destination coordinates...)
+ * and thumbnail or raw image tags are left out. That's fine for re-encoded pictures, which have
+ * no EXIF of their own to keep, but a camera JPEG's segment shouldn't be replaced by one built
+ * here.
+ */
+public class JpegExifWriter {
+  private static final int MARKER_SOI = 0xD8;
+  private static final int MARKER_APP1 = 0xE1;
+  private static final int MARKER_COM = 0xFE;
+  private static final int MAX_SEGMENT_LENGTH = 0xFFFF;
+  private static final byte[] EXIF_HEADER = {'E', 'x', 'i', 'f', 0, 0};
+  private static final byte[] ASCII_PREFIX = {'A', 'S', 'C', 'I', 'I', 0, 0, 0};
+  private static final Charset ASCII = Charset.forName("US-ASCII");
+
+  public static final int IFD_0 = 0;
+  public static final int IFD_EXIF = 1;
+  public static final int IFD_GPS = 2;
+
+  public static final int TYPE_BYTE = 1;
+  public static final int TYPE_ASCII = 2;
+  public static final int TYPE_SHORT = 3;
+  public static final int TYPE_LONG = 4;
+  public static final int TYPE_RATIONAL = 5;
+  public static final int TYPE_UNDEFINED = 7;
+  public static final int TYPE_SRATIONAL = 10;
+
+  // undefined values written as text, with a character code prefix for the comment-like ones
+  public static final int TYPE_VERSION = -1;
+  public static final int TYPE_COMMENT = -2;
+
+  private static final int TAG_EXIF_IFD_POINTER = 0x8769;
+  private static final int TAG_GPS_IFD_POINTER = 0x8825;
+  private static final int TAG_GPS_LATITUDE_REF = 0x0001;
+  private static final int TAG_GPS_LATITUDE = 0x0002;
+  private static final int TAG_GPS_LONGITUDE_REF = 0x0003;
+  private static final int TAG_GPS_LONGITUDE = 0x0004;
+  private static final int TAG_GPS_ALTITUDE_REF = 0x0005;
+  private static final int TAG_GPS_ALTITUDE = 0x0006;
+
+  private static class Entry {
+    final int tag;
+    final int type;
+    final int count;
+    final byte[] value;
+
+    Entry(int tag, int type, int count, byte[] value) {
+      this.tag = tag;
+      this.type = type;
+      this.count = count;
+      this.value = value;
+    }
+
+    int getDataSize() {
+      // values of up to 4 bytes go into the entry itself, longer ones are padded to even offsets
+      return value.length <= 4 ? 0 : value.length + (value.length & 1);
+    }
+  }
+
+  private static final Comparator<Entry> BY_TAG = new Comparator<Entry>() {
+    @Override
+    public int compare(Entry a, Entry b) {
+      return a.tag - b.tag;
+    }
+  };
+
+  /**
+   * Builds the APP1 segment, marker included, from the values of an EXIF map as returned by
+   * {@link org.reactnative.camera.RNCameraViewHelper#getExifData}, plus any user extras
+   * merged into it. Latitude, longitude and altitude are given as signed decimal numbers.
+   *
+   * @return the segment, or null if none of the values can be written
+   */
+  public static byte[] buildSegment(ReadableMap exif) throws IOException {
+    List<Entry> ifd0 = new ArrayList<>();
+    List<Entry> exifIfd = new ArrayList<>();
+    List<Entry> gpsIfd = new ArrayList<>();
+
+    for (RNCameraViewHelper.ExifTag tag : RNCameraViewHelper.exifTags) {
+      if (tag.id == 0 || !exif.hasKey(tag.name) || exif.isNull(tag.name)) {
+        continue;
+      }
+      Entry entry = createEntry(tag, exif);
+      if (entry != null) {
+        (tag.ifd == IFD_0 ? ifd0 : tag.ifd == IFD_EXIF ? exifIfd : gpsIfd).add(entry);
+      }
+    }
+    addLocation(exif, gpsIfd);
+
+    if (ifd0.isEmpty() && exifIfd.isEmpty() && gpsIfd.isEmpty()) {
+      return null;
+    }
+
+    // the pointers are placeholders until the layout is known, they are patched when writing
+    if (!exifIfd.isEmpty()) {
+      ifd0.add(new Entry(TAG_EXIF_IFD_POINTER, TYPE_LONG, 1, new byte[4]));
+    }
+    if (!gpsIfd.isEmpty()) {
+      ifd0.add(new Entry(TAG_GPS_IFD_POINTER, TYPE_LONG, 1, new byte[4]));
+    }
+    Collections.sort(ifd0, BY_TAG);
+    Collections.sort(exifIfd, BY_TAG);
+    Collections.sort(gpsIfd, BY_TAG);
+
+    // offsets are relative to the start of the TIFF header, which takes 8 bytes
+    int exifIfdOffset = 8 + getIfdSize(ifd0);
+    int gpsIfdOffset = exifIfdOffset + getIfdSize(exifIfd);
+    int tiffSize = gpsIfdOffset + getIfdSize(gpsIfd);
+    int segmentLength = 2 + EXIF_HEADER.length + tiffSize;
+    if (segmentLength > MAX_SEGMENT_LENGTH) {
+      throw new IOException("EXIF data does not fit into a JPEG segment.");
+    }
+
+    for (Entry entry : ifd0) {
+      if (entry.tag == TAG_EXIF_IFD_POINTER) {
+        putInt(entry.value, 0, exifIfdOffset);
+      } else if (entry.tag == TAG_GPS_IFD_POINTER) {
+        putInt(entry.value, 0, gpsIfdOffset);
+      }
+    }
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(2 + segmentLength);
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeByte(0xFF);
+    out.writeByte(MARKER_APP1);
+    out.writeShort(segmentLength);
+    out.write(EXIF_HEADER);
+    // big endian TIFF header, first IFD right after it
+    out.writeByte('M');
+    out.writeByte('M');
+    out.writeShort(0x002A);
+    out.writeInt(8);
+    writeIfd(out, ifd0, 8);
+    writeIfd(out, exifIfd, exifIfdOffset);
+    writeIfd(out, gpsIfd, gpsIfdOffset);
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Writes a complete JPEG with {@code segment} right after the start of image marker. EXIF
+   * segments already in the JPEG are dropped, so a null segment strips the EXIF data.
+   */
+  public static void writeJpeg(byte[] jpeg, byte[] segment, OutputStream out) throws IOException {
+    if (jpeg.length < 4 || (jpeg[0] & 0xFF) != 0xFF || (jpeg[1] & 0xFF) != MARKER_SOI) {
+      throw new IOException("Not a JPEG image.");
+    }
+    out.write(jpeg, 0, 2);
+    if (segment != null) {
+      out.write(segment);
+    }
+
+    int position = 2;
+    while (position + 4 <= jpeg.length && (jpeg[position] & 0xFF) == 0xFF) {
+      int marker = jpeg[position + 1] & 0xFF;
+      boolean isMetadata = (marker >= 0xE0 && marker <= 0xEF) || marker == MARKER_COM;
+      if (!isMetadata) {
+        break;
+      }
+      int length = ((jpeg[position + 2] & 0xFF) << 8) | (jpeg[position + 3] & 0xFF);
+      int end = Math.min(jpeg.length, position + 2 + length);
+      if (!(marker == MARKER_APP1 && isExifSegment(jpeg, position + 4))) {
+        out.write(jpeg, position, end - position);
+      }
+      position = end;
+    }
+    // the rest of the headers and the scan data are copied as they are
+    out.write(jpeg, position, jpeg.length - position);
+  }
+
+  /**
+   * Wraps the stream an encoder writes a fresh JPEG to, inserting {@code segment} right after
+   * the start of image marker. The encoder output must not carry EXIF data of its own.
+   */
+  public static OutputStream wrap(final OutputStream out, final byte[] segment) {
+    return new OutputStream() {
+      private int mHeaderBytes = 0;
+
+      @Override
+      public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        while (mHeaderBytes < 2 && len > 0) {
+          out.write(b[off]);
+          mHeaderBytes++;
+          off++;
+          len--;
+          if (mHeaderBytes == 2) {
+            out.write(segment);
+          }
+        }
+        if (len > 0) {
+          out.write(b, off, len);
+        }
+      }
+
+      @Override
+      public void flush() throws IOException {
+        out.flush();
+      }
+
+      @Override
+      public void close() throws IOException {
+        out.close();
+      }
+    };
+  }
+
+  private static boolean isExifSegment(byte[] jpeg, int offset) {
+    if (offset + EXIF_HEADER.length > jpeg.length) {
+      return false;
+    }
+    for (int i = 0; i < EXIF_HEADER.length; i++) {
+      if (jpeg[offset + i] != EXIF_HEADER[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static Entry createEntry(RNCameraViewHelper.ExifTag tag, ReadableMap exif) {
+    switch (tag.fieldType) {
+      case TYPE_ASCII: {
+        String value = getString(exif, tag.name);
+        byte[] text = value.getBytes(ASCII);
+        byte[] data = new byte[text.length + 1];
+        System.arraycopy(text, 0, data, 0, text.length);
+        return new Entry(tag.id, TYPE_ASCII, data.length, data);
+      }
+      case TYPE_VERSION: {
+        byte[] data = getString(exif, tag.name).getBytes(ASCII);
+        return data.length == 4 ? new Entry(tag.id, TYPE_UNDEFINED, 4, data) : null;
+      }
+      case TYPE_COMMENT: {
+        byte[] text = getString(exif, tag.name).getBytes(ASCII);
+        byte[] data = new byte[ASCII_PREFIX.length + text.length];
+        System.arraycopy(ASCII_PREFIX, 0, data, 0, ASCII_PREFIX.length);
+        System.arraycopy(text, 0, data, ASCII_PREFIX.length, text.length);
+        return new Entry(tag.id, TYPE_UNDEFINED, data.length, data);
+      }
+      case TYPE_SHORT: {
+        Double value = getNumber(exif, tag.name);
+        if (value == null) {
+          return null;
+        }
+        byte[] data = new byte[2];
+        int number = value.intValue();
+        data[0] = (byte) (number >> 8);
+        data[1] = (byte) number;
+        return new Entry(tag.id, TYPE_SHORT, 1, data);
+      }
+      case TYPE_LONG: {
+        Double value = getNumber(exif, tag.name);
+        if (value == null) {
+          return null;
+        }
+        byte[] data = new byte[4];
+        putInt(data, 0, value.intValue());
+        return new Entry(tag.id, TYPE_LONG, 1, data);
+      }
+      case TYPE_RATIONAL:
+      case TYPE_SRATIONAL: {
+        Double value = getNumber(exif, tag.name);
+        if (value == null || (tag.fieldType == TYPE_RATIONAL && value < 0)) {
+          return null;
+        }
+        byte[] data = new byte[8];
+        putRational(data, 0, value);
+        return new Entry(tag.id, tag.fieldType, 1, data);
+      }
+      default:
+        return null;
+    }
+  }
+
+  private static void addLocation(ReadableMap exif, List<Entry> gpsIfd) {
+    Double latitude = exif.hasKey(ExifInterface.TAG_GPS_LATITUDE) ? getNumber(exif, ExifInterface.TAG_GPS_LATITUDE) : null;
+    Double longitude = exif.hasKey(ExifInterface.TAG_GPS_LONGITUDE) ? getNumber(exif, ExifInterface.TAG_GPS_LONGITUDE) : null;
+    if (latitude != null && longitude != null) {
+      gpsIfd.add(new Entry(TAG_GPS_LATITUDE_REF, TYPE_ASCII, 2, new byte[]{(byte) (latitude < 0 ? 'S' : 'N'), 0}));
+      gpsIfd.add(new Entry(TAG_GPS_LATITUDE, TYPE_RATIONAL, 3, toDegreesMinutesSeconds(latitude)));
+      gpsIfd.add(new Entry(TAG_GPS_LONGITUDE_REF, TYPE_ASCII, 2, new byte[]{(byte) (longitude < 0 ? 'W' : 'E'), 0}));
+      gpsIfd.add(new Entry(TAG_GPS_LONGITUDE, TYPE_RATIONAL, 3, toDegreesMinutesSeconds(longitude)));
+    }
+    Double altitude = exif.hasKey(ExifInterface.TAG_GPS_ALTITUDE) ? getNumber(exif, ExifInterface.TAG_GPS_ALTITUDE) : null;
+    if (altitude != null) {
+      byte[] value = new byte[8];
+      putRational(value, 0, Math.abs(altitude));
+      gpsIfd.add(new Entry(TAG_GPS_ALTITUDE_REF, TYPE_BYTE, 1, new byte[]{(byte) (altitude < 0 ? 1 : 0)}));
+      gpsIfd.add(new Entry(TAG_GPS_ALTITUDE, TYPE_RATIONAL, 1, value));
+    }
+  }
+
+  private static byte[] toDegreesMinutesSeconds(double coordinate) {
+    double value = Math.abs(coordinate);
+    int degrees = (int) value;
+    value = (value - degrees) * 60;
+    int minutes = (int) value;
+    int secondsTimes1000 = (int) Math.round((value - minutes) * 60 * 1000);
+
+    byte[] data = new byte[24];
+    putInt(data, 0, degrees);
+    putInt(data, 4, 1);
+    putInt(data, 8, minutes);
+    putInt(data, 12, 1);
+    putInt(data, 16, secondsTimes1000);
+    putInt(data, 20, 1000);
+    return data;
+  }
+
+  private static String getString(ReadableMap exif, String name) {
+    switch (exif.getType(name)) {
+      case String:
+        return exif.getString(name);
+      case Number:
+        double value = exif.getDouble(name);
+        return value == Math.rint(value) ? Long.toString((long) value) : Double.toString(value);
+      case Boolean:
+        return Boolean.toString(exif.getBoolean(name));
+      default:
+        return "";
+    }
+  }
+
+  private static Double getNumber(ReadableMap exif, String name) {
+    ReadableType type = exif.getType(name);
+    if (type == ReadableType.Number) {
+      return exif.getDouble(name);
+    }
+    if (type == ReadableType.String) {
+      try {
+        return Double.parseDouble(exif.getString(name));
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+    return null;
+  }
+
+  private static int getIfdSize(List<Entry> entries) {
+    if (entries.isEmpty()) {
+      return 0;
+    }
+    int size = 2 + entries.size() * 12 + 4;
+    for (Entry entry : entries) {
+      size += entry.getDataSize();
+    }
+    return size;
+  }
+
+  private static void writeIfd(DataOutputStream out, List<Entry> entries, int offset) throws IOException {
+    if (entries.isEmpty()) {
+      return;
+    }
+    int dataOffset = offset + 2 + entries.size() * 12 + 4;
+    out.writeShort(entries.size());
+    for (Entry entry : entries) {
+      out.writeShort(entry.tag);
+      out.writeShort(entry.type);
+      out.writeInt(entry.count);
+      if (entry.value.length <= 4) {
+        out.write(entry.value);
+        for (int i = entry.value.length; i < 4; i++) {
+          out.writeByte(0);
+        }
+      } else {
+        out.writeInt(dataOffset);
+        dataOffset += entry.getDataSize();
+      }
+    }
+    // no next IFD, there is no thumbnail
+    out.writeInt(0);
+    for (Entry entry : entries) {
+      if (entry.value.length > 4) {
+        out.write(entry.value);
+        if ((entry.value.length & 1) != 0) {
+          out.writeByte(0);
+        }
+      }
+    }
+  }
+
+  private static void putRational(byte[] data, int offset, double value) {
+    int denominator = 10000;
+    while (denominator > 1 && Math.abs(value * denominator) > Integer.MAX_VALUE) {
+      denominator /= 10;
+    }
+    putInt(data, offset, (int) Math.round(value * denominator));
+    putInt(data, offset + 4, denominator);
+  }
+
+  private static void putInt(byte[] data, int offset, int value) {
+    data[offset] = (byte) (value >> 24);
+    data[offset + 1] = (byte) (value >> 16);
+    data[offset + 2] = (byte) (value >> 8);
+    data[offset + 3] = (byte) value;
+  }
+}
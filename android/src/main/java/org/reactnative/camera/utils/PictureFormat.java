@@ -0,0 +1,119 @@
+package org.reactnative.camera.utils;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+
+import com.facebook.react.bridge.ReadableMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Encoding a picture is written in, as set by the {@code format} picture option:
+ * {@code 'jpg' | 'png' | 'webp' | 'heif'}.
+ *
+ * WebP is lossy at any quality, the default quality of 100 included, unless the
+ * {@code webpLossless} option asks for lossless WebP. HEIF needs Android 9, a HEVC encoder and the androidx heifwriter library in the
+ * app, anything else falls back to JPEG, see {@link #fromOptions(ReadableMap)}.
+ */
+public enum PictureFormat {
+  JPEG(".jpg", "image/jpeg"),
+  PNG(".png", "image/png"),
+  WEBP(".webp", "image/webp"),
+  HEIF(".heic", "image/heic");
+
+  // Bitmap.CompressFormat.WEBP_LOSSY and WEBP_LOSSLESS, looked up by name so this compiles
+  // against SDKs older than Android 11
+  private static final int WEBP_LOSSY_LOSSLESS_API = 30;
+
+  private final String mExtension;
+  private final String mMimeType;
+
+  PictureFormat(String extension, String mimeType) {
+    mExtension = extension;
+    mMimeType = mimeType;
+  }
+
+  /**
+   * @return the format requested through options.format if this device can write it, JPEG otherwise
+   */
+  public static PictureFormat fromOptions(ReadableMap options) {
+    if (!options.hasKey("format") || options.isNull("format")) {
+      return JPEG;
+    }
+    return fromString(options.getString("format"));
+  }
+
+  /**
+   * @return whether options.webpLossless asks for lossless WebP, {@code fallback} if it isn't set
+   */
+  public static boolean isWebpLossless(ReadableMap options, boolean fallback) {
+    if (!options.hasKey("webpLossless") || options.isNull("webpLossless")) {
+      return fallback;
+    }
+    return options.getBoolean("webpLossless");
+  }
+
+  public static PictureFormat fromString(String format) {
+    if (format == null) {
+      return JPEG;
+    }
+    switch (format.toLowerCase()) {
+      case "png":
+        return PNG;
+      case "webp":
+        return WEBP;
+      case "heif":
+      case "heic":
+        return HeifEncoder.isAvailable() ? HEIF : JPEG;
+      default:
+        return JPEG;
+    }
+  }
+
+  public String getExtension() {
+    return mExtension;
+  }
+
+  public String getMimeType() {
+    return mMimeType;
+  }
+
+  public boolean isJpeg() {
+    return this == JPEG;
+  }
+
+  /**
+   * @param lossless only used by WebP
+   * @param cacheDirectory directory for intermediate files, HEIF can only be encoded into a file
+   */
+  public void compress(Bitmap bitmap, int quality, boolean lossless, OutputStream stream, File cacheDirectory) throws IOException {
+    if (this == HEIF) {
+      HeifEncoder.compress(bitmap, quality, stream, cacheDirectory);
+      return;
+    }
+    if (this == WEBP && Build.VERSION.SDK_INT < WEBP_LOSSY_LOSSLESS_API) {
+      // the legacy WebP format switches to lossless at quality 100
+      quality = lossless ? 100 : Math.min(quality, 99);
+    }
+    if (!bitmap.compress(getCompressFormat(lossless), quality, stream)) {
+      throw new IOException("Failed to encode the picture as " + name() + ".");
+    }
+  }
+
+  @SuppressWarnings("deprecation")
+  private Bitmap.CompressFormat getCompressFormat(boolean lossless) {
+    switch (this) {
+      case PNG:
+        return Bitmap.CompressFormat.PNG;
+      case WEBP:
+        if (Build.VERSION.SDK_INT >= WEBP_LOSSY_LOSSLESS_API) {
+          return Bitmap.CompressFormat.valueOf(lossless ? "WEBP_LOSSLESS" : "WEBP_LOSSY");
+        }
+        return Bitmap.CompressFormat.WEBP;
+      default:
+        return Bitmap.CompressFormat.JPEG;
+    }
+  }
+}
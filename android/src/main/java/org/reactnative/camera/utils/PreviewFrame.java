@@ -0,0 +1,85 @@
+package org.reactnative.camera.utils;
+
+import android.graphics.Rect;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A camera preview frame that may be shared by several detector tasks at once.
+ * The underlying buffer is handed back to its owner once the last holder released it.
+ */
+public class PreviewFrame {
+  public interface Recycler {
+    void recycle(byte[] data);
+  }
+
+  private final byte[] mData;
+  private final int mWidth;
+  private final int mHeight;
+  private final int mRotation;
+  private final Rect mRegion;
+  private final int mSourceWidth;
+  private final int mSourceHeight;
+  private final Recycler mRecycler;
+  private final AtomicInteger mRefCount = new AtomicInteger(1);
+
+  public PreviewFrame(byte[] data, int width, int height, int rotation, Recycler recycler) {
+    this(data, width, height, rotation, null, width, height, recycler);
+  }
+
+  /**
+   * @param region where this frame was cropped from, in coordinates of the source frame
+   */
+  public PreviewFrame(byte[] data, int width, int height, int rotation, Rect region, int sourceWidth, int sourceHeight, Recycler recycler) {
+    mData = data;
+    mWidth = width;
+    mHeight = height;
+    mRotation = rotation;
+    mRegion = region;
+    mSourceWidth = sourceWidth;
+    mSourceHeight = sourceHeight;
+    mRecycler = recycler;
+  }
+
+  public byte[] getData() {
+    return mData;
+  }
+
+  public int getWidth() {
+    return mWidth;
+  }
+
+  public int getHeight() {
+    return mHeight;
+  }
+
+  public int getRotation() {
+    return mRotation;
+  }
+
+  /**
+   * @return the region of the source frame this frame holds, or null if it is the full frame
+   */
+  public Rect getRegion() {
+    return mRegion;
+  }
+
+  public int getSourceWidth() {
+    return mSourceWidth;
+  }
+
+  public int getSourceHeight() {
+    return mSourceHeight;
+  }
+
+  public PreviewFrame retain() {
+    mRefCount.incrementAndGet();
+    return this;
+  }
+
+  public void release() {
+    if (mRefCount.decrementAndGet() == 0 && mRecycler != null) {
+      mRecycler.recycle(mData);
+    }
+  }
+}
@@ -0,0 +1,116 @@
+package org.reactnative.camera.utils;
+
+import android.graphics.Point;
+import android.graphics.Rect;
+
+/**
+ * Maps the scan area set through {@code rectOfInterest} onto camera frames and crops
+ * NV21 frames down to it, so detectors only look at the part of the frame the user sees.
+ */
+public class RegionOfInterest {
+  private float mX;
+  private float mY;
+  private float mWidth;
+  private float mHeight;
+  private int mCameraViewWidth;
+  private int mCameraViewHeight;
+
+  public void set(float x, float y, float width, float height) {
+    mX = x;
+    mY = y;
+    mWidth = width;
+    mHeight = height;
+  }
+
+  public void setCameraViewDimensions(int width, int height) {
+    mCameraViewWidth = width;
+    mCameraViewHeight = height;
+  }
+
+  /**
+   * @param frameWidth width of the frame as delivered by the camera (landscape, home button to the right)
+   * @param frameHeight height of the frame as delivered by the camera
+   * @param ratio aspect ratio of the preview
+   * @return the scan area in frame coordinates, always inside the frame and never empty
+   */
+  public Rect getFrameRect(int frameWidth, int frameHeight, float ratio) {
+    /**
+     * mCameraViewWidth and mCameraViewHeight are obtained from portait orientation
+     * frameWidth and frameHeight are measured with landscape orientation with Home button to the right
+     * adjustedCamViewWidth is the adjusted width from the Aspect ratio setting
+     */
+    int adjustedCamViewWidth = (int) (mCameraViewHeight / ratio);
+    float adjustedScanY = mY;
+    float adjustedScanHeight = mHeight;
+    if (adjustedCamViewWidth > 0) {
+      adjustedScanY = (((adjustedCamViewWidth - mCameraViewWidth) / 2) + (mY * mCameraViewWidth)) / adjustedCamViewWidth;
+      adjustedScanHeight = (mHeight * mCameraViewWidth) / adjustedCamViewWidth;
+    }
+
+    int left = clamp((int) (mX * frameWidth), 0, frameWidth - 1);
+    int top = clamp((int) (adjustedScanY * frameHeight), 0, frameHeight - 1);
+    int width = clamp((int) (mWidth * frameWidth), 1, frameWidth - left);
+    int height = clamp((int) (adjustedScanHeight * frameHeight), 1, frameHeight - top);
+    return new Rect(left, top, left + width, top + height);
+  }
+
+  /**
+   * Same as {@link #getFrameRect(int, int, float)}, but grown to even coordinates so the
+   * chroma plane of an NV21 frame can be cropped along with the luma plane.
+   */
+  public Rect getNv21CropRect(int frameWidth, int frameHeight, float ratio) {
+    Rect rect = getFrameRect(frameWidth, frameHeight, ratio);
+    rect.left &= ~1;
+    rect.top &= ~1;
+    rect.right = Math.min(frameWidth & ~1, (rect.right + 1) & ~1);
+    rect.bottom = Math.min(frameHeight & ~1, (rect.bottom + 1) & ~1);
+    return rect;
+  }
+
+  public static int getNv21BufferSize(int width, int height) {
+    return width * height * 3 / 2;
+  }
+
+  /**
+   * Copies the region of an NV21 frame into {@code output}, which then holds an NV21 frame of
+   * {@code crop.width()} x {@code crop.height()}. The crop has to be aligned to even coordinates.
+   */
+  public static void cropNv21(byte[] data, int width, int height, Rect crop, byte[] output) {
+    int cropWidth = crop.width();
+    int cropHeight = crop.height();
+    int out = 0;
+    for (int row = crop.top; row < crop.bottom; row++) {
+      System.arraycopy(data, row * width + crop.left, output, out, cropWidth);
+      out += cropWidth;
+    }
+    // interleaved VU plane, one row per two luma rows
+    int chromaStart = width * height;
+    for (int row = crop.top / 2; row < crop.bottom / 2; row++) {
+      System.arraycopy(data, chromaStart + row * width + crop.left, output, out, cropWidth);
+      out += cropWidth;
+    }
+  }
+
+  /**
+   * Detectors report positions in the upright (rotated) image they were given. This returns
+   * the offset to add to such a position found in the cropped region to get the position in
+   * the upright full frame.
+   */
+  public static Point getRotatedOffset(Rect crop, int frameWidth, int frameHeight, int rotation) {
+    switch (rotation) {
+      case 90:
+        return new Point(frameHeight - crop.bottom, crop.left);
+      case 180:
+        return new Point(frameWidth - crop.right, frameHeight - crop.bottom);
+      case 270:
+      case -90:
+        return new Point(crop.top, frameWidth - crop.right);
+      default:
+        return new Point(crop.left, crop.top);
+    }
+  }
+
+  private static int clamp(int value, int min, int max) {
+    return Math.max(min, Math.min(max, value));
+  }
+}
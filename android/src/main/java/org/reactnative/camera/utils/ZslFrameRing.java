@@ -0,0 +1,90 @@
+package org.reactnative.camera.utils;
+
+import java.util.ArrayDeque;
+
+/**
+ * Keeps copies of the last few preview frames, so a picture can be taken from a frame the
+ * camera already delivered instead of starting a new still capture (zero shutter lag).
+ *
+ * Frames are copied into pooled buffers. A frame handed out by {@link #acquireClosest(long)}
+ * keeps its buffer until it is released, the ring simply skips new frames while every buffer
+ * is in use.
+ */
+public class ZslFrameRing {
+  private final int mCapacity;
+  private final FrameBufferPool mBuffers;
+  private final ArrayDeque<Entry> mEntries;
+  private final PreviewFrame.Recycler mRecycler = new PreviewFrame.Recycler() {
+    @Override
+    public void recycle(byte[] data) {
+      mBuffers.release(data);
+    }
+  };
+
+  private static class Entry {
+    final PreviewFrame frame;
+    final long timestamp;
+
+    Entry(PreviewFrame frame, long timestamp) {
+      this.frame = frame;
+      this.timestamp = timestamp;
+    }
+  }
+
+  /**
+   * @param capacity number of frames kept. One more buffer is pooled, so a frame being encoded
+   * doesn't stop the ring from taking new ones.
+   */
+  public ZslFrameRing(int capacity) {
+    mCapacity = Math.max(1, capacity);
+    mBuffers = new FrameBufferPool(mCapacity + 1);
+    mEntries = new ArrayDeque<>(mCapacity);
+  }
+
+  public int getCapacity() {
+    return mCapacity;
+  }
+
+  /**
+   * Copies an NV21 frame into the ring, dropping the oldest one when it is full.
+   *
+   * @param timestamp arrival time of the frame, in {@link android.os.SystemClock#elapsedRealtime()} ms
+   */
+  public synchronized void offer(byte[] data, int width, int height, int rotation, long timestamp) {
+    int bufferSize = RegionOfInterest.getNv21BufferSize(width, height);
+    if (mBuffers.getBufferSize() != bufferSize) {
+      clear();
+      mBuffers.reset(bufferSize);
+    }
+    if (mEntries.size() >= mCapacity) {
+      mEntries.poll().frame.release();
+    }
+    byte[] buffer = mBuffers.acquire();
+    if (buffer == null) {
+      return;
+    }
+    System.arraycopy(data, 0, buffer, 0, bufferSize);
+    mEntries.add(new Entry(new PreviewFrame(buffer, width, height, rotation, mRecycler), timestamp));
+  }
+
+  /**
+   * @return the frame that arrived closest to {@code timestamp}, or null if there is none. The
+   * caller has to release it.
+   */
+  public synchronized PreviewFrame acquireClosest(long timestamp) {
+    Entry closest = null;
+    for (Entry entry : mEntries) {
+      if (closest == null || Math.abs(entry.timestamp - timestamp) < Math.abs(closest.timestamp - timestamp)) {
+        closest = entry;
+      }
+    }
+    return closest != null ? closest.frame.retain() : null;
+  }
+
+  public synchronized void clear() {
+    Entry entry;
+    while ((entry = mEntries.poll()) != null) {
+      entry.frame.release();
+    }
+  }
+}
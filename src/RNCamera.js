@@ -97,6 +97,8 @@ const styles = StyleSheet.create({
 type Orientation = 'auto' | 'landscapeLeft' | 'landscapeRight' | 'portrait' | 'portraitUpsideDown';
 type OrientationNumber = 1 | 2 | 3 | 4;
 
+type PictureFormat = 'jpg' | 'png' | 'webp' | 'heif';
+
 type PictureOptions = {
   quality?: number,
   orientation?: Orientation | OrientationNumber,
@@ -108,6 +110,30 @@ type PictureOptions = {
   fixOrientation?: boolean,
   forceUpOrientation?: boolean,
   pauseAfterCapture?: boolean,
+  zsl?: boolean,
+  cropToPreview?: boolean,
+  // 'webp' is lossy at any quality, set webpLossless for lossless WebP (Android only)
+  format?: PictureFormat,
+  webpLossless?: boolean,
+  // keeps the picture natively until releaseCaptureAsync (Android only). At most 64 MB of
+  // in-memory captures and 256 handles are kept, older ones are evicted and
+  // readCaptureAsync rejects them with E_CAPTURE_EVICTED
+  handle?: boolean,
+  outputs?: Array<{
+    width?: number,
+    quality?: number,
+    format?: PictureFormat,
+    webpLossless?: boolean,
+    base64?: boolean,
+    handle?: boolean,
+    doNotSave?: boolean,
+    path?: string,
+  }>,
+};
+
+type BurstOptions = PictureOptions & {
+  count?: number,
+  interval?: number,
 };
 
 type TrackedFaceFeature = FaceFeature & {
@@ -229,6 +255,8 @@ type RecordingOptions = {
   quality?: number | string,
   fps?: number,
   codec?: string,
+  segmentDuration?: number,
+  segmentFileSize?: number,
   mute?: boolean,
   path?: string,
   videoBitrate?: number,
@@ -261,17 +289,27 @@ type PropsType = typeof View.props & {
   onPictureSaved?: Function,
   onRecordingStart?: Function,
   onRecordingEnd?: Function,
+  onRecordingSegment?: Function,
   onTap?: Function,
   onDoubleTap?: Function,
   onGoogleVisionBarcodesDetected?: ({ barcodes: Array<TrackedBarcodeFeature> }) => void,
   onSubjectAreaChanged?: ({ nativeEvent: { prevPoint: {| x: number, y: number |} } }) => void,
   faceDetectionMode?: number,
+  faceDetectionFps?: number,
   trackingEnabled?: boolean,
   flashMode?: number | string,
   exposure?: number,
   barCodeTypes?: Array<string>,
+  barCodeScanPasses?: Array<'normal' | 'rotated' | 'inverted' | 'rotatedInverted'>,
+  barCodeScanStrategy?: { adaptive?: boolean, coldFrames?: number, exploreInterval?: number },
+  barCodeScanFps?: number,
   googleVisionBarcodeType?: number,
   googleVisionBarcodeMode?: number,
+  googleVisionBarcodeFps?: number,
+  textRecognitionFps?: number,
+  // keeps copying preview frames for takePicture({ zsl: true }) while set (Android only)
+  zsl?: boolean,
+  zslFrameCount?: number,
   whiteBalance?: number | string | {temperature: number, tint: number, redGainOffset?: number, greenGainOffset?: number, blueGainOffset?: number },
   faceDetectionLandmarks?: number,
   autoFocus?: string | boolean | number,
@@ -284,8 +322,14 @@ type PropsType = typeof View.props & {
   useCamera2Api?: boolean,
   playSoundOnCapture?: boolean,
   playSoundOnRecord?: boolean,
+  videoReady?: boolean,
+  // seconds of video kept before record() is called (Android, Camera2); the encoder runs for
+  // as long as the preview does, so it costs as much power as recording
+  preRollDuration?: number,
+  recordingEngine?: 'mediaRecorder' | 'mediaCodec',
   videoStabilizationMode?: number | string,
   pictureSize?: string,
+  analysisSize?: string,
   rectOfInterest: Rect,
 };
 
@@ -410,6 +454,7 @@ export default class Camera extends React.Component<PropsType, StateType> {
     onPictureSaved: PropTypes.func,
     onRecordingStart: PropTypes.func,
     onRecordingEnd: PropTypes.func,
+    onRecordingSegment: PropTypes.func,
     onTap: PropTypes.func,
     onDoubleTap: PropTypes.func,
     onGoogleVisionBarcodesDetected: PropTypes.func,
@@ -418,11 +463,25 @@ export default class Camera extends React.Component<PropsType, StateType> {
     onSubjectAreaChanged: PropTypes.func,
     trackingEnabled: PropTypes.bool,
     faceDetectionMode: PropTypes.number,
+    faceDetectionFps: PropTypes.number,
     faceDetectionLandmarks: PropTypes.number,
     faceDetectionClassifications: PropTypes.number,
     barCodeTypes: PropTypes.arrayOf(PropTypes.string),
+    barCodeScanPasses: PropTypes.arrayOf(
+      PropTypes.oneOf(['normal', 'rotated', 'inverted', 'rotatedInverted']),
+    ),
+    barCodeScanStrategy: PropTypes.shape({
+      adaptive: PropTypes.bool,
+      coldFrames: PropTypes.number,
+      exploreInterval: PropTypes.number,
+    }),
+    barCodeScanFps: PropTypes.number,
     googleVisionBarcodeType: PropTypes.number,
     googleVisionBarcodeMode: PropTypes.number,
+    googleVisionBarcodeFps: PropTypes.number,
+    textRecognitionFps: PropTypes.number,
+    zsl: PropTypes.bool,
+    zslFrameCount: PropTypes.number,
     type: PropTypes.oneOfType([PropTypes.string, PropTypes.number]),
     cameraId: PropTypes.string,
     flashMode: PropTypes.oneOfType([PropTypes.string, PropTypes.number]),
@@ -445,8 +504,12 @@ export default class Camera extends React.Component<PropsType, StateType> {
     useCamera2Api: PropTypes.bool,
     playSoundOnCapture: PropTypes.bool,
     playSoundOnRecord: PropTypes.bool,
+    videoReady: PropTypes.bool,
+    preRollDuration: PropTypes.number,
+    recordingEngine: PropTypes.oneOf(['mediaRecorder', 'mediaCodec']),
     videoStabilizationMode: PropTypes.oneOfType([PropTypes.string, PropTypes.number]),
     pictureSize: PropTypes.string,
+    analysisSize: PropTypes.string,
     mirrorVideo: PropTypes.bool,
     rectOfInterest: PropTypes.any,
     defaultVideoQuality: PropTypes.oneOfType([PropTypes.string, PropTypes.number]),
@@ -491,7 +554,11 @@ export default class Camera extends React.Component<PropsType, StateType> {
     useCamera2Api: false,
     playSoundOnCapture: false,
     playSoundOnRecord: false,
+    videoReady: false,
+    preRollDuration: 0,
+    recordingEngine: 'mediaRecorder',
     pictureSize: 'None',
+    analysisSize: 'None',
     videoStabilizationMode: 0,
     mirrorVideo: false,
   };
@@ -546,6 +613,37 @@ export default class Camera extends React.Component<PropsType, StateType> {
     return await CameraManager.takePicture(options, this._cameraHandle);
   }
 
+  async takeBurstAsync(options?: BurstOptions) {
+    if (Platform.OS !== 'android') {
+      throw new Error('Burst capture is not supported on iOS');
+    }
+    if (!options) {
+      options = {};
+    }
+    if (!options.quality) {
+      options.quality = 1;
+    }
+
+    if (options.orientation) {
+      if (typeof options.orientation !== 'number') {
+        const { orientation } = options;
+        options.orientation = CameraManager.Orientation[orientation];
+        if (__DEV__) {
+          if (typeof options.orientation !== 'number') {
+            // eslint-disable-next-line no-console
+            console.warn(`Orientation '${orientation}' is invalid.`);
+          }
+        }
+      }
+    }
+
+    if (!this._cameraHandle) {
+      throw 'Camera handle cannot be null';
+    }
+
+    return await CameraManager.takeBurst(options, this._cameraHandle);
+  }
+
   async getSupportedRatiosAsync() {
     if (Platform.OS === 'android') {
       return await CameraManager.getSupportedRatios(this._cameraHandle);
@@ -562,6 +660,20 @@ export default class Camera extends React.Component<PropsType, StateType> {
     }
   }
 
+  static async readCaptureAsync(handle: string, offset: number = 0, length: number = 512 * 1024) {
+    if (Platform.OS !== 'android') {
+      throw new Error('Capture handles are not supported on iOS');
+    }
+    return await CameraManager.readCapture(handle, offset, length);
+  }
+
+  static async releaseCaptureAsync(handle: string) {
+    if (Platform.OS !== 'android') {
+      throw new Error('Capture handles are not supported on iOS');
+    }
+    return await CameraManager.releaseCapture(handle);
+  }
+
   static async checkIfVideoIsValid(path) {
     if (Platform.OS === 'android') {
       return await CameraManager.checkIfVideoIsValid(path);
@@ -644,6 +756,20 @@ export default class Camera extends React.Component<PropsType, StateType> {
     CameraManager.resumeRecording(this._cameraHandle);
   }
 
+  async setVideoBitrateAsync(bitrate: number) {
+    if (Platform.OS !== 'android') {
+      throw new Error('setVideoBitrateAsync is not supported on iOS');
+    }
+    return await CameraManager.setVideoBitrate(bitrate, this._cameraHandle);
+  }
+
+  async requestKeyFrameAsync() {
+    if (Platform.OS !== 'android') {
+      throw new Error('requestKeyFrameAsync is not supported on iOS');
+    }
+    return await CameraManager.requestKeyFrame(this._cameraHandle);
+  }
+
   pausePreview() {
     CameraManager.pausePreview(this._cameraHandle);
   }